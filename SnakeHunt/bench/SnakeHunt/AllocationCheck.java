@@ -0,0 +1,66 @@
+package SnakeHunt;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * AllocationCheck verifies that a warmed-up game tick allocates no memory.
+ * It plays the engine on a large board along the cycle of CyclePolicy,
+ * eating every hunt on the way, and reads the bytes allocated by the
+ * current thread before and after the measured ticks. It exits with an
+ * error if any byte was allocated. Run it with "ant bench".
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class AllocationCheck {
+
+    private static final int BOARD_SIZE = 1024; // Large enough that level 3 lasts millions of ticks
+    private static final int WARMUP_TICKS = 2_000_000; // Ticks played before measuring, to let the JIT compile
+    private static final int MEASURED_TICKS = 1_000_000; // Ticks played while measuring
+
+    /**
+     * Plays the ticks and checks the allocated bytes.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threads
+                = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        GameEngine engine = new GameEngine(BOARD_SIZE, BOARD_SIZE);
+        engine.reset(GameEngine.MAX_LEVEL); // Highest win score, so the game lasts
+
+        play(engine, WARMUP_TICKS);
+        long before = threads.getThreadAllocatedBytes(threadId);
+        int played = play(engine, MEASURED_TICKS);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        System.out.println("ticks measured:  " + played);
+        System.out.println("bytes allocated: " + allocated);
+        if (played < MEASURED_TICKS) {
+            System.err.println("Game ended after " + played + " measured ticks");
+            System.exit(1);
+        }
+        if (allocated != 0) {
+            System.err.println("Tick path allocated " + allocated + " bytes");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Steps the engine along the cycle.
+     *
+     * @return the number of ticks played before the game stopped running
+     */
+    private static int play(GameEngine engine, int ticks) {
+        Board board = engine.getBoard();
+        for (int i = 0; i < ticks; i++) {
+            Direction direction = CyclePolicy.directionAt(board, engine.getSnake().getHead());
+            if (engine.step(direction) != GameEngine.Status.RUNNING) {
+                return i + 1;
+            }
+        }
+        return ticks;
+    }
+}
@@ -0,0 +1,132 @@
+package SnakeHunt;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ArenaBenchmark measures how the arena tick scales with the number of
+ * threads, from 1 up to the number of processors, for a large board with
+ * hundreds to tens of thousands of snakes. Every thread count plays the same
+ * seeded session, and the final state is compared with the single-threaded
+ * run to check that the result does not depend on the number of threads.
+ * Run it with "ant bench", or pass a thread count to go beyond the number of
+ * processors.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class ArenaBenchmark {
+
+    private static final int BOARD_SIZE = 1024; // Width and height of the board
+    private static final int[] SNAKES = {256, 4_096, 65_536}; // Snake counts to measure
+    private static final int TICKS = 300; // Ticks played per session
+    private static final int WARMUP_SESSIONS = 5; // Sessions played before measuring
+    private static final long SEED = 42;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Runs every snake count with 1 to N threads and prints the time per
+     * tick and the speedup over one thread.
+     *
+     * @param args optionally the largest thread count, the number of
+     * processors by default
+     */
+    public static void main(String[] args) {
+        int processors = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        System.out.printf("%8s %8s %10s %12s %8s %8s%n", "snakes", "threads", "alive", "us/tick", "speedup", "same");
+        for (int snakes : SNAKES) {
+            ForkJoinPool warmup = new ForkJoinPool(processors);
+            for (int i = 0; i < WARMUP_SESSIONS; i++) {
+                play(create(snakes, warmup));
+            }
+            warmup.shutdown();
+            double single = 0;
+            long expected = 0;
+            for (int threads = 1; threads <= processors; threads = nextThreadCount(threads, processors)) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                Arena arena = create(snakes, pool);
+                long start = System.nanoTime();
+                play(arena);
+                double micros = (System.nanoTime() - start) / 1000.0 / TICKS;
+                pool.shutdown();
+
+                long checksum = checksum(arena);
+                if (threads == 1) {
+                    single = micros;
+                    expected = checksum;
+                }
+                System.out.printf("%8d %8d %10d %12.1f %7.2fx %8s%n", snakes, threads, arena.getAliveCount(),
+                        micros, single / micros, checksum == expected ? "yes" : "NO");
+                if (checksum != expected) {
+                    System.exit(1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the seeded arena, with as much food as snakes.
+     */
+    private static Arena create(int snakes, ForkJoinPool pool) {
+        return new Arena(BOARD_SIZE, BOARD_SIZE, snakes, snakes, SEED, pool, ArenaBenchmark::steer);
+    }
+
+    /**
+     * Plays the ticks of one session.
+     */
+    private static void play(Arena arena) {
+        for (int i = 0; i < TICKS; i++) {
+            arena.step();
+        }
+    }
+
+    /**
+     * Doubles the thread count, ending with the number of processors.
+     */
+    private static int nextThreadCount(int threads, int processors) {
+        return threads < processors && threads * 2 > processors ? processors : threads * 2;
+    }
+
+    /**
+     * Steers a snake to a free neighbouring cell, trying the directions in an
+     * order picked from the snake number and the tick so the snakes wander.
+     */
+    private static Direction steer(Arena arena, int i) {
+        Board board = arena.getBoard();
+        Snake snake = arena.getSnake(i);
+        int head = snake.getHead();
+        int hash = (i * 0x9E3779B9) ^ (arena.getTick() * 0x85EBCA6B);
+        hash ^= hash >>> 15;
+        int first = (hash & 0x7FFFFFFF) % DIRECTIONS.length;
+        if ((hash & 0x70) != 0) {
+            first = snake.direction.ordinal(); // Mostly keep going straight
+        }
+        for (int k = 0; k < DIRECTIONS.length; k++) {
+            Direction direction = DIRECTIONS[(first + k) % DIRECTIONS.length];
+            int x = board.cellX(head) + direction.getDx();
+            int y = board.cellY(head) + direction.getDy();
+            if (direction != snake.direction.opposite() && board.contains(x, y)
+                    && !board.isOccupied(board.cellOf(x, y))) {
+                return direction;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hashes the state of every snake and piece of food.
+     */
+    private static long checksum(Arena arena) {
+        long hash = 17;
+        for (int i = 0; i < arena.getSnakeCount(); i++) {
+            Snake snake = arena.getSnake(i);
+            hash = hash * 31 + (arena.isAlive(i) ? 1 : 0);
+            hash = hash * 31 + snake.getHead();
+            hash = hash * 31 + snake.getLength();
+            hash = hash * 31 + snake.huntsEaten;
+        }
+        for (int i = 0; i < arena.getFoodCount(); i++) {
+            hash = hash * 31 + arena.getFoodCell(i);
+        }
+        return hash;
+    }
+}
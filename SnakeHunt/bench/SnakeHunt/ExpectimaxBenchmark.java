@@ -0,0 +1,164 @@
+package SnakeHunt;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * ExpectimaxBenchmark plays seeded games of the highest level on the board
+ * of the game with the autopilot and with the expectimax search at several
+ * time budgets, and prints how they play and how the search performs: the
+ * games won, the mean score, the median, 99th percentile and longest time to
+ * choose a move, the decision nodes searched per second, the share of table
+ * lookups that found a deep enough result, the mean depth completed and the
+ * bytes allocated per move, which come from the arrays a policy makes on its
+ * first move. A last case plays the games on every processor with one table
+ * shared by all threads. Run it with "ant bench".
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class ExpectimaxBenchmark {
+
+    private static final int WIDTH = Main.BOARD_WIDTH;
+    private static final int HEIGHT = Main.BOARD_HEIGHT;
+    private static final int GAMES = 10;          // Games played by each case
+    private static final int WARMUP_GAMES = 3;    // Games played by each policy before measuring
+    private static final long MAX_TICKS = 5_000;  // Ticks after which a game is stopped
+    private static final long[] BUDGETS = {100_000L, 1_000_000L}; // Time budgets per move in nanoseconds
+    private static final int TABLE_BITS = 20;     // 2^20 buckets, 32 MB
+    private static final long SEED = 7;
+
+    private static final com.sun.management.ThreadMXBean THREADS
+            = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Runs every case and prints its line.
+     *
+     * @param args not used
+     * @throws InterruptedException if interrupted while waiting for the
+     * threads of the shared case
+     */
+    public static void main(String[] args) throws InterruptedException {
+        System.out.printf("%d games of level %d on a %dx%d board%n", GAMES, GameEngine.MAX_LEVEL, WIDTH, HEIGHT);
+        System.out.printf("%-19s %5s %6s %9s %9s %9s %12s %8s %6s %8s%n", "case", "won", "score", "p50 us",
+                "p99 us", "max us", "nodes/s", "hits", "depth", "bytes");
+        for (long budget : BUDGETS) {
+            play(new ExpectimaxPolicy(new TranspositionTable(TABLE_BITS), budget), WARMUP_GAMES, null);
+        }
+        play(new AutopilotPolicy(), WARMUP_GAMES, null);
+        Result autopilot = play(new AutopilotPolicy(), GAMES, null);
+        autopilot.print("autopilot");
+        for (long budget : BUDGETS) {
+            ExpectimaxPolicy policy = new ExpectimaxPolicy(new TranspositionTable(TABLE_BITS), budget);
+            Result result = play(policy, GAMES, policy);
+            result.print("expectimax " + budget / 1000 + " us");
+        }
+        shared(BUDGETS[0]);
+    }
+
+    /**
+     * Plays the games on every processor with one shared table and prints
+     * the totals.
+     */
+    private static void shared(long budget) throws InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        TranspositionTable table = new TranspositionTable(TABLE_BITS);
+        Result[] results = new Result[threads];
+        ExpectimaxPolicy[] policies = new ExpectimaxPolicy[threads];
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            int worker = i;
+            policies[i] = new ExpectimaxPolicy(table, budget);
+            workers[i] = new Thread(() -> results[worker] = play(policies[worker], GAMES, policies[worker]));
+            workers[i].start();
+        }
+        Result total = new Result();
+        for (int i = 0; i < threads; i++) {
+            workers[i].join();
+            total.add(results[i]);
+        }
+        total.print(threads + " threads shared");
+        System.out.printf("shared table %.0f%% used%n", 100 * table.getUsage());
+    }
+
+    /**
+     * Plays seeded games with a policy and gathers the results.
+     *
+     * @param search the policy if it is an expectimax search, for its
+     * statistics, or null
+     */
+    private static Result play(Policy policy, int games, ExpectimaxPolicy search) {
+        Result result = new Result();
+        long threadId = Thread.currentThread().getId();
+        GameEngine engine = new GameEngine(WIDTH, HEIGHT, SEED);
+        for (int game = 0; game < games; game++) {
+            engine.reset(GameEngine.MAX_LEVEL, SEED + game);
+            policy.reset(SEED + game);
+            // Read once per game, as reading it around every move allocates; the ticks allocate nothing
+            long allocated = THREADS.getThreadAllocatedBytes(threadId);
+            while (engine.getStatus() == GameEngine.Status.RUNNING && engine.getTick() < MAX_TICKS) {
+                long start = System.nanoTime();
+                Direction direction = policy.choose(engine);
+                result.times.record(System.nanoTime() - start);
+                engine.step(direction);
+            }
+            result.bytes += THREADS.getThreadAllocatedBytes(threadId) - allocated;
+            result.games++;
+            result.won += engine.getStatus() == GameEngine.Status.WON ? 1 : 0;
+            result.score += engine.getSnake().huntsEaten;
+        }
+        if (search != null) {
+            result.nodes = search.getNodeCount();
+            result.searchNanos = search.getSearchNanos();
+            result.probes = search.getProbeCount();
+            result.hits = search.getHitCount();
+            result.depth = search.getAverageDepth();
+        }
+        return result;
+    }
+
+    /**
+     * Totals of the games of one case.
+     */
+    private static final class Result {
+
+        final LatencyHistogram times = new LatencyHistogram(); // Time to choose each move
+        long games;
+        long won;
+        long score;       // Hunts eaten in all games
+        long bytes;       // Bytes allocated while choosing moves
+        long nodes;       // Decision nodes searched
+        long searchNanos; // Time spent searching
+        long probes;
+        long hits;
+        double depth;     // Mean depth completed per move
+
+        /**
+         * Adds the totals of another case of the same policy.
+         */
+        void add(Result other) {
+            times.add(other.times);
+            depth = (depth * games + other.depth * other.games) / Math.max(1, games + other.games);
+            games += other.games;
+            won += other.won;
+            score += other.score;
+            bytes += other.bytes;
+            nodes += other.nodes;
+            searchNanos = Math.max(searchNanos, other.searchNanos); // The threads search at the same time
+            probes += other.probes;
+            hits += other.hits;
+        }
+
+        /**
+         * Prints the line of the case.
+         */
+        void print(String name) {
+            System.out.printf("%-19s %5s %6.1f %9.1f %9.1f %9.1f %12s %8s %6s %8.1f%n", name, won + "/" + games,
+                    (double) score / games, times.getPercentile(50) / 1000.0, times.getPercentile(99) / 1000.0,
+                    times.getMax() / 1000.0,
+                    searchNanos > 0 ? String.format("%.0f", nodes / (searchNanos / 1e9)) : "-",
+                    probes > 0 ? String.format("%.1f%%", 100.0 * hits / probes) : "-",
+                    searchNanos > 0 ? String.format("%.1f", depth) : "-",
+                    (double) bytes / times.getCount());
+        }
+    }
+}
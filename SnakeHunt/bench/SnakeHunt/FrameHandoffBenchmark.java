@@ -0,0 +1,198 @@
+package SnakeHunt;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+/**
+ * FrameHandoffBenchmark checks that the ticks and the drawing of the game
+ * run independently once frames are handed over through a FrameExchange. A
+ * simulation thread steps a snake of 100,000 parts along the cycle of
+ * CyclePolicy on a 2048x2048 board as fast as it can, publishing a frame
+ * snapshot after every tick, while a render thread draws the latest frame
+ * into an image as fast as it can, the way Main does. Each is measured
+ * alone and then both together, with the rate, the longest gap between two
+ * ticks or two frames, and the bytes the simulation thread allocates per
+ * tick. Every frame drawn is checked to be whole: its time played must match
+ * its sequence number and its head must lie on a body cell. With one core
+ * per thread the rates stay the same together as alone; on fewer cores the
+ * threads share the time but neither ever waits for the other. Run it with
+ * "ant bench".
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class FrameHandoffBenchmark {
+
+    private static final int BOARD_SIZE = 2048;    // Columns and rows of the board
+    private static final int LENGTH = 100_000;     // Length of the snake
+    private static final long TICK_NANOS = GameEngine.tickNanosFor(GameEngine.MAX_LEVEL); // Time played per tick
+    private static final long RUN_NANOS = 1_000_000_000L; // Time measured for each case
+
+    private static GameEngine engine;
+    private static final Camera camera = new Camera(Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT);
+    private static final FrameExchange frames = new FrameExchange();
+    private static final Map map = new Map();
+    private static final BufferedImage image
+            = new BufferedImage(Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+
+    private static volatile boolean stopped; // Set to end the threads of a case
+    private static volatile long ticks;      // Ticks of the current case, simulation thread only
+    private static volatile long maxTickGap; // Longest time between two ticks, simulation thread only
+    private static volatile long allocated;  // Bytes allocated by the simulation thread in the case
+    private static volatile long drawn;      // Frames drawn in the current case, render thread only
+    private static volatile long maxFrameGap; // Longest time between two frames, render thread only
+    private static volatile long torn;       // Frames drawn that were not whole, render thread only
+
+    /**
+     * Runs the three cases and prints the results.
+     *
+     * @param args not used
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static void main(String[] args) throws InterruptedException {
+        engine = new GameEngine(BOARD_SIZE, BOARD_SIZE, 1);
+        engine.reset(GameEngine.MAX_LEVEL, 7); // Highest win score, so the level lasts
+        grow(engine, LENGTH);
+        map.setBoardSize(BOARD_SIZE, BOARD_SIZE);
+        camera.center(engine.getBoard(), engine.getSnake().getHead());
+        publish(-1);
+
+        System.out.printf("%d processors%n", Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-10s %12s %14s %12s %14s %10s %12s%n", "case", "ticks/s", "max tick gap us",
+                "frames/s", "max frame gap us", "torn", "bytes/tick");
+        for (int warmup = 0; warmup < 2; warmup++) {
+            run(true, true, false); // Let the JIT compile both sides
+        }
+        run(true, false, true);
+        run(false, true, true);
+        run(true, true, true);
+    }
+
+    /**
+     * Runs one case for RUN_NANOS and prints its line if asked.
+     */
+    private static void run(boolean simulate, boolean render, boolean print) throws InterruptedException {
+        stopped = false;
+        ticks = 0;
+        maxTickGap = 0;
+        allocated = 0;
+        drawn = 0;
+        maxFrameGap = 0;
+        torn = 0;
+        Thread simulation = new Thread(FrameHandoffBenchmark::simulate, "Handoff simulation");
+        Thread renderer = new Thread(FrameHandoffBenchmark::render, "Handoff render");
+        if (simulate) {
+            simulation.start();
+        }
+        if (render) {
+            renderer.start();
+        }
+        Thread.sleep(RUN_NANOS / 1_000_000);
+        stopped = true;
+        simulation.join();
+        renderer.join();
+        if (print) {
+            String name = simulate && render ? "both" : simulate ? "ticks" : "frames";
+            System.out.printf("%-10s %12s %14s %12s %14s %10s %12s%n", name,
+                    simulate ? String.format("%.0f", ticks / (RUN_NANOS / 1e9)) : "-",
+                    simulate ? String.format("%.1f", maxTickGap / 1e3) : "-",
+                    render ? String.format("%.0f", drawn / (RUN_NANOS / 1e9)) : "-",
+                    render ? String.format("%.1f", maxFrameGap / 1e3) : "-",
+                    render ? Long.toString(torn) : "-",
+                    simulate ? String.format("%.2f", (double) allocated / Math.max(1, ticks)) : "-");
+        }
+    }
+
+    /**
+     * Steps the engine and publishes a frame after each tick until stopped.
+     */
+    private static void simulate() {
+        com.sun.management.ThreadMXBean threads
+                = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        Board board = engine.getBoard();
+        Snake snake = engine.getSnake();
+        long count = 0;
+        long maxGap = 0;
+        long previous = System.nanoTime();
+        while (!stopped && engine.getStatus() == GameEngine.Status.RUNNING) {
+            int oldHead = snake.getHead();
+            engine.step(CyclePolicy.directionAt(board, oldHead));
+            engine.addElapsedNanos(TICK_NANOS);
+            camera.follow(board, snake.getHead());
+            publish(oldHead);
+            count++;
+            long now = System.nanoTime();
+            maxGap = Math.max(maxGap, now - previous);
+            previous = now;
+        }
+        allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        maxTickGap = maxGap;
+        ticks = count;
+    }
+
+    /**
+     * Draws the latest frame into the image until stopped, checking that
+     * every frame is whole.
+     */
+    private static void render() {
+        Graphics2D g2d = image.createGraphics();
+        long count = 0;
+        long maxGap = 0;
+        long broken = 0;
+        long previous = System.nanoTime();
+        while (!stopped) {
+            FrameSnapshot frame = frames.latest();
+            Graphics world = g2d.create();
+            world.translate(-frame.cameraX, -frame.cameraY);
+            world.clipRect(frame.cameraX, frame.cameraY, Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT);
+            map.drawGrid(world);
+            map.drawSnake(world, frame, 1.0);
+            map.drawHunt(world, frame);
+            world.dispose();
+            if (frame.elapsedNanos != (frame.sequence - 1) * TICK_NANOS
+                    || !frame.isOccupied(frame.head % frame.boardWidth, frame.head / frame.boardWidth)) {
+                broken++;
+            }
+            count++;
+            long now = System.nanoTime();
+            maxGap = Math.max(maxGap, now - previous);
+            previous = now;
+        }
+        g2d.dispose();
+        torn = broken;
+        maxFrameGap = maxGap;
+        drawn = count;
+    }
+
+    /**
+     * Fills the back snapshot from the engine and publishes it, as
+     * Main.publishFrame() does.
+     */
+    private static void publish(int previousHead) {
+        FrameSnapshot frame = frames.back();
+        frame.capture(engine, camera, Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT);
+        frame.previousHead = previousHead;
+        frame.tickNanos = TICK_NANOS;
+        frames.publish();
+    }
+
+    /**
+     * Grows the snake of an engine to the given length along the cycle of
+     * CyclePolicy and places a new hunt off its body. The score is set back
+     * to 0 so the level is not won at once.
+     */
+    private static void grow(GameEngine engine, int length) {
+        Snake snake = engine.getSnake();
+        Board board = engine.getBoard();
+        while (snake.getLength() < length) {
+            snake.grow();
+            snake.turn(CyclePolicy.directionAt(board, snake.getHead()));
+            snake.move();
+        }
+        snake.huntsEaten = 0;
+        engine.getHunt().newHunt();
+    }
+}
@@ -0,0 +1,83 @@
+package SnakeHunt;
+
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * InputQueueBenchmark checks that the input queue plays a quick U-turn over
+ * two ticks and never hands out a reversing direction, then measures the
+ * time from a key press to the tick taking it. A producer thread presses
+ * random directions at random moments while a TickScheduler takes them at
+ * tick periods from 10 ms down to 250 us. A press waits for the next tick,
+ * plus one tick for each turn queued ahead of it, so the latency should
+ * scale with the period at every rate. It exits with an error if either
+ * check fails. Run it with "ant bench".
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class InputQueueBenchmark {
+
+    private static final long[] PERIODS = {10_000_000L, 1_000_000L, 250_000L}; // Tick periods measured
+    private static final long RUN_NANOS = 2_000_000_000L; // Time measured at each period
+
+    private static volatile Direction current = Direction.RIGHT; // Direction of the simulated snake
+    private static volatile boolean reversed; // Set if the queue ever handed out a reversing direction
+
+    /**
+     * Runs the check and the measurements and prints the results.
+     *
+     * @param args not used
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static void main(String[] args) throws InterruptedException {
+        InputQueue queue = new InputQueue();
+        queue.offer(Direction.UP, 0); // Both pressed within one tick while going right
+        queue.offer(Direction.LEFT, 0);
+        Direction first = queue.take(Direction.RIGHT);
+        Direction second = queue.take(first);
+        boolean uTurn = first == Direction.UP && second == Direction.LEFT;
+        System.out.printf("U-turn: right, then %s, then %s (%s)%n", first, second, uTurn ? "both played" : "WRONG");
+        if (!uTurn) {
+            System.err.println("Two presses within one tick were not both played");
+            System.exit(1);
+        }
+
+        System.out.printf("%12s %10s %10s %10s %10s %10s%n", "period us", "presses", "p50 us", "p99 us", "max us",
+                "dropped");
+        for (long period : PERIODS) {
+            InputQueue input = new InputQueue();
+            LatencyHistogram latencies = new LatencyHistogram();
+            current = Direction.RIGHT;
+            TickScheduler scheduler = new TickScheduler("Input benchmark ticks", () -> {
+                long now = System.nanoTime();
+                Direction taken = input.take(current);
+                if (taken != null) {
+                    if (taken == current.opposite()) {
+                        reversed = true;
+                    }
+                    latencies.record(now - input.getTakenStamp());
+                    current = taken;
+                }
+            });
+            scheduler.start(period);
+            Random random = new Random(period);
+            Direction[] directions = Direction.values();
+            long presses = 0;
+            long end = System.nanoTime() + RUN_NANOS;
+            while (System.nanoTime() < end) {
+                LockSupport.parkNanos(random.nextInt((int) (2 * period))); // About one press every tick
+                input.offer(directions[random.nextInt(directions.length)], System.nanoTime());
+                presses++;
+            }
+            scheduler.stop();
+            System.out.printf("%12.0f %10d %10.1f %10.1f %10.1f %10d%n", period / 1e3, presses,
+                    latencies.getPercentile(50) / 1e3, latencies.getPercentile(99) / 1e3, latencies.getMax() / 1e3,
+                    input.getDroppedCount());
+        }
+        System.out.println(reversed ? "a reversing direction was taken: WRONG" : "no reversing direction taken");
+        if (reversed) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package SnakeHunt;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * LeaderboardBenchmark fills a leaderboard log with two million runs and
+ * measures how long the caller waits to record a run, how fast the runs are
+ * appended, how long reopening the log and rebuilding the index takes, how
+ * long a top-10 query takes and how long compaction takes. The index is
+ * checked against a brute-force ranking of all the runs after reopening and
+ * after compacting, and again after reopening the compacted log; it exits
+ * with an error if any check fails. Run it with "ant bench".
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class LeaderboardBenchmark {
+
+    private static final int RUNS = 2_000_000;     // Runs recorded
+    private static final int QUERIES = 1_000_000;  // Top-10 queries timed
+
+    /**
+     * Runs the benchmark and prints the results.
+     *
+     * @param args not used
+     * @throws Exception if the log cannot be used
+     */
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("snakehunt");
+        Path file = directory.resolve("leaderboard.log");
+        boolean failed = false; // True once an index check failed
+        try {
+            Random random = new Random(1);
+            long[][] keys = new long[GameEngine.MAX_LEVEL][RUNS]; // Rank keys of every run, by level
+            int[] counts = new int[GameEngine.MAX_LEVEL];
+            LatencyHistogram waits = new LatencyHistogram();
+
+            Leaderboard leaderboard = new Leaderboard(file, Long.MAX_VALUE);
+            long start = System.nanoTime();
+            for (int i = 0; i < RUNS; i++) {
+                int level = 1 + random.nextInt(GameEngine.MAX_LEVEL);
+                int score = random.nextInt(GameEngine.WIN_SCORES[level - 1] + 1);
+                long elapsedMillis = 1000 + random.nextInt(600_000);
+                long before = System.nanoTime();
+                leaderboard.record(level, score, elapsedMillis, score == GameEngine.WIN_SCORES[level - 1], i);
+                waits.record(System.nanoTime() - before);
+                keys[level - 1][counts[level - 1]++] = key(score, elapsedMillis);
+            }
+            leaderboard.drain().get();
+            double appendSeconds = (System.nanoTime() - start) / 1e9;
+            leaderboard.close();
+            System.out.printf("record wait     p50 %.2f us  p99 %.2f us  max %.2f us%n", waits.getPercentile(50) / 1e3,
+                    waits.getPercentile(99) / 1e3, waits.getMax() / 1e3);
+            System.out.printf("appended        %d runs in %.2f s, %.0f runs/s, log %d MB%n", RUNS, appendSeconds,
+                    RUNS / appendSeconds, Files.size(file) >> 20);
+
+            start = System.nanoTime();
+            leaderboard = new Leaderboard(file, Long.MAX_VALUE);
+            leaderboard.drain().get();
+            boolean correct = matches(leaderboard, keys, counts);
+            failed |= !correct;
+            System.out.printf("reopened        %d runs in %.1f ms, index %s%n", leaderboard.getRecordCount(),
+                    (System.nanoTime() - start) / 1e6, correct ? "correct" : "WRONG");
+
+            int found = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) {
+                found += leaderboard.top(1 + i % GameEngine.MAX_LEVEL, 10).length;
+            }
+            System.out.printf("top 10 query    %.0f ns (%d entries)%n", (double) (System.nanoTime() - start) / QUERIES,
+                    found);
+
+            start = System.nanoTime();
+            leaderboard.compact().get();
+            long compactNanos = System.nanoTime() - start;
+            correct = matches(leaderboard, keys, counts);
+            failed |= !correct;
+            System.out.printf("compacted       to %d runs in %.1f ms, log %d KB, index %s%n",
+                    leaderboard.getRecordCount(), compactNanos / 1e6, Files.size(file) >> 10,
+                    correct ? "correct" : "WRONG");
+            leaderboard.close();
+
+            leaderboard = new Leaderboard(file, Long.MAX_VALUE);
+            leaderboard.drain().get();
+            correct = matches(leaderboard, keys, counts);
+            failed |= !correct;
+            System.out.printf("reopened        compacted log, index %s%n", correct ? "correct" : "WRONG");
+            leaderboard.close();
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+        if (failed) {
+            System.err.println("The leaderboard index did not hold the best runs");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Combines a score and a time into a key that sorts in rank order.
+     */
+    private static long key(int score, long elapsedMillis) {
+        return ((long) -score << 40) + elapsedMillis;
+    }
+
+    /**
+     * Checks that the index of every level holds the best runs, by score and
+     * time, in rank order.
+     */
+    private static boolean matches(Leaderboard leaderboard, long[][] keys, int[] counts) {
+        for (int level = 1; level <= GameEngine.MAX_LEVEL; level++) {
+            long[] expected = Arrays.copyOf(keys[level - 1], counts[level - 1]);
+            Arrays.sort(expected);
+            Leaderboard.Entry[] top = leaderboard.top(level, Leaderboard.INDEX_SIZE);
+            if (top.length != Math.min(Leaderboard.INDEX_SIZE, expected.length)) {
+                return false;
+            }
+            for (int i = 0; i < top.length; i++) {
+                if (key(top[i].getScore(), top[i].getElapsedMillis()) != expected[i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
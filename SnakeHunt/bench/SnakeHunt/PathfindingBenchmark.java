@@ -0,0 +1,81 @@
+package SnakeHunt;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * PathfindingBenchmark measures how long the autopilot takes to choose a
+ * move as the board grows. For each board size it plays seeded games of the
+ * highest level with the autopilot, times every decision after a warm-up and
+ * prints the median, 99th percentile and maximum time, the cells expanded by
+ * the path search and the bytes allocated, along with the share of the
+ * fastest tick taken by the slowest decision. It exits with an error if a
+ * decision allocated memory. Run it with "ant bench".
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class PathfindingBenchmark {
+
+    private static final int[] BOARD_SIZES = {64, 256, 1024, 2048}; // Width and height of the boards
+    private static final int WARMUP_DECISIONS = 20_000; // Decisions made before measuring
+    private static final int MEASURED_DECISIONS = 20_000; // Decisions timed for each board
+
+    /**
+     * Runs every board size and prints the decision times.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        long budget = GameEngine.tickNanosFor(GameEngine.MAX_LEVEL);
+
+        System.out.printf("%10s %10s %10s %10s %12s %12s %8s %8s%n", "board", "p50 us", "p99 us", "max us",
+                "p50 cells", "max cells", "budget", "bytes");
+        boolean allocated = false;
+        for (int size : BOARD_SIZES) {
+            GameEngine engine = new GameEngine(size, size, size);
+            engine.reset(GameEngine.MAX_LEVEL, size);
+            AutopilotPolicy autopilot = new AutopilotPolicy();
+            LatencyHistogram times = new LatencyHistogram();
+            LatencyHistogram cells = new LatencyHistogram();
+            play(engine, autopilot, WARMUP_DECISIONS, new LatencyHistogram(), new LatencyHistogram());
+            long bytes = play(engine, autopilot, MEASURED_DECISIONS, times, cells);
+
+            System.out.printf("%10s %10.1f %10.1f %10.1f %12d %12d %7.2f%% %8d%n", size + "x" + size,
+                    times.getPercentile(50) / 1000.0, times.getPercentile(99) / 1000.0, times.getMax() / 1000.0,
+                    cells.getPercentile(50), cells.getMax(), 100.0 * times.getMax() / budget, bytes);
+            allocated |= bytes != 0;
+        }
+        if (allocated) {
+            System.err.println("The autopilot allocated memory while choosing moves");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Makes a number of decisions, starting a new game whenever one ends, and
+     * records the time and the cells expanded by each. Only the decisions
+     * are counted in the allocated bytes, not the new games.
+     *
+     * @return the bytes allocated by the decisions
+     */
+    private static long play(GameEngine engine, AutopilotPolicy autopilot, int decisions,
+            LatencyHistogram times, LatencyHistogram cells) {
+        com.sun.management.ThreadMXBean threads
+                = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytes = 0;
+        for (int i = 0; i < decisions; i++) {
+            if (engine.getStatus() != GameEngine.Status.RUNNING) {
+                engine.reset(GameEngine.MAX_LEVEL, engine.getSeed() + 1);
+            }
+            long allocated = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            Direction direction = autopilot.choose(engine);
+            times.record(System.nanoTime() - start);
+            bytes += threads.getThreadAllocatedBytes(threadId) - allocated;
+            cells.record(autopilot.getExpandedCount());
+            engine.step(direction);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,133 @@
+package SnakeHunt;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * RenderBenchmark compares the frame time of drawing the snake from the
+ * sprite atlas with the former way of drawing it, which computed the head
+ * pentagon and created a random color for every part on every frame. Both
+ * draw into the same offscreen image for snakes of 100, 1,000 and 10,000
+ * parts, the atlas from a frame snapshot of the whole board as the game
+ * does. Run it with "ant bench".
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class RenderBenchmark {
+
+    private static final int[] LENGTHS = {100, 1_000, 10_000}; // Snake lengths to measure
+    private static final int BOARD_WIDTH = 128; // Board large enough for the longest snake
+    private static final int BOARD_HEIGHT = 80;
+    private static final long MIN_RUN_NANOS = 500_000_000L; // Measure each case for at least 500 ms
+
+    /**
+     * Runs every snake length and prints the time per frame.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        BufferedImage image = new BufferedImage(BOARD_WIDTH * Map.UNIT_SIZE, BOARD_HEIGHT * Map.UNIT_SIZE,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        Map map = new Map();
+
+        System.out.printf("%8s %14s %14s %8s%n", "length", "shapes us", "atlas us", "speedup");
+        Camera camera = new Camera(image.getWidth(), image.getHeight()); // Whole board in view
+        for (int length : LENGTHS) {
+            GameEngine engine = growSnake(length);
+            Snake snake = engine.getSnake();
+            FrameSnapshot frame = new FrameSnapshot();
+            frame.capture(engine, camera, image.getWidth(), image.getHeight());
+            double shapes = measure(() -> drawShapes(g2d, snake));
+            double atlas = measure(() -> map.drawSnake(g2d, frame, 1.0));
+            System.out.printf("%8d %14.1f %14.1f %7.1fx%n", length, shapes / 1000, atlas / 1000, shapes / atlas);
+        }
+        g2d.dispose();
+    }
+
+    /**
+     * Builds a game whose snake has the given length along the cycle of
+     * CyclePolicy.
+     */
+    private static GameEngine growSnake(int length) {
+        GameEngine engine = new GameEngine(BOARD_WIDTH, BOARD_HEIGHT, 1);
+        Board board = engine.getBoard();
+        Snake snake = engine.getSnake();
+        while (snake.getLength() < length) {
+            snake.grow();
+            snake.turn(CyclePolicy.directionAt(board, snake.getHead()));
+            snake.move();
+        }
+        return engine;
+    }
+
+    /**
+     * Draws frames until the minimum time has passed, twice, and keeps the
+     * second run so the first one serves as warm-up.
+     *
+     * @return the average time of one frame in nanoseconds
+     */
+    private static double measure(Runnable frame) {
+        double nanos = 0;
+        for (int run = 0; run < 2; run++) {
+            long frames = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                frame.run();
+                frames++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < MIN_RUN_NANOS);
+            nanos = (double) elapsed / frames;
+        }
+        return nanos;
+    }
+
+    /**
+     * Draws the snake the way Snake.draw did before the sprite atlas.
+     */
+    private static void drawShapes(Graphics g, Snake snake) {
+        Board board = snake.getBoard();
+        int unit = Map.UNIT_SIZE;
+        for (int i = 0; i < snake.getLength(); i++) {
+            int x = board.cellX(snake.getSegment(i)) * unit;
+            int y = board.cellY(snake.getSegment(i)) * unit;
+            if (i == 0) {
+                g.setColor(Color.GREEN);
+                int xCenter = x + unit / 2;
+                int yCenter = y + unit / 2;
+                int radius = unit / 2;
+                int[] xPoints = new int[5];
+                int[] yPoints = new int[5];
+                double angleOffset = 0;
+                switch (snake.direction) {
+                    case UP:
+                        angleOffset = -Math.PI / 2;
+                        break;
+                    case DOWN:
+                        angleOffset = Math.PI / 2;
+                        break;
+                    case LEFT:
+                        angleOffset = Math.PI;
+                        break;
+                    case RIGHT:
+                        angleOffset = 0;
+                        break;
+                }
+                for (int j = 0; j < 5; j++) {
+                    double angle = 2 * Math.PI / 5 * j + angleOffset;
+                    xPoints[j] = (int) (xCenter + radius * Math.cos(angle));
+                    yPoints[j] = (int) (yCenter + radius * Math.sin(angle));
+                }
+                g.fillPolygon(xPoints, yPoints, 5);
+            } else {
+                Random random = new Random();
+                g.setColor(new Color(random.nextInt(100), random.nextInt(100) + 155, random.nextInt(100)));
+                g.fillOval(x, y, unit, unit);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package SnakeHunt;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SchedulerJitterBenchmark measures how evenly TickScheduler spaces its ticks.
+ * Each period runs for two seconds on an idle machine and then again with one
+ * busy thread per processor, and prints the mean and maximum deviation of the
+ * tick interval from the period, along with the number of ticks against the
+ * number expected, which shows any drift. Run it with "ant bench".
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class SchedulerJitterBenchmark {
+
+    private static final long[] PERIODS = {10_000_000L, 1_000_000L, 250_000L}; // 10 ms, 1 ms and 250 us
+    private static final long RUN_NANOS = 2_000_000_000L; // Length of each run
+
+    private static volatile boolean loaded; // True while the load threads should keep busy
+
+    /**
+     * Runs every period without and with load and prints the jitter.
+     *
+     * @param args not used
+     * @throws InterruptedException if interrupted while waiting for a run
+     */
+    public static void main(String[] args) throws InterruptedException {
+        System.out.printf("%10s %6s %10s %12s %12s%n", "period us", "load", "ticks", "mean us", "max us");
+        for (long period : PERIODS) {
+            run(period, false);
+            run(period, true);
+        }
+    }
+
+    /**
+     * Runs the scheduler with an empty task for RUN_NANOS and prints its
+     * statistics.
+     */
+    private static void run(long period, boolean load) throws InterruptedException {
+        Thread[] workers = new Thread[load ? Runtime.getRuntime().availableProcessors() : 0];
+        loaded = load;
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(SchedulerJitterBenchmark::spin);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        AtomicLong ticks = new AtomicLong();
+        TickScheduler scheduler = new TickScheduler("jitter benchmark", ticks::incrementAndGet);
+        scheduler.start(period);
+        Thread.sleep(RUN_NANOS / 1_000_000L);
+        scheduler.stop();
+
+        loaded = false;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        System.out.printf("%10.0f %6s %5d/%-5d %12.1f %12.1f%n", period / 1000.0, load ? "yes" : "no",
+                ticks.get(), RUN_NANOS / period, scheduler.getMeanJitterNanos() / 1000.0,
+                scheduler.getMaxJitterNanos() / 1000.0);
+    }
+
+    /**
+     * Keeps a processor busy until the run ends.
+     */
+    private static void spin() {
+        long x = 0;
+        while (loaded) {
+            x = x * 31 + 7;
+        }
+        if (x == 42) {
+            System.out.print(""); // Keeps the loop from being removed
+        }
+    }
+}
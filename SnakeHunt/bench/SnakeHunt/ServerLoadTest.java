@@ -0,0 +1,255 @@
+package SnakeHunt;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ServerLoadTest starts a GameServer on localhost and connects thousands of
+ * clients to it from one selector thread. Every client reads every frame and
+ * answers each tick with a random INPUT, as a player would; a few of them
+ * also keep an ArenaView and check its checksum after each tick, so the test
+ * shows that the deltas rebuild the server state exactly. Run it with
+ * "ant loadtest".
+ *
+ * It prints the clients connected, the ticks played, the bytes received per
+ * tick and client, the time from the server playing a tick to a client
+ * reading it (both in the same process, so they share System.nanoTime()),
+ * the clients the server dropped and the checksum mismatches, which should
+ * be 0. Options are --clients, --snakes, --board, --tick-ms, --seconds and
+ * --verify (the number of clients keeping a view).
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class ServerLoadTest {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Runs the test and prints its results.
+     *
+     * @param args the command-line options
+     * @throws Exception if the server or a client fails
+     */
+    public static void main(String[] args) throws Exception {
+        int clientCount = 2000;
+        int snakes = 1024;
+        int width = 256;
+        int height = 256;
+        long tickMillis = 50;
+        int seconds = 10;
+        int verify = 8;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--clients":
+                    clientCount = Integer.parseInt(value);
+                    break;
+                case "--snakes":
+                    snakes = Integer.parseInt(value);
+                    break;
+                case "--board":
+                    width = Integer.parseInt(value.substring(0, value.indexOf('x')));
+                    height = Integer.parseInt(value.substring(value.indexOf('x') + 1));
+                    break;
+                case "--tick-ms":
+                    tickMillis = Long.parseLong(value);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(value);
+                    break;
+                case "--verify":
+                    verify = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        GameServer server = new GameServer(0, width, height, snakes, snakes, 1, tickMillis * 1_000_000L,
+                ForkJoinPool.commonPool());
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "Snake Hunt server");
+        serverThread.start();
+
+        Selector selector = Selector.open();
+        Client[] clients = new Client[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.connect(new InetSocketAddress("localhost", server.getPort()));
+            clients[i] = new Client(channel, i < verify, new Random(i));
+            channel.register(selector, SelectionKey.OP_CONNECT, clients[i]);
+        }
+
+        LatencyHistogram latency = new LatencyHistogram();
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        long ticksAtStart = -1; // Ticks played once every client had connected
+        long bytesAtStart = 0;
+        long startedAt = 0;
+        int connected = 0;
+        while (System.nanoTime() < end) {
+            selector.select(100);
+            long now = System.nanoTime();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Client client = (Client) key.attachment();
+                try {
+                    if (key.isConnectable() && client.channel.finishConnect()) {
+                        key.interestOps(SelectionKey.OP_READ);
+                        connected++;
+                    } else if (key.isReadable()) {
+                        client.read(now, ticksAtStart >= 0 ? latency : null);
+                    }
+                } catch (IOException e) {
+                    key.cancel();
+                    client.closed = true;
+                }
+            }
+            if (ticksAtStart < 0 && connected == clientCount) {
+                ticksAtStart = server.getTicksPlayed(); // Measure from here on
+                bytesAtStart = received(clients);
+                startedAt = now;
+            }
+        }
+        long ticks = server.getTicksPlayed() - ticksAtStart;
+        long bytes = received(clients) - bytesAtStart;
+        server.stop();
+        serverThread.join();
+
+        int open = 0;
+        long mismatches = 0;
+        long verified = 0;
+        for (Client client : clients) {
+            open += client.closed ? 0 : 1;
+            mismatches += client.mismatches;
+            verified += client.verified;
+            client.channel.close();
+        }
+        selector.close();
+
+        LatencyHistogram tickTimes = server.getTickTimes();
+        System.out.printf("clients %d connected in %.1f s, %d still open, %d snakes on %dx%d%n", connected,
+                (startedAt - start) / 1e9, open, snakes, width, height);
+        System.out.printf("ticks %d at %d ms, %.0f bytes per tick per client, %.1f MB/s sent%n", ticks, tickMillis,
+                ticks > 0 ? (double) bytes / ticks / clientCount : 0, bytes / ((end - startedAt) / 1e9) / 1e6);
+        System.out.printf("server tick and send p50 %.0f us p99 %.0f us%n", tickTimes.getPercentile(50) / 1000.0,
+                tickTimes.getPercentile(99) / 1000.0);
+        System.out.printf("tick to client p50 %.2f ms p99 %.2f ms max %.2f ms%n", latency.getPercentile(50) / 1e6,
+                latency.getPercentile(99) / 1e6, latency.getMax() / 1e6);
+        System.out.printf("inputs %d, dropped %d, checked ticks %d, checksum mismatches %d%n",
+                server.getInputsReceived(), server.getClientsDropped(), verified, mismatches);
+    }
+
+    /**
+     * Sums the bytes received by all clients.
+     */
+    private static long received(Client[] clients) {
+        long bytes = 0;
+        for (Client client : clients) {
+            bytes += client.received;
+        }
+        return bytes;
+    }
+
+    /**
+     * One simulated player.
+     */
+    private static final class Client {
+
+        final SocketChannel channel;
+        final boolean verifying; // True if the client keeps a view
+        final Random random;     // Chooses the inputs
+        ByteBuffer in = ByteBuffer.allocate(16 * 1024); // Bytes read, not yet handled, grown for large frames
+        final ByteBuffer out = ByteBuffer.allocate(16);     // INPUT frame being sent
+        ArenaView view;  // Copy of the arena, for verifying clients
+        int slot = -1;   // Snake of the client
+        long received;   // Bytes read
+        long verified;   // Ticks checked against the server checksum
+        long mismatches; // Ticks whose checksum did not match
+        boolean closed;  // True once the server closed the connection
+
+        Client(SocketChannel channel, boolean verifying, Random random) {
+            this.channel = channel;
+            this.verifying = verifying;
+            this.random = random;
+        }
+
+        /**
+         * Reads what has arrived and handles every complete frame.
+         */
+        void read(long now, LatencyHistogram latency) throws IOException {
+            if (!in.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(in.capacity() * 2); // A STATE frame larger than the buffer
+                in.flip();
+                in = larger.put(in);
+            }
+            int count = channel.read(in);
+            if (count < 0) {
+                throw new IOException("Closed by the server");
+            }
+            received += count;
+            in.flip();
+            while (in.remaining() >= Protocol.HEADER_BYTES
+                    && in.remaining() >= Protocol.HEADER_BYTES + in.getInt(in.position())) {
+                int end = in.position() + Protocol.HEADER_BYTES + in.getInt(in.position());
+                in.position(in.position() + Protocol.HEADER_BYTES);
+                byte type = in.get();
+                if (type == Protocol.WELCOME) {
+                    slot = in.getInt();
+                    int width = in.getInt();
+                    int height = in.getInt();
+                    if (verifying) {
+                        view = new ArenaView(width, height);
+                    }
+                } else if (type == Protocol.STATE) {
+                    if (view != null) {
+                        view.applyState(in);
+                    }
+                } else if (type == Protocol.TICK) {
+                    long serverNanos = in.getLong(in.position() + 4);
+                    if (latency != null) {
+                        latency.record(now - serverNanos);
+                    }
+                    if (view != null) {
+                        verified++;
+                        mismatches += view.applyTick(in) ? 0 : 1;
+                    }
+                    sendInput();
+                }
+                in.position(end);
+            }
+            in.compact();
+        }
+
+        /**
+         * Sends a random direction for the next tick.
+         */
+        void sendInput() throws IOException {
+            if (slot < 0) {
+                return;
+            }
+            out.clear();
+            Protocol.writeInput(out, DIRECTIONS[random.nextInt(DIRECTIONS.length)]);
+            out.flip();
+            channel.write(out); // A few bytes always fit in the socket buffer
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package SnakeHunt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * SnapshotBenchmark measures how long it takes to save and load a level in
+ * progress, from the default board up to a 10,000x10,000 board with a snake
+ * of a million parts, and checks that a loaded level goes on exactly like
+ * the one that was saved: both are stepped side by side along the cycle of
+ * CyclePolicy, eating hunts on the way, and must agree on every tick. It
+ * exits with an error if they do not. Run it with "ant bench".
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class SnapshotBenchmark {
+
+    private static final int[] BOARD_SIZES = {0, 512, 2048, 10_000}; // 0 stands for the default board
+    private static final int MAX_LENGTH = 1_000_000; // Longest snake grown
+    private static final int RUNS = 5;               // Timed saves and loads per board, the best one is kept
+    private static final int CHECKED_TICKS = 100_000; // Ticks compared after loading
+
+    /**
+     * Runs every board size and prints the times.
+     *
+     * @param args not used
+     * @throws IOException if the temporary file cannot be used
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Files.createTempFile("snakehunt", ".shs");
+        boolean failed = false; // True once a loaded level went on differently
+        try {
+            System.out.printf("%14s %10s %10s %10s %10s %10s %10s%n", "board", "length", "bytes", "encode ms",
+                    "write ms", "load ms", "same");
+            for (int size : BOARD_SIZES) {
+                int width = size == 0 ? Main.BOARD_WIDTH : size;
+                int height = size == 0 ? Main.BOARD_HEIGHT : size;
+                GameEngine engine = new GameEngine(width, height, 1);
+                engine.reset(GameEngine.MAX_LEVEL, 7); // Highest win score, so the check eats many hunts
+                grow(engine, Math.min(MAX_LENGTH, width * height / 2));
+
+                long encode = Long.MAX_VALUE;
+                long write = Long.MAX_VALUE;
+                long load = Long.MAX_VALUE;
+                ByteBuffer snapshot = null;
+                GameEngine loaded = null;
+                for (int run = 0; run < RUNS; run++) {
+                    long start = System.nanoTime();
+                    snapshot = Snapshot.encode(engine);
+                    long encoded = System.nanoTime();
+                    Snapshot.write(snapshot, file);
+                    long written = System.nanoTime();
+                    loaded = Snapshot.load(file);
+                    long end = System.nanoTime();
+                    encode = Math.min(encode, encoded - start);
+                    write = Math.min(write, written - encoded);
+                    load = Math.min(load, end - written);
+                }
+                boolean same = sameGame(engine, loaded);
+                failed |= !same;
+                System.out.printf("%14s %10d %10d %10.2f %10.2f %10.2f %10s%n", width + "x" + height,
+                        engine.getSnake().getLength(), snapshot.remaining(), encode / 1e6, write / 1e6, load / 1e6,
+                        same ? "yes" : "NO");
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        if (failed) {
+            System.err.println("A loaded level did not go on like the saved one");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Grows the snake of an engine to the given length along the cycle of
+     * CyclePolicy and places a new hunt off its body. The board height must
+     * be even. The score is set back to 0 so the level is not won at once.
+     */
+    private static void grow(GameEngine engine, int length) {
+        Snake snake = engine.getSnake();
+        Board board = engine.getBoard();
+        while (snake.getLength() < length) {
+            snake.grow();
+            snake.turn(CyclePolicy.directionAt(board, snake.getHead()));
+            snake.move();
+        }
+        snake.huntsEaten = 0;
+        engine.getHunt().newHunt();
+        engine.addElapsedNanos(length * GameEngine.tickNanosFor(engine.getLevel()));
+    }
+
+    /**
+     * Steps two engines side by side and compares them on every tick.
+     *
+     * @return true if they agree until the level ends or CHECKED_TICKS ticks
+     * have passed
+     */
+    private static boolean sameGame(GameEngine a, GameEngine b) {
+        if (a.getTick() != b.getTick() || a.getElapsedNanos() != b.getElapsedNanos()
+                || a.getLevel() != b.getLevel()) {
+            return false;
+        }
+        for (int tick = 0; tick < CHECKED_TICKS && a.getStatus() == GameEngine.Status.RUNNING; tick++) {
+            GameEngine.Status status = a.step(CyclePolicy.directionAt(a.getBoard(), a.getSnake().getHead()));
+            if (b.step(CyclePolicy.directionAt(b.getBoard(), b.getSnake().getHead())) != status
+                    || a.getSnake().getHead() != b.getSnake().getHead()
+                    || a.getSnake().getLength() != b.getSnake().getLength()
+                    || a.getHunt().getCell() != b.getHunt().getCell()
+                    || a.getBoard().getFreeCount() != b.getBoard().getFreeCount()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,123 @@
+package SnakeHunt;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+/**
+ * TextRenderBenchmark compares the time and the memory allocated per frame
+ * for the text of the game before and after the text cache. The HUD is
+ * drawn the former way, with new fonts, string concatenation and
+ * String.format on every frame, and through HudRenderer, while the time
+ * played advances by one display refresh per frame and a hunt is eaten
+ * every thousand frames. The menu is drawn the former way,
+ * from scratch, and through the screen cache of Main. Run it with "ant
+ * bench".
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class TextRenderBenchmark {
+
+    private static final long MIN_RUN_NANOS = 500_000_000L; // Measure each case for at least 500 ms
+    private static final long FRAME_NANOS = 1_000_000_000L / 60; // Time played per frame in the HUD cases
+
+    private static final com.sun.management.ThreadMXBean THREADS
+            = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long frame; // Frames drawn so far, gives the time played in the HUD cases
+
+    /**
+     * Runs every case and prints the time and bytes per frame.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        BufferedImage image = new BufferedImage(Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        Main main = new Main(1);
+        main.setSize(Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT);
+        HudRenderer hud = new HudRenderer(Main.SCREEN_WIDTH, 60, 200, 40, new Font("Ink Free", Font.BOLD, 40),
+                new Font("Ink Free", Font.BOLD, 20));
+        FrameSnapshot menuFrame = main.latestFrame();
+
+        System.out.printf("%-14s %12s %12s%n", "case", "frame us", "bytes/frame");
+        // The cached cases go first: the fonts created on every frame by the former way churn the font caches of Java2D
+        measure("hud cached", () -> hud.draw(g2d, score(), 1, frame * FRAME_NANOS));
+        long hudFrames = frame;
+        measure("menu cached", () -> main.render(g2d, menuFrame, 1.0));
+        measure("hud direct", () -> drawHud(g2d, main, score(), 1, frame * FRAME_NANOS));
+        measure("menu direct", () -> drawMenu(g2d));
+        System.out.printf("hud rasterized %d times in %d frames%n", hud.getRasterCount(), hudFrames);
+        g2d.dispose();
+    }
+
+    /**
+     * Score shown in the HUD cases, a hunt eaten every 1000 frames.
+     */
+    private static int score() {
+        return (int) (frame / 1000 % 100);
+    }
+
+    /**
+     * Draws frames until the minimum time has passed, twice, and prints the
+     * time and bytes of the second run so the first one serves as warm-up.
+     */
+    private static void measure(String name, Runnable draw) {
+        long threadId = Thread.currentThread().getId();
+        for (int run = 0; run < 2; run++) {
+            long frames = 0;
+            long bytes = THREADS.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                draw.run();
+                frame++;
+                frames++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < MIN_RUN_NANOS);
+            bytes = THREADS.getThreadAllocatedBytes(threadId) - bytes;
+            if (run == 1) {
+                System.out.printf("%-14s %12.2f %12.1f%n", name, elapsed / 1e3 / frames, (double) bytes / frames);
+            }
+        }
+    }
+
+    /**
+     * Draws the HUD the way Main did before the text cache.
+     */
+    private static void drawHud(Graphics g, Component component, int score, int level, long elapsedNanos) {
+        g.setColor(Color.WHITE);
+        g.setFont(new Font("Ink Free", Font.BOLD, 40));
+        FontMetrics metrics = component.getFontMetrics(g.getFont());
+        g.drawString("Score: " + score + "  Level: " + level,
+                (Main.SCREEN_WIDTH - metrics.stringWidth("Score: " + score + "  Level: " + level)) / 2,
+                g.getFont().getSize());
+        long elapsedMillis = elapsedNanos / 1_000_000;
+        String timerText = String.format("Time: %02d:%02d", (elapsedMillis / 60000) % 60, (elapsedMillis / 1000) % 60);
+        g.setFont(new Font("Ink Free", Font.BOLD, 20));
+        g.drawString(timerText, 10, 30);
+    }
+
+    /**
+     * Draws the menu the way Main did before the text cache.
+     */
+    private static void drawMenu(Graphics g) {
+        int width = Main.SCREEN_WIDTH;
+        int height = Main.SCREEN_HEIGHT;
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.RED);
+        g.setFont(new Font("Segoe Script", Font.BOLD, 120));
+        g.drawString("Snake Hunt", (width - g.getFontMetrics().stringWidth("Snake Hunt")) / 2, height / 2 - 100);
+        g.setColor(Color.WHITE);
+        g.setFont(new Font("Ink Free", Font.BOLD, 40));
+        g.drawString("Press 1 to Play", (width - g.getFontMetrics().stringWidth("Press 1 to Play")) / 2, height / 2);
+        g.drawString("Press 2 for How to Play",
+                (width - g.getFontMetrics().stringWidth("Press 2 for How to Play")) / 2, height / 2 + 70);
+        g.drawString("Press 3 for About", (width - g.getFontMetrics().stringWidth("Press 3 for About")) / 2,
+                height / 2 + 140);
+        g.drawString("Press 4 to Quit", (width - g.getFontMetrics().stringWidth("Press 4 to Quit")) / 2,
+                height / 2 + 210);
+    }
+}
@@ -0,0 +1,117 @@
+package SnakeHunt;
+
+/**
+ * TickBenchmark measures the cost of one game tick (turn, move and collision
+ * check) and of one occupancy lookup, as used by hunt spawning, for snakes
+ * from a single cell up to a completely full board. The snake follows the
+ * cycle of CyclePolicy, which visits every cell, so it never dies and can be
+ * grown to any length. Run it with "ant bench".
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class TickBenchmark {
+
+    private static final int[][] BOARD_SIZES = {{46, 24}, {128, 128}, {1024, 1024}}; // Game board and larger boards
+    private static final double[] FILL_RATIOS = {0, 0.10, 0.25, 0.50, 0.75, 1.0}; // Snake length relative to the board
+    private static final long MIN_RUN_NANOS = 250_000_000L; // Measure each case for at least 250 ms
+    private static final int BATCH = 1000; // Ticks between two clock reads
+
+    /**
+     * Runs every board size and fill ratio and prints the time per tick.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        System.out.printf("%-10s %8s %8s %12s %12s%n", "board", "fill", "length", "ns/tick", "ns/lookup");
+        for (int[] size : BOARD_SIZES) {
+            for (double fill : FILL_RATIOS) {
+                run(size[0], size[1], fill);
+            }
+        }
+    }
+
+    /**
+     * Measures one board size and snake length.
+     *
+     * @param width the board width in cells
+     * @param height the board height in cells, must be even
+     * @param fill the snake length as a share of the board
+     */
+    private static void run(int width, int height, double fill) {
+        Board board = new Board(width, height);
+        Snake snake = new Snake(board);
+        int length = Math.max(1, (int) (width * height * fill));
+
+        // Grow the snake along the cycle until it has the wanted length
+        while (snake.getLength() < length) {
+            snake.grow();
+            snake.turn(CyclePolicy.directionAt(board, snake.getHead()));
+            snake.move();
+        }
+
+        // Warm up, then measure full ticks
+        tick(snake, MIN_RUN_NANOS);
+        double tickNanos = tick(snake, MIN_RUN_NANOS);
+
+        // Measure the spawn check lookup on its own
+        double lookupNanos = lookup(board, MIN_RUN_NANOS);
+
+        if (!snake.checkCollisions()) {
+            throw new IllegalStateException("Snake left the cycle");
+        }
+        System.out.printf("%-10s %7.0f%% %8d %12.1f %12.1f%n", width + "x" + height, fill * 100,
+                snake.getLength(), tickNanos, lookupNanos);
+    }
+
+    /**
+     * Plays ticks along the cycle for at least the given time.
+     *
+     * @return the average time of one tick in nanoseconds
+     */
+    private static double tick(Snake snake, long minNanos) {
+        Board board = snake.getBoard();
+        long ticks = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < BATCH; i++) {
+                snake.turn(CyclePolicy.directionAt(board, snake.getHead()));
+                snake.move();
+                snake.checkCollisions();
+            }
+            ticks += BATCH;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < minNanos);
+        return (double) elapsed / ticks;
+    }
+
+    /**
+     * Looks up cells in the occupancy bitmap, as a hunt spawn check does, for
+     * at least the given time.
+     *
+     * @return the average time of one lookup in nanoseconds
+     */
+    private static double lookup(Board board, long minNanos) {
+        int cells = board.getWidth() * board.getHeight();
+        long lookups = 0;
+        long taken = 0; // Consumed below so the lookups are not optimized away
+        int cell = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < BATCH; i++) {
+                cell = (cell + 7919) % cells; // Step by a prime to spread lookups over the board
+                if (board.isOccupied(cell)) {
+                    taken++;
+                }
+            }
+            lookups += BATCH;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < minNanos);
+        if (taken > lookups) {
+            throw new IllegalStateException("Unexpected lookup count");
+        }
+        return (double) elapsed / lookups;
+    }
+}
@@ -0,0 +1,205 @@
+package SnakeHunt;
+
+import java.lang.management.ManagementFactory;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * VectorEnvBenchmark checks that VectorEnv plays by the rules of GameEngine
+ * and measures how many game steps per second it runs. The check steps a
+ * VectorEnv of small boards with random actions next to one GameEngine per
+ * game, started with the same episode seeds and given the same directions,
+ * and compares the snake, the hunt, the score, the state, the rewards, the
+ * end flags and every observation float after each step. It exits with an
+ * error at the first difference. The measure then steps thousands of games
+ * with random actions on the calling thread and on a pool of every
+ * processor, and prints the game steps per second and the bytes allocated
+ * per step by all threads. Run it with "ant bench".
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class VectorEnvBenchmark {
+
+    private static final int CHECK_WIDTH = 6;
+    private static final int[] CHECK_HEIGHTS = {2, 4}; // Boards filled before and after the win score of level 3
+    private static final int CHECK_GAMES = 300;
+    private static final int CHECK_STEPS = 5_000;
+    private static final long CHECK_MAX_TICKS = 150; // Reached by some of the games on the larger board
+    private static final int BOARD_SIZE = 16;   // Width and height of the measured boards
+    private static final int GAMES = 4_096;     // Games stepped at once in the measure
+    private static final long MAX_TICKS = 1_000;
+    private static final int ACTION_SETS = 64;  // Random action arrays cycled through in the measure
+    private static final long RUN_NANOS = 1_000_000_000L; // Time measured for each case
+    private static final long SEED = 42;
+
+    private static final com.sun.management.ThreadMXBean THREADS
+            = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Runs the check, then the measure.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        for (int height : CHECK_HEIGHTS) {
+            check(CHECK_WIDTH, height);
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(processors);
+        System.out.printf("%d processors, %d games of %dx%d%n", processors, GAMES, BOARD_SIZE, BOARD_SIZE);
+        System.out.printf("%-10s %14s %14s %14s%n", "case", "steps/s", "episodes/s", "bytes/step");
+        for (int run = 0; run < 2; run++) {
+            measure("serial", null, run == 1); // The first run serves as warm-up
+            measure("pool", pool, run == 1);
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Plays the same games with VectorEnv and GameEngine on a board size and
+     * exits with an error at the first difference. The actions mostly follow
+     * the cycle of CyclePolicy, so that games grow long and win, with a
+     * random one now and then, so that games are lost too.
+     */
+    private static void check(int width, int height) {
+        int level = GameEngine.MAX_LEVEL; // Highest win score, so some boards fill up first
+        ForkJoinPool pool = new ForkJoinPool(2);
+        VectorEnv env = new VectorEnv(CHECK_GAMES, width, height, level, CHECK_MAX_TICKS, pool,
+                FloatBuffer.wrap(new float[CHECK_GAMES * VectorEnv.PLANES * width * height]));
+        env.reset(SEED);
+        GameEngine[] engines = new GameEngine[CHECK_GAMES];
+        for (int game = 0; game < CHECK_GAMES; game++) {
+            engines[game] = new GameEngine(width, height, 0);
+            engines[game].reset(level, env.getEpisodeSeed(game, 0));
+        }
+        Random random = new Random(SEED);
+        int[] actions = new int[CHECK_GAMES];
+        long won = 0;
+        long lost = 0;
+        long truncated = 0;
+        long filled = 0;
+        for (int step = 0; step < CHECK_STEPS; step++) {
+            for (int game = 0; game < CHECK_GAMES; game++) {
+                Snake snake = engines[game].getSnake();
+                Direction cycle = CyclePolicy.directionAt(snake.getBoard(), snake.getHead());
+                actions[game] = random.nextInt(200) == 0 ? random.nextInt(4)
+                        : cycle == snake.direction ? VectorEnv.STRAIGHT : cycle.ordinal();
+            }
+            env.step(actions);
+            for (int game = 0; game < CHECK_GAMES; game++) {
+                GameEngine engine = engines[game];
+                int eaten = engine.getSnake().huntsEaten;
+                float reward = 0f;
+                if (engine.getStatus() != GameEngine.Status.RUNNING || engine.getTick() >= CHECK_MAX_TICKS) {
+                    engine.reset(level, env.getEpisodeSeed(game, env.getEpisodes(game) - 1));
+                } else {
+                    GameEngine.Status status = engine.step(actions[game] == VectorEnv.STRAIGHT
+                            ? null : Direction.values()[actions[game]]);
+                    reward = engine.getSnake().huntsEaten > eaten ? VectorEnv.HUNT_REWARD
+                            : status == GameEngine.Status.LOST ? VectorEnv.LOSS_REWARD : 0f;
+                    won += status == GameEngine.Status.WON ? 1 : 0;
+                    lost += status == GameEngine.Status.LOST ? 1 : 0;
+                    filled += status == GameEngine.Status.WON && !engine.getHunt().isPlaced() ? 1 : 0;
+                    truncated += status == GameEngine.Status.RUNNING && engine.getTick() >= CHECK_MAX_TICKS ? 1 : 0;
+                }
+                String difference = compare(env, game, engine, reward);
+                if (difference != null) {
+                    System.err.println("Game " + game + " differs at step " + step + ": " + difference);
+                    System.exit(1);
+                }
+            }
+        }
+        pool.shutdown();
+        System.out.printf("check %dx%d: %d games x %d steps match GameEngine, %d won (%d full boards), "
+                + "%d lost, %d truncated%n", width, height, CHECK_GAMES, CHECK_STEPS, won, filled, lost, truncated);
+    }
+
+    /**
+     * Compares a game of the environment with its engine.
+     *
+     * @return a description of the first difference, or null if none
+     */
+    private static String compare(VectorEnv env, int game, GameEngine engine, float reward) {
+        Snake snake = engine.getSnake();
+        if (env.getStatus(game) != engine.getStatus()) {
+            return "status " + env.getStatus(game) + " != " + engine.getStatus();
+        }
+        if (env.getTick(game) != engine.getTick() || env.getScore(game) != snake.huntsEaten
+                || env.getLength(game) != snake.getLength() || env.getHunt(game) != engine.getHunt().getCell()) {
+            return "tick, score, length or hunt";
+        }
+        for (int part = 0; part < snake.getLength(); part++) {
+            if (env.getSegment(game, part) != snake.getSegment(part)) {
+                return "body part " + part;
+            }
+        }
+        boolean ended = engine.getStatus() != GameEngine.Status.RUNNING;
+        if (env.getRewards()[game] != reward || env.getTerminated()[game] != ended
+                || env.getTruncated()[game] != (!ended && engine.getTick() >= CHECK_MAX_TICKS)) {
+            return "reward or end flags";
+        }
+        FloatBuffer observations = env.getObservations();
+        int cells = env.getObservationSize() / VectorEnv.PLANES;
+        int base = game * env.getObservationSize();
+        Board board = engine.getBoard();
+        for (int cell = 0; cell < cells; cell++) {
+            if (observations.get(base + VectorEnv.BODY_PLANE * cells + cell) != (board.isOccupied(cell) ? 1f : 0f)
+                    || observations.get(base + VectorEnv.HEAD_PLANE * cells + cell)
+                    != (cell == snake.getHead() ? 1f : 0f)
+                    || observations.get(base + VectorEnv.HUNT_PLANE * cells + cell)
+                    != (cell == engine.getHunt().getCell() ? 1f : 0f)) {
+                return "observation of cell " + cell;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Steps the measured games with random actions for RUN_NANOS and prints
+     * the line of the case if asked.
+     */
+    private static void measure(String name, ForkJoinPool pool, boolean print) {
+        VectorEnv env = new VectorEnv(GAMES, BOARD_SIZE, BOARD_SIZE, GameEngine.MAX_LEVEL, MAX_TICKS, pool);
+        env.reset(SEED);
+        Random random = new Random(SEED);
+        int[][] actions = new int[ACTION_SETS][GAMES];
+        for (int[] set : actions) {
+            for (int game = 0; game < GAMES; game++) {
+                set[game] = random.nextInt(8) == 0 ? random.nextInt(4) : VectorEnv.STRAIGHT;
+            }
+        }
+        long[] threadIds = THREADS.getAllThreadIds();
+        long before = sum(THREADS.getThreadAllocatedBytes(threadIds));
+        long steps = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            env.step(actions[(int) (steps % ACTION_SETS)]);
+            steps++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < RUN_NANOS);
+        long allocated = sum(THREADS.getThreadAllocatedBytes(threadIds)) - before;
+        long episodes = -GAMES; // The episodes started by reset() are not counted
+        for (int game = 0; game < GAMES; game++) {
+            episodes += env.getEpisodes(game);
+        }
+        if (print) {
+            System.out.printf("%-10s %14.0f %14.0f %14.3f%n", name, steps * GAMES / (elapsed / 1e9),
+                    episodes / (elapsed / 1e9), (double) allocated / (steps * GAMES));
+        }
+    }
+
+    /**
+     * Adds up the bytes allocated by the threads that were alive at both
+     * readings.
+     */
+    private static long sum(long[] bytes) {
+        long total = 0;
+        for (long value : bytes) {
+            total += Math.max(0, value);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,97 @@
+package SnakeHunt;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * ViewportBenchmark checks that the cost of a frame depends on the window and
+ * not on the board. For boards from the window size up to 10,000x10,000
+ * cells, it grows a snake of up to 100,000 parts, centers the camera on its
+ * head, captures a frame snapshot and draws whole frames of grid, snake and
+ * hunt from it through the viewport, the way Main does. The time per frame should stay about the same on every
+ * board. Run it with "ant bench".
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class ViewportBenchmark {
+
+    private static final int[] BOARD_SIZES = {0, 1_000, 4_000, 10_000}; // 0 stands for the window size
+    private static final int MAX_LENGTH = 100_000; // Longest snake grown
+    private static final long MIN_RUN_NANOS = 500_000_000L; // Measure each case for at least 500 ms
+
+    /**
+     * Runs every board size and prints the time per frame.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        BufferedImage image = new BufferedImage(Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        System.out.printf("%14s %10s %10s%n", "board", "length", "frame us");
+        for (int size : BOARD_SIZES) {
+            int width = size == 0 ? Main.BOARD_WIDTH : size;
+            int height = size == 0 ? Main.BOARD_HEIGHT : size;
+            GameEngine engine = new GameEngine(width, height, 1);
+            Snake snake = engine.getSnake();
+            grow(snake, Math.min(MAX_LENGTH, width * height / 2));
+            Hunt hunt = engine.getHunt();
+            hunt.newHunt(); // Off the grown body
+            Map map = new Map();
+            map.setBoardSize(width, height);
+            Camera camera = new Camera(Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT);
+            camera.center(engine.getBoard(), snake.getHead());
+            FrameSnapshot frame = new FrameSnapshot();
+            frame.capture(engine, camera, Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT);
+
+            double nanos = measure(() -> {
+                Graphics world = g2d.create();
+                world.translate(-frame.cameraX, -frame.cameraY);
+                world.clipRect(frame.cameraX, frame.cameraY, Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT);
+                map.drawGrid(world);
+                map.drawSnake(world, frame, 1.0);
+                map.drawHunt(world, frame);
+                world.dispose();
+            });
+            System.out.printf("%14s %10d %10.1f%n", width + "x" + height, snake.getLength(), nanos / 1000);
+        }
+        g2d.dispose();
+    }
+
+    /**
+     * Grows a new snake to the given length along the cycle of CyclePolicy.
+     * The board height must be even.
+     */
+    private static void grow(Snake snake, int length) {
+        Board board = snake.getBoard();
+        while (snake.getLength() < length) {
+            snake.grow();
+            snake.turn(CyclePolicy.directionAt(board, snake.getHead()));
+            snake.move();
+        }
+    }
+
+    /**
+     * Draws frames until the minimum time has passed, twice, and keeps the
+     * second run so the first one serves as warm-up.
+     *
+     * @return the average time of one frame in nanoseconds
+     */
+    private static double measure(Runnable frame) {
+        double nanos = 0;
+        for (int run = 0; run < 2; run++) {
+            long frames = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                frame.run();
+                frames++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < MIN_RUN_NANOS);
+            nanos = (double) elapsed / frames;
+        }
+        return nanos;
+    }
+}
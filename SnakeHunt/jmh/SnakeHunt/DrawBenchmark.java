@@ -0,0 +1,97 @@
+package SnakeHunt;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DrawBenchmark measures drawing a full frame of the board and of the snake
+ * into an offscreen image, for the game board and a larger one, with snakes
+ * of 100 and 1,000 parts. The snake is drawn from a frame snapshot of the
+ * whole board, as the game draws it. The JVM runs headless. Run it with "ant jmh".
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DrawBenchmark {
+
+    @Param({"46x24", "128x80"})
+    public String board; // Board size in cells, width x height with an even height
+
+    @Param({"100", "1000"})
+    public int length; // Number of parts of the snake
+
+    private BufferedImage image;
+    private Graphics2D g2d;
+    private Map map;
+    private FrameSnapshot frame; // Snapshot of a game with a snake of the wanted length
+
+    /**
+     * Creates the image, the map and a snapshot of a snake of the wanted
+     * length.
+     */
+    @Setup
+    public void setUp() {
+        int separator = board.indexOf('x');
+        int width = Integer.parseInt(board.substring(0, separator));
+        int height = Integer.parseInt(board.substring(separator + 1));
+        image = new BufferedImage(width * Map.UNIT_SIZE, height * Map.UNIT_SIZE, BufferedImage.TYPE_INT_RGB);
+        g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        map = new Map();
+        map.setBoardSize(width, height);
+        GameEngine engine = new GameEngine(width, height, 1);
+        SnakeBenchmark.growAlongCycle(engine.getSnake(), length);
+        frame = new FrameSnapshot();
+        frame.capture(engine, new Camera(image.getWidth(), image.getHeight()), image.getWidth(), image.getHeight());
+    }
+
+    /**
+     * Releases the graphics of the image.
+     */
+    @TearDown
+    public void tearDown() {
+        g2d.dispose();
+    }
+
+    /**
+     * Draws the grid of the whole board.
+     *
+     * @return the image, consumed by JMH
+     */
+    @Benchmark
+    public BufferedImage drawGrid() {
+        map.drawGrid(g2d);
+        return image;
+    }
+
+    /**
+     * Draws the whole snake.
+     *
+     * @return the image, consumed by JMH
+     */
+    @Benchmark
+    public BufferedImage drawSnake() {
+        map.drawSnake(g2d, frame, 1.0);
+        return image;
+    }
+}
@@ -0,0 +1,64 @@
+package SnakeHunt;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * HuntBenchmark measures placing a new hunt as the snake fills more of the
+ * board, from an empty board to one with a single free cell left. Run it
+ * with "ant jmh".
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HuntBenchmark {
+
+    @Param({"64", "256", "1024"})
+    public int boardSize; // Width and height of the board in cells
+
+    @Param({"0", "0.25", "0.5", "0.9", "0.99", "1"})
+    public double fill; // Snake length as a share of the board, 1 leaves one free cell
+
+    private Hunt hunt;
+
+    /**
+     * Builds a snake covering the wanted share of the board and a hunt
+     * beside it.
+     */
+    @Setup
+    public void setUp() {
+        Board board = new Board(boardSize, boardSize);
+        int cells = boardSize * boardSize;
+        int length = Math.max(1, Math.min(cells - 1, (int) (cells * fill)));
+        Snake snake = SnakeBenchmark.growAlongCycle(board, length);
+        hunt = new Hunt(snake, new Random(42));
+    }
+
+    /**
+     * Places the hunt on a new free cell.
+     *
+     * @return the cell of the hunt, consumed by JMH
+     */
+    @Benchmark
+    public int newHunt() {
+        hunt.newHunt();
+        return hunt.getCell();
+    }
+}
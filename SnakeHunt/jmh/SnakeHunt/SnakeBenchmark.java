@@ -0,0 +1,119 @@
+package SnakeHunt;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SnakeBenchmark measures the snake operations run on every tick: move,
+ * checkCollisions and grow, for square boards of 64, 256 and 1024 cells a
+ * side and snakes of 16, 256 and 2048 parts. The snake follows the cycle of
+ * CyclePolicy, which visits every cell, so it never dies. Run it with
+ * "ant jmh".
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnakeBenchmark {
+
+    @Param({"64", "256", "1024"})
+    public int boardSize; // Width and height of the board in cells
+
+    @Param({"16", "256", "2048"})
+    public int length; // Number of parts of the snake
+
+    private Board board;
+    private Snake snake;
+
+    /**
+     * Builds a snake of the wanted length on an empty board.
+     */
+    @Setup
+    public void setUp() {
+        board = new Board(boardSize, boardSize);
+        snake = growAlongCycle(board, length);
+    }
+
+    /**
+     * Moves the snake one cell along the cycle, dropping its tail.
+     *
+     * @return the new head, consumed by JMH
+     */
+    @Benchmark
+    public int move() {
+        snake.turn(CyclePolicy.directionAt(board, snake.getHead()));
+        snake.move();
+        return snake.getHead();
+    }
+
+    /**
+     * Checks the snake for a collision with a wall or itself.
+     *
+     * @return the result of the check, consumed by JMH
+     */
+    @Benchmark
+    public boolean checkCollisions() {
+        return snake.checkCollisions();
+    }
+
+    /**
+     * Grows the snake by one part and moves it, so the tail is kept and the
+     * body buffer fills up. The snake is rebuilt before it fills the board,
+     * which adds a cost proportional to the board spread over as many moves.
+     *
+     * @return the new length, consumed by JMH
+     */
+    @Benchmark
+    public int grow() {
+        if (snake.getLength() == boardSize * boardSize - 1) {
+            setUp(); // Full board, start over
+        }
+        snake.grow();
+        snake.turn(CyclePolicy.directionAt(board, snake.getHead()));
+        snake.move();
+        return snake.getLength();
+    }
+
+    /**
+     * Builds a snake of the given length along the cycle of CyclePolicy.
+     *
+     * @param board an empty board with an even height
+     * @param length the number of parts, less than the number of cells
+     * @return the snake
+     */
+    static Snake growAlongCycle(Board board, int length) {
+        Snake snake = new Snake(board);
+        growAlongCycle(snake, length);
+        return snake;
+    }
+
+    /**
+     * Grows a new snake to the given length along the cycle of CyclePolicy.
+     *
+     * @param snake a snake of one part on an empty board with an even height
+     * @param length the number of parts, less than the number of cells
+     */
+    static void growAlongCycle(Snake snake, int length) {
+        Board board = snake.getBoard();
+        while (snake.getLength() < length) {
+            snake.grow();
+            snake.turn(CyclePolicy.directionAt(board, snake.getHead()));
+            snake.move();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package SnakeHunt;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ActiveRenderer is a Canvas that draws the game itself from a dedicated
+ * thread instead of waiting for Swing to repaint. It is used when the game
+ * is started with the "--active" argument.
+ *
+ * The game is ticked by its scheduler thread, as in Swing mode, and the
+ * loop only draws the latest frame snapshot the ticks published. Neither
+ * thread takes a lock the other holds, so the frame rate and the tick rate
+ * are independent: a slow frame does not delay a tick and a long tick does
+ * not delay a frame. Frames are drawn through a triple-buffered
+ * BufferStrategy at the refresh rate of the display. Between two ticks the
+ * snake head is drawn partway between its previous and current cell
+ * according to how much of the next tick has elapsed since the snapshot was
+ * published, so movement stays smooth on high refresh rate screens. A frame
+ * whose buffers cannot be drawn, which the strategy signals with an
+ * IllegalStateException while the canvas is resized or taken off screen, is
+ * skipped and the loop goes on with the next one. Only the first of a run of
+ * such frames is reported, with its stack trace. Any other exception is a
+ * bug and ends the loop, so it is not hidden behind a frozen picture.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class ActiveRenderer extends Canvas implements Runnable {
+
+    private static final long serialVersionUID = 1L;
+    private static final int BUFFERS = 3;             // Number of buffers in the strategy
+    private static final int DEFAULT_REFRESH_RATE = 60; // Frames per second when the display rate is unknown
+
+    private final Main game;      // Game drawn from the frame snapshots it publishes
+    private volatile boolean stopped; // Set to end the loop
+    private Thread thread;        // Thread running the loop
+
+    /**
+     * Constructor to create the canvas for the given game.
+     *
+     * @param game the game to draw
+     */
+    public ActiveRenderer(Main game) {
+        this.game = game;
+        setPreferredSize(new Dimension(Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT));
+        setBackground(Color.BLACK);
+        setIgnoreRepaint(true); // All drawing is done by the loop
+        setFocusable(true);
+    }
+
+    /**
+     * Creates the buffer strategy and starts the loop. The canvas must be
+     * displayable, so this is called after the frame has been shown.
+     */
+    public void start() {
+        createBufferStrategy(BUFFERS);
+        thread = new Thread(this, "Snake Hunt render loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Asks the loop to end after the current frame.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Draws one frame per display refresh until stopped. A frame that fails
+     * with anything but an IllegalStateException from the buffers ends the
+     * loop with that exception.
+     */
+    @Override
+    public void run() {
+        BufferStrategy strategy = getBufferStrategy();
+        long frameNanos = 1_000_000_000L / refreshRate();
+        boolean failing = false; // True while frames keep failing to draw
+
+        while (!stopped) {
+            long frameStart = System.nanoTime();
+            FrameSnapshot frame = game.latestFrame();
+            double alpha = frame.tickNanos > 0
+                    ? Math.min(1.0, (double) (frameStart - frame.publishedNanos) / frame.tickNanos) : 1.0;
+
+            try {
+                render(strategy, frame, alpha);
+                failing = false;
+            } catch (IllegalStateException e) { // The buffers are not available for this frame
+                if (!failing) { // Report the first of a run of failed frames, not one per refresh
+                    System.err.println("Could not draw frame " + frame.sequence + ":");
+                    e.printStackTrace();
+                }
+                failing = true;
+            }
+
+            // Wait for the next display refresh
+            long remaining = frameNanos - (System.nanoTime() - frameStart);
+            if (remaining > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+    }
+
+    /**
+     * Draws one frame into the back buffer and shows it, drawing again if
+     * the buffer contents were lost meanwhile.
+     */
+    private void render(BufferStrategy strategy, FrameSnapshot frame, double alpha) {
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    long start = System.nanoTime();
+                    game.render(g, frame, alpha);
+                    game.getMetrics().recordPaint(System.nanoTime() - start);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync(); // Flush the frame on platforms that buffer drawing commands
+        game.frameShown(frame);
+    }
+
+    /**
+     * Reads the refresh rate of the screen showing the canvas.
+     */
+    private int refreshRate() {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        if (config != null) {
+            int rate = config.getDevice().getDisplayMode().getRefreshRate();
+            if (rate != DisplayMode.REFRESH_RATE_UNKNOWN) {
+                return rate;
+            }
+        }
+        return DEFAULT_REFRESH_RATE;
+    }
+}
@@ -0,0 +1,458 @@
+package SnakeHunt;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Arena runs a session with many snakes and many pieces of food on one
+ * board. Like GameEngine it has no dependency on AWT; it is advanced one tick
+ * at a time by step().
+ *
+ * All snakes move at the same time. On each tick:
+ * <ul>
+ * <li>a snake leaving the board dies,</li>
+ * <li>snakes whose heads enter the same cell all die (head to head),</li>
+ * <li>a snake whose head enters a body cell dies (head to body). A tail cell
+ * counts as free, because the tail moves away in the same tick, unless its
+ * snake eats or has a single part,</li>
+ * <li>a surviving snake whose head enters a food cell eats it and keeps its
+ * tail. Food that several heads reach at once is not eaten, since those
+ * snakes die.</li>
+ * </ul>
+ * Dead snakes are removed from the board at the end of the tick and eaten
+ * food is placed again on free cells.
+ *
+ * The board is split into bands of REGION_ROWS rows, and the first three
+ * phases of a tick are split by band into tasks on a fork-join pool, down to
+ * a single band or a few dozen snakes per task: steering and
+ * planning the moves, claiming target cells, and resolving collisions and
+ * food. A task only writes the slots of the snakes whose head is in its band,
+ * counts claims with atomic increments and sets flags that are never
+ * cleared during the phase, so the outcome does not depend on the order of
+ * the tasks or on how the bands are grouped. The last phase, which updates
+ * the board and places food, runs in snake order on a single thread. The
+ * same seed therefore gives the same game whatever the number of threads.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class Arena {
+
+    /**
+     * Number of board rows in each region handled by one task.
+     */
+    public static final int REGION_ROWS = 16;
+
+    private static final int MIN_TASK_SNAKES = 64; // A task with fewer snakes is not split further
+
+    /**
+     * Chooses the direction of a snake for the next tick. It is called from
+     * several threads at once during a tick, so it must only read the arena.
+     */
+    public interface Steering {
+
+        /**
+         * Chooses the direction of a snake.
+         *
+         * @param arena the arena, not to be modified
+         * @param snake the number of the snake
+         * @return the new direction, or null to keep going straight
+         */
+        Direction steer(Arena arena, int snake);
+    }
+
+    private final Board board;       // Occupancy of all snake bodies
+    private final Snake[] snakes;    // All snakes, dead ones included
+    private final boolean[] alive;   // True while the snake is on the board
+    private final int[] targets;     // Cell each head moves to this tick, -1 when off the board
+    private final int[] tails;       // Tail of each snake at the start of the tick
+    private final boolean[] eats;    // True when the target holds food
+    private final boolean[] dies;    // True when the snake dies this tick
+    private final byte[] vacated;    // 1 for tail cells that are left this tick
+    private final AtomicIntegerArray claims; // Number of heads moving into each cell this tick
+    private final int[] foodSlots;   // Position of the food of each cell in foodCells, -1 without food
+    private final int[] foodCells;   // Cells holding food
+    private final int regions;       // Number of bands of REGION_ROWS rows
+    private final int[] regionStart; // First position in regionSnakes of each region, plus an end marker
+    private final int[] regionSnakes; // Living snakes sorted by the region of their head
+    private final Random random;     // Places snakes and food
+    private final ForkJoinPool pool; // Runs the region tasks
+    private final Steering steering; // Chooses the directions
+    private int aliveCount;          // Number of snakes still on the board
+    private int foodCount;           // Number of pieces of food on the board
+    private int spawnedFrom;         // First slot of foodCells filled during the last tick
+    private int tick;                // Number of ticks played
+
+    /**
+     * Constructor to create an arena with snakes of one part and food on
+     * random free cells.
+     *
+     * @param width the board width in cells
+     * @param height the board height in cells
+     * @param snakeCount the number of snakes
+     * @param food the number of pieces of food kept on the board
+     * @param seed the seed for the positions of snakes and food
+     * @param pool the pool running the region tasks
+     * @param steering chooses the directions of the snakes
+     * @throws IllegalArgumentException if the snakes and food do not fit on
+     * the board, or the board has more than Board.FREE_INDEX_LIMIT cells
+     */
+    public Arena(int width, int height, int snakeCount, int food, long seed, ForkJoinPool pool,
+            Steering steering) {
+        if (snakeCount < 0 || food < 0 || (long) snakeCount + food > (long) width * height) {
+            throw new IllegalArgumentException("Too many snakes and food for a " + width + "x" + height + " board");
+        }
+        if ((long) width * height > Board.FREE_INDEX_LIMIT) {
+            throw new IllegalArgumentException("Arena boards need a free cell index: " + width + "x" + height);
+        }
+        board = new Board(width, height);
+        int cells = width * height;
+        snakes = new Snake[snakeCount];
+        alive = new boolean[snakeCount];
+        targets = new int[snakeCount];
+        tails = new int[snakeCount];
+        eats = new boolean[snakeCount];
+        dies = new boolean[snakeCount];
+        vacated = new byte[cells];
+        claims = new AtomicIntegerArray(cells);
+        foodSlots = new int[cells];
+        foodCells = new int[food];
+        regions = (height + REGION_ROWS - 1) / REGION_ROWS;
+        regionStart = new int[regions + 1];
+        regionSnakes = new int[snakeCount];
+        random = new Random(seed);
+        this.pool = pool;
+        this.steering = steering;
+
+        Direction[] directions = Direction.values();
+        for (int i = 0; i < snakeCount; i++) {
+            int cell = board.getFreeCell(random.nextInt(board.getFreeCount()));
+            snakes[i] = new Snake(board, cell, directions[random.nextInt(directions.length)]);
+            alive[i] = true;
+        }
+        aliveCount = snakeCount;
+        Arrays.fill(foodSlots, -1);
+        while (foodCount < food) {
+            placeFood();
+        }
+        sortByRegion();
+    }
+
+    /**
+     * Advances the arena by one tick.
+     *
+     * @return the number of snakes still alive
+     */
+    public int step() {
+        pool.invoke(new TickTask()); // One hand-off to the pool per tick rather than per phase
+        tick++;
+        return aliveCount;
+    }
+
+    /**
+     * Plans the moves of the snakes whose head is in a region: asks the
+     * steering for a direction, computes the target cell, notes whether it
+     * holds food and marks the tail as vacated unless the snake eats. The
+     * tail of a snake of one part is its head, which stays solid so that two
+     * such snakes cannot swap cells.
+     */
+    private void plan(int region) {
+        for (int p = regionStart[region]; p < regionStart[region + 1]; p++) {
+            int i = regionSnakes[p];
+            Snake snake = snakes[i];
+            snake.turn(steering.steer(this, i));
+            int target = snake.nextHead();
+            targets[i] = target;
+            eats[i] = target >= 0 && foodSlots[target] >= 0;
+            tails[i] = snake.getTail();
+            if (!eats[i] && snake.getLength() > 1) {
+                vacated[tails[i]] = 1; // Tails never share a cell, so no two tasks write the same flag
+            }
+        }
+    }
+
+    /**
+     * Counts the heads of a region moving into each cell. Targets may lie in
+     * the next region, so the counts are atomic.
+     */
+    private void claim(int region) {
+        for (int p = regionStart[region]; p < regionStart[region + 1]; p++) {
+            int target = targets[regionSnakes[p]];
+            if (target >= 0) {
+                claims.incrementAndGet(target);
+            }
+        }
+    }
+
+    /**
+     * Decides which snakes of a region die, and whether the survivors eat,
+     * from the planned moves of all snakes.
+     */
+    private void resolve(int region) {
+        for (int p = regionStart[region]; p < regionStart[region + 1]; p++) {
+            int i = regionSnakes[p];
+            int target = targets[i];
+            dies[i] = target < 0 // Off the board
+                    || claims.get(target) > 1 // Head to head
+                    || board.isOccupied(target) && vacated[target] == 0; // Head to body
+            eats[i] &= !dies[i];
+        }
+    }
+
+    /**
+     * Applies the resolved tick to the snakes that were alive at its start,
+     * in the fixed order of regionSnakes: clears the dead snakes and the
+     * tails that moved away, then adds the new heads, so a head may take a
+     * cell freed in the same tick. Finally replaces the eaten food and resets
+     * the per-tick marks.
+     */
+    private void apply() {
+        int moved = regionStart[regions]; // Snakes alive at the start of the tick
+        for (int p = 0; p < moved; p++) {
+            int i = regionSnakes[p];
+            if (dies[i]) {
+                snakes[i].releaseBody();
+                alive[i] = false;
+                aliveCount--;
+            } else if (!eats[i]) {
+                snakes[i].dropTail();
+            }
+        }
+        for (int p = 0; p < moved; p++) {
+            int i = regionSnakes[p];
+            int target = targets[i];
+            if (target >= 0) {
+                claims.set(target, 0);
+            }
+            vacated[tails[i]] = 0;
+            if (alive[i]) {
+                snakes[i].pushHead(target);
+                if (eats[i]) {
+                    snakes[i].huntsEaten++;
+                    removeFood(target);
+                }
+            }
+            dies[i] = false;
+        }
+        int eaten = foodCells.length - foodCount;
+        spawnedFrom = foodCount; // New pieces are appended
+        for (int n = 0; n < eaten && board.getFreeCount() > foodCount; n++) {
+            placeFood();
+        }
+        sortByRegion();
+    }
+
+    /**
+     * Puts a piece of food on a random free cell without food.
+     */
+    private void placeFood() {
+        int cell;
+        do {
+            cell = board.getFreeCell(random.nextInt(board.getFreeCount()));
+        } while (foodSlots[cell] >= 0);
+        foodSlots[cell] = foodCount;
+        foodCells[foodCount++] = cell;
+    }
+
+    /**
+     * Removes the food of a cell by moving the last piece into its slot.
+     */
+    private void removeFood(int cell) {
+        int slot = foodSlots[cell];
+        int last = foodCells[--foodCount];
+        foodCells[slot] = last;
+        foodSlots[last] = slot;
+        foodSlots[cell] = -1;
+    }
+
+    /**
+     * Sorts the living snakes by the region of their head, keeping snake
+     * order within each region.
+     */
+    private void sortByRegion() {
+        Arrays.fill(regionStart, 0);
+        for (int i = 0; i < snakes.length; i++) {
+            if (alive[i]) {
+                regionStart[regionOf(snakes[i].getHead()) + 1]++;
+            }
+        }
+        for (int r = 0; r < regions; r++) {
+            regionStart[r + 1] += regionStart[r];
+        }
+        for (int i = 0; i < snakes.length; i++) {
+            if (alive[i]) {
+                int r = regionOf(snakes[i].getHead());
+                regionSnakes[regionStart[r]++] = i;
+            }
+        }
+        // Each start was moved to the end of its region, shift them back
+        for (int r = regions; r > 0; r--) {
+            regionStart[r] = regionStart[r - 1];
+        }
+        regionStart[0] = 0;
+    }
+
+    /**
+     * Finds the region of a cell.
+     */
+    private int regionOf(int cell) {
+        return board.cellY(cell) / REGION_ROWS;
+    }
+
+    /**
+     * Getter for the board holding all snake bodies.
+     *
+     * @return the board
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Getter for the number of snakes, dead ones included.
+     *
+     * @return the number of snakes
+     */
+    public int getSnakeCount() {
+        return snakes.length;
+    }
+
+    /**
+     * Getter for a snake.
+     *
+     * @param i the number of the snake
+     * @return the snake, left where it died if it is dead
+     */
+    public Snake getSnake(int i) {
+        return snakes[i];
+    }
+
+    /**
+     * Checks if a snake is still on the board.
+     *
+     * @param i the number of the snake
+     * @return true while the snake is alive
+     */
+    public boolean isAlive(int i) {
+        return alive[i];
+    }
+
+    /**
+     * Getter for the number of living snakes.
+     *
+     * @return the number of snakes still on the board
+     */
+    public int getAliveCount() {
+        return aliveCount;
+    }
+
+    /**
+     * Checks if a cell holds food.
+     *
+     * @param cell the cell index
+     * @return true if there is food on the cell
+     */
+    public boolean hasFood(int cell) {
+        return foodSlots[cell] >= 0;
+    }
+
+    /**
+     * Getter for the number of pieces of food on the board.
+     *
+     * @return the number of pieces of food
+     */
+    public int getFoodCount() {
+        return foodCount;
+    }
+
+    /**
+     * Getter for the cell of a piece of food.
+     *
+     * @param i the piece, from 0 to getFoodCount() - 1
+     * @return the cell index
+     */
+    public int getFoodCell(int i) {
+        return foodCells[i];
+    }
+
+    /**
+     * Getter for the first piece of food placed during the last tick. The
+     * pieces from there to getFoodCount() - 1 are new; the others were
+     * already on the board before it.
+     *
+     * @return the position of the first new piece
+     */
+    public int getSpawnedFrom() {
+        return spawnedFrom;
+    }
+
+    /**
+     * Getter for the number of ticks played.
+     *
+     * @return the tick count
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Runs the phases of one tick in order, waiting for each to finish on all
+     * regions before starting the next.
+     */
+    private final class TickTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            new RegionTask(RegionTask.PLAN, 0, regions).invoke();
+            new RegionTask(RegionTask.CLAIM, 0, regions).invoke();
+            new RegionTask(RegionTask.RESOLVE, 0, regions).invoke();
+            apply();
+        }
+    }
+
+    /**
+     * Runs one phase of a tick over a range of regions, splitting the range
+     * in halves until a task holds a single region or few snakes.
+     */
+    private final class RegionTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        static final int PLAN = 0;    // Steer and compute targets
+        static final int CLAIM = 1;   // Count heads per target cell
+        static final int RESOLVE = 2; // Decide deaths and eating
+
+        private final int phase; // Phase to run
+        private final int from;  // First region, inclusive
+        private final int to;    // Last region, exclusive
+
+        RegionTask(int phase, int from, int to) {
+            this.phase = phase;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && regionStart[to] - regionStart[from] > MIN_TASK_SNAKES) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RegionTask(phase, from, middle), new RegionTask(phase, middle, to));
+                return;
+            }
+            for (int region = from; region < to; region++) {
+                if (phase == PLAN) {
+                    plan(region);
+                } else if (phase == CLAIM) {
+                    claim(region);
+                } else {
+                    resolve(region);
+                }
+            }
+        }
+    }
+}
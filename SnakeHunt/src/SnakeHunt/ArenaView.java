@@ -0,0 +1,234 @@
+package SnakeHunt;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * ArenaView is the copy of a server arena kept by a client. It is built from
+ * STATE frames and brought forward by TICK frames, following the same rules
+ * as Arena: a snake that moves onto food eats it and keeps its tail, any
+ * other moving snake loses its tail, and a dead snake leaves the board. It
+ * does not check collisions; the server has already decided who died.
+ *
+ * After each tick the checksum of the view is compared with the one sent by
+ * the server, so a client knows that its copy is exact.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class ArenaView {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final Board board;     // Occupancy of all snake bodies
+    private final boolean[] food;  // True for the cells holding food
+    private Snake[] snakes = new Snake[0]; // All snakes, null once dead
+    private int[] targets = new int[0];    // Cell each snake moves to during a tick, -1 if it does not
+    private long foodHash;         // Sum of the hashes of the food cells
+    private int round;             // Round of the last STATE frame
+    private int tick;              // Tick of the last frame applied
+    private long serverNanos;      // Server time of the last TICK frame
+    private boolean inSync = true; // False once a checksum did not match
+
+    /**
+     * Constructor to create an empty view of an arena of the given size.
+     *
+     * @param width the board width in cells
+     * @param height the board height in cells
+     */
+    public ArenaView(int width, int height) {
+        board = new Board(width, height);
+        food = new boolean[width * height];
+    }
+
+    /**
+     * Replaces the view with the arena of a STATE frame.
+     *
+     * @param frame the frame, positioned after its type byte
+     */
+    public void applyState(ByteBuffer frame) {
+        board.clear();
+        Arrays.fill(food, false);
+        foodHash = 0;
+        round = frame.getInt();
+        tick = frame.getInt();
+        int count = frame.getInt();
+        snakes = new Snake[count];
+        targets = new int[count];
+        for (int i = 0; i < count; i++) {
+            Direction direction = DIRECTIONS[frame.get()];
+            int length = frame.getInt();
+            if (length > 0) {
+                int[] cells = new int[length];
+                for (int s = 0; s < length; s++) {
+                    cells[s] = frame.getInt();
+                }
+                snakes[i] = new Snake(board, cells[length - 1], direction); // Built from the tail up
+                for (int s = length - 2; s >= 0; s--) {
+                    snakes[i].pushHead(cells[s]);
+                }
+            }
+        }
+        int foodCount = frame.getInt();
+        for (int i = 0; i < foodCount; i++) {
+            addFood(frame.getInt());
+        }
+        inSync = true;
+    }
+
+    /**
+     * Applies a TICK frame to the view and compares the checksums.
+     *
+     * @param frame the frame, positioned after its type byte
+     * @return true if the view matches the server after the tick
+     */
+    public boolean applyTick(ByteBuffer frame) {
+        tick = frame.getInt();
+        serverNanos = frame.getLong();
+        int aliveBefore = frame.getInt();
+        int codesStart = frame.position();
+        frame.position(codesStart + (aliveBefore + 1) / 2);
+
+        // Drop the tails and dead bodies first, then add the heads, like Arena
+        int n = 0;
+        for (int i = 0; i < snakes.length; i++) {
+            targets[i] = -1;
+            if (snakes[i] != null) {
+                int code = codeAt(frame, codesStart, n++);
+                if (code == Protocol.DIED) {
+                    snakes[i].releaseBody();
+                    snakes[i] = null;
+                } else {
+                    snakes[i].direction = DIRECTIONS[code];
+                    targets[i] = board.cellOf(board.cellX(snakes[i].getHead()) + snakes[i].direction.getDx(),
+                            board.cellY(snakes[i].getHead()) + snakes[i].direction.getDy());
+                    if (!food[targets[i]]) {
+                        snakes[i].dropTail();
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < snakes.length; i++) {
+            int target = targets[i];
+            if (target >= 0) {
+                snakes[i].pushHead(target);
+                if (food[target]) {
+                    food[target] = false; // Eaten
+                    foodHash -= Protocol.hashFood(target);
+                }
+            }
+        }
+        int spawned = frame.getInt();
+        for (int i = 0; i < spawned; i++) {
+            addFood(frame.getInt());
+        }
+        inSync = frame.getLong() == checksum();
+        return inSync;
+    }
+
+    /**
+     * Reads the code of the n-th snake alive before a tick.
+     */
+    private static int codeAt(ByteBuffer frame, int start, int n) {
+        int b = frame.get(start + n / 2);
+        return (n & 1) == 0 ? b & 0x0F : (b >> 4) & 0x0F;
+    }
+
+    /**
+     * Puts a piece of food on a cell.
+     */
+    private void addFood(int cell) {
+        food[cell] = true;
+        foodHash += Protocol.hashFood(cell);
+    }
+
+    /**
+     * Computes the checksum of the view the same way Protocol.checksum() does
+     * for the server arena. Dead snakes count the same whatever their last
+     * position.
+     *
+     * @return the checksum
+     */
+    public long checksum() {
+        long hash = 0;
+        for (Snake snake : snakes) {
+            hash = snake != null ? Protocol.hashSnake(hash, true, snake.getHead(), snake.getLength())
+                    : Protocol.hashSnake(hash, false, 0, 0);
+        }
+        return hash + foodHash;
+    }
+
+    /**
+     * Getter for the board with all snake bodies.
+     *
+     * @return the board
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Getter for a snake.
+     *
+     * @param i the number of the snake
+     * @return the snake, or null if it is dead
+     */
+    public Snake getSnake(int i) {
+        return snakes[i];
+    }
+
+    /**
+     * Getter for the number of snakes, dead ones included.
+     *
+     * @return the number of snakes
+     */
+    public int getSnakeCount() {
+        return snakes.length;
+    }
+
+    /**
+     * Checks if a cell holds food.
+     *
+     * @param cell the cell index
+     * @return true if there is food on the cell
+     */
+    public boolean hasFood(int cell) {
+        return food[cell];
+    }
+
+    /**
+     * Getter for the round of the last STATE frame.
+     *
+     * @return the round
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * Getter for the tick of the last frame applied.
+     *
+     * @return the tick
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Getter for the server time of the last TICK frame.
+     *
+     * @return the time from System.nanoTime() on the server
+     */
+    public long getServerNanos() {
+        return serverNanos;
+    }
+
+    /**
+     * Checks if the last checksum matched.
+     *
+     * @return true if the view is known to match the server
+     */
+    public boolean isInSync() {
+        return inSync;
+    }
+}
@@ -0,0 +1,296 @@
+package SnakeHunt;
+
+import java.util.Arrays;
+
+/**
+ * AutopilotPolicy steers the snake along a shortest path to the hunt, found
+ * with an A* search around the body, and checks with a flood fill that the
+ * cell it moves into leaves enough room for the snake. When no safe path
+ * exists it moves to the free neighbour with the most room around it. It
+ * plays the game on its own in demo mode and is the baseline policy of the
+ * batch runner.
+ *
+ * All working arrays are kept between calls and only reallocated when the
+ * board size changes, so choosing a move allocates nothing. Cells are marked
+ * as seen with a stamp that increases with every search instead of clearing
+ * the arrays, and the open set is a binary heap over primitive arrays. The
+ * flood fill stops once it has counted enough cells, so its cost depends on
+ * the length of the snake rather than on the size of the board.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class AutopilotPolicy implements Policy {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int SPACE_FACTOR = 2; // Room compared by the fallback, in snake lengths
+
+    private int width;       // Width of the board the arrays were made for
+    private int height;      // Height of the board the arrays were made for
+    private int[] seen;      // Stamp of the search that reached each cell
+    private int[] closed;    // Stamp of the search that expanded each cell
+    private int[] cost;      // Steps from the head to each reached cell
+    private byte[] first;    // Ordinal of the first move on the path to each reached cell
+    private long[] heapKeys; // Open set, ordered by estimated length then by most steps taken
+    private int[] heapCells; // Cell of each open set entry
+    private int heapSize;    // Number of entries in the open set
+    private int[] queue;     // Cells waiting in the flood fill
+    private int stamp;       // Stamp of the current search or fill
+    private int expanded;    // Cells expanded by the last search
+
+    @Override
+    public Direction choose(GameEngine engine) {
+        Board board = engine.getBoard();
+        Snake snake = engine.getSnake();
+        Hunt hunt = engine.getHunt();
+        prepare(board);
+
+        Direction back = snake.direction.opposite(); // The snake cannot reverse, even at length 1
+        if (hunt.isPlaced()) {
+            Direction path = search(board, snake.getHead(), hunt.getCell(), back);
+            if (path != null && hasRoom(board, snake, path, snake.getLength())) {
+                return path;
+            }
+        }
+
+        // No safe path, so head for the largest room
+        Direction best = null;
+        int bestRoom = -1;
+        int limit = SPACE_FACTOR * snake.getLength();
+        for (Direction direction : DIRECTIONS) {
+            if (direction != back && Policy.isSafe(engine, direction)) {
+                int room = room(board, snake, direction, limit);
+                if (room > bestRoom || (room == bestRoom && direction == snake.direction)) {
+                    best = direction;
+                    bestRoom = room;
+                }
+            }
+        }
+        return best; // Null when trapped, every move loses
+    }
+
+    /**
+     * Getter for the number of cells expanded by the last path search, which
+     * shows how much of the board it had to look at.
+     *
+     * @return the number of cells
+     */
+    public int getExpandedCount() {
+        return expanded;
+    }
+
+    /**
+     * Makes the working arrays fit the board.
+     */
+    private void prepare(Board board) {
+        if (board.getWidth() == width && board.getHeight() == height) {
+            return;
+        }
+        width = board.getWidth();
+        height = board.getHeight();
+        int cells = width * height;
+        seen = new int[cells];
+        closed = new int[cells];
+        cost = new int[cells];
+        first = new byte[cells];
+        heapKeys = new long[cells];
+        heapCells = new int[cells];
+        queue = new int[cells];
+        stamp = 0;
+    }
+
+    /**
+     * Starts a new search or fill, clearing the stamps when they wrap around.
+     */
+    private int nextStamp() {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            stamp = 1;
+        }
+        return stamp;
+    }
+
+    /**
+     * Finds the first move of a shortest path from the head to the target
+     * with A*, using the Manhattan distance as the estimate. Ties go to the
+     * cell with the most steps taken, so on an open board the search heads
+     * straight for the target instead of widening.
+     *
+     * @return the first move, or null if the target cannot be reached
+     */
+    private Direction search(Board board, int head, int target, Direction back) {
+        int current = nextStamp();
+        int targetX = target % width;
+        int targetY = target / width;
+        heapSize = 0;
+        expanded = 0;
+        int headX = head % width;
+        int headY = head / width;
+        for (Direction direction : DIRECTIONS) {
+            int x = headX + direction.getDx();
+            int y = headY + direction.getDy();
+            if (direction != back && board.contains(x, y)) {
+                open(board, y * width + x, 1, direction.ordinal(), targetX, targetY, current);
+            }
+        }
+        while (heapSize > 0) {
+            int cell = pop();
+            if (closed[cell] == current) {
+                continue; // Reached again later by a shorter path
+            }
+            closed[cell] = current;
+            expanded++;
+            if (cell == target) {
+                return DIRECTIONS[first[cell]];
+            }
+            int x = cell % width;
+            int y = cell / width;
+            int steps = cost[cell] + 1;
+            if (x > 0) {
+                open(board, cell - 1, steps, first[cell], targetX, targetY, current);
+            }
+            if (x < width - 1) {
+                open(board, cell + 1, steps, first[cell], targetX, targetY, current);
+            }
+            if (y > 0) {
+                open(board, cell - width, steps, first[cell], targetX, targetY, current);
+            }
+            if (y < height - 1) {
+                open(board, cell + width, steps, first[cell], targetX, targetY, current);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a free cell to the open set unless it was already reached in as
+     * few steps.
+     */
+    private void open(Board board, int cell, int steps, int move, int targetX, int targetY, int current) {
+        if (board.isOccupied(cell) || (seen[cell] == current && cost[cell] <= steps)) {
+            return;
+        }
+        seen[cell] = current;
+        cost[cell] = steps;
+        first[cell] = (byte) move;
+        int estimate = steps + Math.abs(cell % width - targetX) + Math.abs(cell / width - targetY);
+        push(((long) estimate << 32) | (Integer.MAX_VALUE - steps), cell);
+    }
+
+    /**
+     * Adds an entry to the open set heap.
+     */
+    private void push(long key, int cell) {
+        if (heapSize == heapKeys.length) {
+            heapKeys = Arrays.copyOf(heapKeys, heapSize * 2); // Only when cells are reached many times
+            heapCells = Arrays.copyOf(heapCells, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapKeys[parent] <= key) {
+                break;
+            }
+            heapKeys[i] = heapKeys[parent];
+            heapCells[i] = heapCells[parent];
+            i = parent;
+        }
+        heapKeys[i] = key;
+        heapCells[i] = cell;
+    }
+
+    /**
+     * Removes the entry with the smallest key from the open set heap.
+     *
+     * @return the cell of the entry
+     */
+    private int pop() {
+        int top = heapCells[0];
+        long key = heapKeys[--heapSize];
+        int cell = heapCells[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (heapKeys[child] >= key) {
+                break;
+            }
+            heapKeys[i] = heapKeys[child];
+            heapCells[i] = heapCells[child];
+            i = child;
+        }
+        heapKeys[i] = key;
+        heapCells[i] = cell;
+        return top;
+    }
+
+    /**
+     * Checks if moving in a direction leaves at least the given number of
+     * free cells reachable from the new head.
+     */
+    private boolean hasRoom(Board board, Snake snake, Direction direction, int needed) {
+        return room(board, snake, direction, needed) >= needed;
+    }
+
+    /**
+     * Counts the free cells reachable from the cell next to the head in a
+     * direction, with that cell taken by the head, stopping at a limit. The
+     * cell must be on the board.
+     *
+     * @return the number of cells, at most the limit
+     */
+    private int room(Board board, Snake snake, Direction direction, int limit) {
+        int current = nextStamp();
+        int start = snake.getHead() + direction.getDx() + direction.getDy() * width;
+        seen[start] = current; // Taken by the new head
+        int read = 0;
+        int write = enqueue(board, start, start % width, start / width, 0, current);
+        int count = 0;
+        while (read < write && count < limit) {
+            int cell = queue[read++];
+            count++;
+            write = enqueue(board, cell, cell % width, cell / width, write, current);
+        }
+        return count;
+    }
+
+    /**
+     * Adds the unseen free neighbours of a cell to the flood fill queue.
+     *
+     * @return the new end of the queue
+     */
+    private int enqueue(Board board, int cell, int x, int y, int write, int current) {
+        if (x > 0 && visit(board, cell - 1, current)) {
+            queue[write++] = cell - 1;
+        }
+        if (x < width - 1 && visit(board, cell + 1, current)) {
+            queue[write++] = cell + 1;
+        }
+        if (y > 0 && visit(board, cell - width, current)) {
+            queue[write++] = cell - width;
+        }
+        if (y < height - 1 && visit(board, cell + width, current)) {
+            queue[write++] = cell + width;
+        }
+        return write;
+    }
+
+    /**
+     * Marks a free cell as seen by the current fill.
+     *
+     * @return true if the cell is free and was not seen yet
+     */
+    private boolean visit(Board board, int cell, int current) {
+        if (seen[cell] == current || board.isOccupied(cell)) {
+            return false;
+        }
+        seen[cell] = current;
+        return true;
+    }
+}
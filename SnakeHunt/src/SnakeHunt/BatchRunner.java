@@ -0,0 +1,261 @@
+package SnakeHunt;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * BatchRunner plays many headless games with a policy in place of the player
+ * and reports how they ended, to help tune the win scores, speeds and board
+ * sizes. Run it from the command line:
+ *
+ * <pre>
+ * java -cp SnakeHunt.jar SnakeHunt.BatchRunner --games 1000000 --policy greedy
+ * </pre>
+ *
+ * Options are --games, --threads, --policy (random, greedy, cycle, autopilot
+ * or expectimax), --level, --board (width x height, such as 46x24), --seed,
+ * --max-ticks, and for the expectimax search --budget-us, the time it may
+ * take per move, 1000 by default, and --budget-nodes, the decision nodes it
+ * may search per move. With --budget-nodes alone there is no time limit.
+ *
+ * The games are split into ranges on a work-stealing fork-join pool. Each
+ * range plays its games with its own engine, policy and statistics, and the
+ * statistics are merged as the ranges complete. Game number n is always
+ * played with the seed derived from the base seed and n, and the ranges do
+ * not depend on the number of threads, so neither do the results. The one
+ * exception is an expectimax search bounded by time: how deep it gets
+ * depends on the speed of the machine and its load, so such batches differ
+ * from run to run. Bounded by nodes only, it gives the same results on every
+ * run, since each range also has its own transposition table.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class BatchRunner {
+
+    private static final int GAMES_PER_TASK = 1024; // Ranges with fewer games are not split further
+    private static final int EXPECTIMAX_TABLE_BITS = 20; // 2^20 buckets, 32 MB for the expectimax policy of each range
+
+    private final int width;      // Board width in cells
+    private final int height;     // Board height in cells
+    private final int level;      // Level played
+    private final long seed;      // Base seed of the games
+    private final long maxTicks;  // Ticks after which a game is stopped
+    private final Supplier<Policy> policies; // Creates a policy for each task
+
+    /**
+     * Constructor to create a runner for a board size, level and policy.
+     *
+     * @param width the board width in cells
+     * @param height the board height in cells
+     * @param level the level to play, from 1 to GameEngine.MAX_LEVEL
+     * @param seed the base seed of the games
+     * @param maxTicks the number of ticks after which a game is stopped
+     * @param policies creates a policy for each task
+     */
+    public BatchRunner(int width, int height, int level, long seed, long maxTicks, Supplier<Policy> policies) {
+        this.width = width;
+        this.height = height;
+        this.level = level;
+        this.seed = seed;
+        this.maxTicks = maxTicks;
+        this.policies = policies;
+    }
+
+    /**
+     * Plays a number of games on a pool.
+     *
+     * @param games the number of games
+     * @param pool the pool playing the games
+     * @return the merged statistics of all games
+     */
+    public BatchStats run(long games, ForkJoinPool pool) {
+        return pool.invoke(new GamesTask(0, games));
+    }
+
+    /**
+     * Plays the games of a range with one engine and policy.
+     */
+    private BatchStats play(long from, long to) {
+        BatchStats stats = new BatchStats();
+        GameEngine engine = new GameEngine(width, height, seed);
+        Policy policy = policies.get();
+        for (long game = from; game < to; game++) {
+            long gameSeed = mix(seed + game);
+            policy.reset(~gameSeed);
+            engine.reset(level, gameSeed);
+            while (engine.getStatus() == GameEngine.Status.RUNNING && engine.getTick() < maxTicks) {
+                int eaten = engine.getSnake().huntsEaten;
+                engine.step(policy.choose(engine));
+                if (engine.getSnake().huntsEaten != eaten) {
+                    stats.recordSpawn(engine.getHunt().getSpawnAttempts());
+                }
+            }
+            stats.recordGame(engine, engine.getStatus() == GameEngine.Status.RUNNING);
+        }
+        if (policy instanceof ExpectimaxPolicy) {
+            ExpectimaxPolicy search = (ExpectimaxPolicy) policy;
+            stats.recordSearch(search.getNodeCount(), search.getSearchNanos(), search.getProbeCount(),
+                    search.getHitCount());
+        }
+        return stats;
+    }
+
+    /**
+     * Spreads consecutive numbers over the whole range of seeds.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Plays a range of games, splitting it in halves until it is small.
+     */
+    private final class GamesTask extends RecursiveTask<BatchStats> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long from; // First game, inclusive
+        private final long to;   // Last game, exclusive
+
+        GamesTask(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected BatchStats compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                return play(from, to);
+            }
+            long middle = (from + to) >>> 1;
+            GamesTask right = new GamesTask(middle, to);
+            right.fork();
+            BatchStats left = new GamesTask(from, middle).compute();
+            return left.merge(right.join());
+        }
+    }
+
+    /**
+     * Parses the options, plays the games and prints the report with the
+     * number of games per second.
+     *
+     * @param args the command-line options
+     */
+    public static void main(String[] args) {
+        long games = 100_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String policyName = "greedy";
+        int level = 1;
+        int width = Main.BOARD_WIDTH;
+        int height = Main.BOARD_HEIGHT;
+        long seed = 1;
+        long maxTicks = -1; // Default depends on the board size
+        long budgetNanos = -1; // Time per move of the expectimax policy, default depends on the node budget
+        long budgetNodes = 0;  // Decision nodes per move of the expectimax policy, 0 for no limit
+        Supplier<Policy> policies;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value for " + option);
+                }
+                String value = args[++i];
+                switch (option) {
+                    case "--games":
+                        games = Long.parseLong(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--policy":
+                        policyName = value;
+                        break;
+                    case "--level":
+                        level = Integer.parseInt(value);
+                        break;
+                    case "--board":
+                        int separator = value.indexOf('x');
+                        width = Integer.parseInt(value.substring(0, separator));
+                        height = Integer.parseInt(value.substring(separator + 1));
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--max-ticks":
+                        maxTicks = Long.parseLong(value);
+                        break;
+                    case "--budget-us":
+                        budgetNanos = Long.parseLong(value) * 1000;
+                        break;
+                    case "--budget-nodes":
+                        budgetNodes = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + option);
+                }
+            }
+            if (games < 1 || threads < 1) {
+                throw new IllegalArgumentException("Games and threads must be positive");
+            }
+            new GameEngine(width, height).reset(level); // Checks the board size and level
+            if (budgetNanos < 0) {
+                budgetNanos = budgetNodes > 0 ? 0 : 1_000_000; // A node budget alone keeps the games reproducible
+            }
+            switch (policyName) {
+                case "random":
+                    policies = RandomPolicy::new;
+                    break;
+                case "greedy":
+                    policies = GreedyPolicy::new;
+                    break;
+                case "autopilot":
+                    policies = AutopilotPolicy::new;
+                    break;
+                case "expectimax":
+                    long nanos = budgetNanos;
+                    long nodes = budgetNodes;
+                    new ExpectimaxPolicy(null, nanos, nodes); // Checks the budgets
+                    policies = () -> new ExpectimaxPolicy(new TranspositionTable(EXPECTIMAX_TABLE_BITS), nanos, nodes);
+                    break;
+                case "cycle":
+                    if (height % 2 != 0) {
+                        throw new IllegalArgumentException("The cycle policy needs an even board height");
+                    }
+                    policies = CyclePolicy::new;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown policy " + policyName);
+            }
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: BatchRunner [--games N] [--threads N]"
+                    + " [--policy random|greedy|cycle|autopilot|expectimax] [--level N] [--board WxH] [--seed N]"
+                    + " [--max-ticks N] [--budget-us N] [--budget-nodes N]");
+            System.err.println("An expectimax batch with --budget-us is not reproducible, use --budget-nodes alone"
+                    + " for the same results on every run");
+            System.exit(2);
+            return;
+        }
+        if (maxTicks < 0) {
+            maxTicks = 4L * width * height * GameEngine.WIN_SCORES[level - 1]; // Enough for the cycle policy
+        }
+
+        System.out.printf("Playing %d games of level %d on a %dx%d board with the %s policy on %d threads%n",
+                games, level, width, height, policyName, threads);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        BatchStats stats = new BatchRunner(width, height, level, seed, maxTicks, policies).run(games, pool);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        stats.print(System.out);
+        System.out.printf("elapsed        %.2f s%n", seconds);
+        System.out.printf("games/s        %.0f%n", stats.getGames() / seconds);
+        System.out.printf("ticks/s        %.0f%n", stats.getTicks() / seconds);
+    }
+}
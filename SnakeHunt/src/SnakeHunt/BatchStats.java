@@ -0,0 +1,158 @@
+package SnakeHunt;
+
+import java.io.PrintStream;
+
+/**
+ * BatchStats accumulates the outcome of the games played by the batch
+ * runner. Every task of the runner fills its own instance without any
+ * sharing, and the instances are merged when the tasks complete.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class BatchStats {
+
+    private long games;       // Number of games played
+    private long wins;        // Games won
+    private long wallDeaths;  // Games lost against a wall
+    private long selfDeaths;  // Games lost against the snake's own body
+    private long timeouts;    // Games stopped at the tick limit
+    private long ticks;       // Ticks played over all games
+    private long huntsEaten;  // Hunts eaten over all games
+    private long searchNodes; // Decision nodes searched by lookahead policies
+    private long searchNanos; // Time those policies spent searching, summed over the threads
+    private long probes;      // Lookups of those policies in their transposition tables
+    private long hits;        // Lookups that found a deep enough result
+
+    private final LatencyHistogram winTicks = new LatencyHistogram();      // Ticks taken by each won game
+    private final LatencyHistogram lengths = new LatencyHistogram();       // Snake length at the end of each game
+    private final LatencyHistogram spawnAttempts = new LatencyHistogram(); // Draws taken by each hunt placement
+
+    /**
+     * Records the end of a game.
+     *
+     * @param engine the finished game
+     * @param timedOut true if the game was stopped at the tick limit
+     */
+    public void recordGame(GameEngine engine, boolean timedOut) {
+        Snake snake = engine.getSnake();
+        games++;
+        ticks += engine.getTick();
+        huntsEaten += snake.huntsEaten;
+        lengths.record(snake.getLength());
+        if (timedOut) {
+            timeouts++;
+        } else if (engine.getStatus() == GameEngine.Status.WON) {
+            wins++;
+            winTicks.record(engine.getTick());
+        } else if (snake.hasHitWall()) {
+            wallDeaths++;
+        } else {
+            selfDeaths++;
+        }
+    }
+
+    /**
+     * Records the placement of a hunt.
+     *
+     * @param attempts the number of draws taken
+     */
+    public void recordSpawn(int attempts) {
+        spawnAttempts.record(attempts);
+    }
+
+    /**
+     * Records the totals of a policy that searches ahead, such as
+     * ExpectimaxPolicy, over the games it played.
+     *
+     * @param nodes the decision nodes searched
+     * @param nanos the time spent searching
+     * @param probes the lookups in the transposition table
+     * @param hits the lookups that found a deep enough result
+     */
+    public void recordSearch(long nodes, long nanos, long probes, long hits) {
+        searchNodes += nodes;
+        searchNanos += nanos;
+        this.probes += probes;
+        this.hits += hits;
+    }
+
+    /**
+     * Adds the statistics of another batch to this one.
+     *
+     * @param other the statistics to add
+     * @return this object
+     */
+    public BatchStats merge(BatchStats other) {
+        games += other.games;
+        wins += other.wins;
+        wallDeaths += other.wallDeaths;
+        selfDeaths += other.selfDeaths;
+        timeouts += other.timeouts;
+        ticks += other.ticks;
+        huntsEaten += other.huntsEaten;
+        searchNodes += other.searchNodes;
+        searchNanos += other.searchNanos;
+        probes += other.probes;
+        hits += other.hits;
+        winTicks.add(other.winTicks);
+        lengths.add(other.lengths);
+        spawnAttempts.add(other.spawnAttempts);
+        return this;
+    }
+
+    /**
+     * Getter for the number of games played.
+     *
+     * @return the number of games
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Getter for the number of ticks played over all games.
+     *
+     * @return the number of ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Prints the statistics as a report.
+     *
+     * @param out where to print
+     */
+    public void print(PrintStream out) {
+        out.printf("games          %d%n", games);
+        out.printf("won            %d (%.2f%%)%n", wins, percent(wins));
+        out.printf("lost, wall     %d (%.2f%%)%n", wallDeaths, percent(wallDeaths));
+        out.printf("lost, self     %d (%.2f%%)%n", selfDeaths, percent(selfDeaths));
+        out.printf("timed out      %d (%.2f%%)%n", timeouts, percent(timeouts));
+        out.printf("hunts per game %.2f%n", games == 0 ? 0 : (double) huntsEaten / games);
+        out.printf("ticks per game %.1f%n", games == 0 ? 0 : (double) ticks / games);
+        printHistogram(out, "ticks to win", winTicks);
+        printHistogram(out, "final length", lengths);
+        printHistogram(out, "spawn draws", spawnAttempts);
+        if (searchNanos > 0) { // Only policies that search ahead record these
+            out.printf("nodes/s/thread %.0f%n", searchNodes / (searchNanos / 1e9));
+            out.printf("table hits     %d of %d (%.2f%%)%n", hits, probes, probes == 0 ? 0 : 100.0 * hits / probes);
+        }
+    }
+
+    /**
+     * Prints one histogram as percentiles.
+     */
+    private static void printHistogram(PrintStream out, String name, LatencyHistogram histogram) {
+        out.printf("%-14s p50 %d  p90 %d  p99 %d  max %d  (n=%d)%n", name, histogram.getPercentile(50),
+                histogram.getPercentile(90), histogram.getPercentile(99), histogram.getMax(), histogram.getCount());
+    }
+
+    /**
+     * Computes a share of the games in percent.
+     */
+    private double percent(long count) {
+        return games == 0 ? 0 : 100.0 * count / games;
+    }
+}
@@ -0,0 +1,329 @@
+package SnakeHunt;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Board describes the playing field in grid cells. It has no knowledge of
+ * pixels or drawing, so the game rules can run without a screen. A cell is
+ * identified by a single int, its index x + y * width, so the game state can
+ * be kept in primitive arrays without coordinate objects. The board
+ * also keeps an occupancy bitmap with one bit per cell, set while a snake
+ * segment covers the cell. Collision and spawn checks read a single bit
+ * instead of scanning the snake body.
+ *
+ * Next to the bitmap, the board keeps an index of the free cells: a dense
+ * array holding every free cell first, and the position of each cell in that
+ * array. Taking or releasing a cell swaps it across the boundary in constant
+ * time, so a uniformly random free cell can always be picked in one draw.
+ * The index takes 8 bytes per cell, so boards with more than
+ * FREE_INDEX_LIMIT cells go without it and keep only the bitmap, one bit per
+ * cell. Such boards are mostly empty, so a random cell is almost always
+ * free and a few draws find one.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class Board {
+
+    /**
+     * Largest number of cells for which the free cell index is kept.
+     */
+    public static final int FREE_INDEX_LIMIT = 1 << 22;
+
+    private final int width;  // Number of columns on the board
+    private final int height; // Number of rows on the board
+    private final long[] occupied; // One bit per cell, indexed by cell index
+    private final int[] freeCells; // Cell indexes, the first freeCount entries are the free cells, null without index
+    private final int[] freePosition; // Position of each cell index inside freeCells, null without index
+    private int freeCount; // Number of free cells
+
+    /**
+     * Constructor to create a board with the given size in cells.
+     *
+     * @param width the number of columns
+     * @param height the number of rows
+     */
+    public Board(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Board size must be positive: " + width + "x" + height);
+        }
+        if ((long) width * height > Integer.MAX_VALUE - 63) {
+            throw new IllegalArgumentException("Board has too many cells: " + width + "x" + height);
+        }
+        int cells = width * height;
+        this.width = width;
+        this.height = height;
+        this.occupied = new long[(cells + 63) >>> 6];
+        this.freeCells = cells <= FREE_INDEX_LIMIT ? new int[cells] : null;
+        this.freePosition = cells <= FREE_INDEX_LIMIT ? new int[cells] : null;
+        clear();
+    }
+
+    /**
+     * Getter for the number of columns.
+     *
+     * @return the board width in cells
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Getter for the number of rows.
+     *
+     * @return the board height in cells
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Checks if a cell lies inside the board.
+     *
+     * @param x the column of the cell
+     * @param y the row of the cell
+     * @return true if the cell is on the board, false otherwise
+     */
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Converts a column and row into a cell index.
+     *
+     * @param x the column of the cell
+     * @param y the row of the cell
+     * @return the cell index, x + y * width
+     */
+    public int cellOf(int x, int y) {
+        return x + y * width;
+    }
+
+    /**
+     * Getter for the column of a cell.
+     *
+     * @param cell the cell index
+     * @return the column of the cell
+     */
+    public int cellX(int cell) {
+        return cell % width;
+    }
+
+    /**
+     * Getter for the row of a cell.
+     *
+     * @param cell the cell index
+     * @return the row of the cell
+     */
+    public int cellY(int cell) {
+        return cell / width;
+    }
+
+    /**
+     * Marks a cell as covered by the snake and removes it from the free
+     * cells.
+     *
+     * @param cell the cell index
+     */
+    public void occupy(int cell) {
+        long bit = 1L << cell;
+        if ((occupied[cell >>> 6] & bit) != 0) {
+            return; // Already taken
+        }
+        occupied[cell >>> 6] |= bit;
+
+        // Swap the cell with the last free cell, then shrink the free part
+        freeCount--;
+        if (freeCells != null) {
+            swapFree(freePosition[cell], freeCount);
+        }
+    }
+
+    /**
+     * Marks a cell as free again and adds it back to the free cells.
+     *
+     * @param cell the cell index
+     */
+    public void release(int cell) {
+        long bit = 1L << cell;
+        if ((occupied[cell >>> 6] & bit) == 0) {
+            return; // Already free
+        }
+        occupied[cell >>> 6] &= ~bit;
+
+        // Swap the cell with the first taken cell, then grow the free part
+        if (freeCells != null) {
+            swapFree(freePosition[cell], freeCount);
+        }
+        freeCount++;
+    }
+
+    /**
+     * Checks if a cell is covered by the snake.
+     *
+     * @param cell the cell index
+     * @return true if the cell is occupied, false otherwise
+     */
+    public boolean isOccupied(int cell) {
+        return (occupied[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Getter for the number of free cells.
+     *
+     * @return the number of cells not covered by the snake
+     */
+    public int getFreeCount() {
+        return freeCount;
+    }
+
+    /**
+     * Checks if the board keeps the free cell index, which it does when it
+     * has at most FREE_INDEX_LIMIT cells.
+     *
+     * @return true if getFreeCell() can be used
+     */
+    public boolean hasFreeIndex() {
+        return freeCells != null;
+    }
+
+    /**
+     * Getter for a free cell by its position in the free cell index. The
+     * order of the free cells changes as cells are taken and released.
+     *
+     * @param i the position, from 0 to getFreeCount() - 1
+     * @return the cell index
+     * @throws IllegalStateException if the board keeps no free cell index
+     */
+    public int getFreeCell(int i) {
+        if (freeCells == null) {
+            throw new IllegalStateException("No free cell index on a " + width + "x" + height + " board");
+        }
+        return freeCells[i];
+    }
+
+    /**
+     * Finds the first free cell at or after a cell, going on from cell 0
+     * after the last one. It reads the bitmap a word at a time, so it skips
+     * 64 taken cells per step.
+     *
+     * @param from the cell to start from
+     * @return the free cell, or -1 if the board is full
+     */
+    public int nextFreeCell(int from) {
+        if (freeCount == 0) {
+            return -1;
+        }
+        int cells = width * height;
+        int word = from >>> 6;
+        long free = ~occupied[word] & (-1L << from); // Free cells of the first word, from the start on
+        while (true) {
+            if (free != 0) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(free);
+                if (cell < cells) {
+                    return cell;
+                }
+            }
+            word = word + 1 == occupied.length ? 0 : word + 1; // The bits past the last cell are never set
+            free = ~occupied[word];
+        }
+    }
+
+    /**
+     * Frees every cell on the board, used when a level starts over.
+     */
+    public void clear() {
+        Arrays.fill(occupied, 0L);
+        if (freeCells != null) {
+            for (int i = 0; i < freeCells.length; i++) {
+                freeCells[i] = i;
+                freePosition[i] = i;
+            }
+        }
+        freeCount = width * height;
+    }
+
+    /**
+     * Computes the number of bytes written by writeState().
+     *
+     * @return the number of bytes
+     */
+    long stateSize() {
+        return 4 + 8L * occupied.length + (freeCells != null ? 4L * freeCells.length : 0);
+    }
+
+    /**
+     * Writes the bitmap and the free cell index to a buffer. The index is
+     * written in its exact order, since that order decides which cell a
+     * random draw picks for the next hunt.
+     *
+     * @param out the buffer to write to, with stateSize() bytes left
+     */
+    void writeState(ByteBuffer out) {
+        out.putInt(freeCount);
+        out.asLongBuffer().put(occupied); // Bulk copies through a view, which does not move out
+        out.position(out.position() + 8 * occupied.length);
+        if (freeCells != null) {
+            out.asIntBuffer().put(freeCells);
+            out.position(out.position() + 4 * freeCells.length);
+        }
+    }
+
+    /**
+     * Reads the bitmap and the free cell index written by writeState() for a
+     * board of the same size, and checks that they agree: the bitmap marks
+     * no cell past the board and as many cells as are not free, and the
+     * index holds every cell once, the free cells first.
+     *
+     * @param in the buffer to read from
+     * @throws IllegalArgumentException if the state is inconsistent
+     */
+    void readState(ByteBuffer in) {
+        int cells = width * height;
+        int count = in.getInt();
+        if (count < 0 || count > cells) {
+            throw new IllegalArgumentException("Free cell count out of range: " + count);
+        }
+        freeCount = count;
+        in.asLongBuffer().get(occupied);
+        in.position(in.position() + 8 * occupied.length);
+        if ((cells & 63) != 0 && occupied[occupied.length - 1] >>> (cells & 63) != 0) {
+            throw new IllegalArgumentException("Occupied cell past the board");
+        }
+        long taken = 0;
+        for (long word : occupied) {
+            taken += Long.bitCount(word);
+        }
+        if (taken != cells - count) {
+            throw new IllegalArgumentException("Free cell count " + count + " disagrees with the bitmap");
+        }
+        if (freeCells != null) {
+            in.asIntBuffer().get(freeCells);
+            in.position(in.position() + 4 * freeCells.length);
+            Arrays.fill(freePosition, -1);
+            for (int i = 0; i < cells; i++) {
+                int cell = freeCells[i];
+                if (cell < 0 || cell >= cells || freePosition[cell] >= 0) {
+                    throw new IllegalArgumentException("Free cell index is not a permutation at " + i);
+                }
+                if (isOccupied(cell) != i >= count) {
+                    throw new IllegalArgumentException("Free cell index disagrees with the bitmap at " + i);
+                }
+                freePosition[cell] = i;
+            }
+        }
+    }
+
+    /**
+     * Swaps two entries of the free cell index and updates their positions.
+     */
+    private void swapFree(int i, int j) {
+        int a = freeCells[i];
+        int b = freeCells[j];
+        freeCells[i] = b;
+        freeCells[j] = a;
+        freePosition[b] = i;
+        freePosition[a] = j;
+    }
+}
@@ -0,0 +1,106 @@
+package SnakeHunt;
+
+/**
+ * Camera picks the part of the board shown on the screen when the board is
+ * larger than the window. Its position is the board pixel at the top-left
+ * corner of the screen; drawing code translates by it, so the map keeps
+ * working in board pixels and only the cells inside the viewport are drawn.
+ *
+ * The camera follows the head with a dead zone: it stays still while the
+ * head is inside the middle third of the screen and scrolls only when the
+ * head would leave it. It never shows anything outside the board, and stays
+ * at the top-left corner on a board no larger than the window.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class Camera {
+
+    private final int viewWidth;  // Width of the viewport in pixels
+    private final int viewHeight; // Height of the viewport in pixels
+    private int x; // Board pixel shown at the left edge of the viewport
+    private int y; // Board pixel shown at the top edge of the viewport
+
+    /**
+     * Constructor to create a camera for a viewport of the given size.
+     *
+     * @param viewWidth the viewport width in pixels
+     * @param viewHeight the viewport height in pixels
+     */
+    public Camera(int viewWidth, int viewHeight) {
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+    }
+
+    /**
+     * Moves the camera so that a cell is in the middle of the viewport, as
+     * far as the board edges allow. Used when a level starts.
+     *
+     * @param board the board shown
+     * @param cell the cell to center on
+     */
+    public void center(Board board, int cell) {
+        x = clamp(board.cellX(cell) * Map.UNIT_SIZE + (Map.UNIT_SIZE - viewWidth) / 2,
+                board.getWidth() * Map.UNIT_SIZE - viewWidth);
+        y = clamp(board.cellY(cell) * Map.UNIT_SIZE + (Map.UNIT_SIZE - viewHeight) / 2,
+                board.getHeight() * Map.UNIT_SIZE - viewHeight);
+    }
+
+    /**
+     * Scrolls the camera just enough to keep a cell inside the middle third
+     * of the viewport, as far as the board edges allow.
+     *
+     * @param board the board shown
+     * @param cell the cell to follow, usually the head
+     * @return true if the camera moved, so the whole viewport must be
+     * repainted
+     */
+    public boolean follow(Board board, int cell) {
+        int oldX = x;
+        int oldY = y;
+        x = clamp(scroll(x, board.cellX(cell) * Map.UNIT_SIZE, viewWidth), board.getWidth() * Map.UNIT_SIZE - viewWidth);
+        y = clamp(scroll(y, board.cellY(cell) * Map.UNIT_SIZE, viewHeight), board.getHeight() * Map.UNIT_SIZE - viewHeight);
+        return x != oldX || y != oldY;
+    }
+
+    /**
+     * Scrolls along one axis so that a cell starting at a pixel lies inside
+     * the middle third of the view.
+     */
+    private static int scroll(int position, int pixel, int view) {
+        int margin = view / 3;
+        if (pixel < position + margin) {
+            return pixel - margin;
+        }
+        if (pixel + Map.UNIT_SIZE > position + view - margin) {
+            return pixel + Map.UNIT_SIZE - view + margin;
+        }
+        return position;
+    }
+
+    /**
+     * Keeps a position between 0 and the largest one that stays on the
+     * board.
+     */
+    private static int clamp(int position, int max) {
+        return Math.max(0, Math.min(position, max));
+    }
+
+    /**
+     * Getter for the board pixel at the left edge of the viewport.
+     *
+     * @return the x offset in pixels
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Getter for the board pixel at the top edge of the viewport.
+     *
+     * @return the y offset in pixels
+     */
+    public int getY() {
+        return y;
+    }
+}
@@ -0,0 +1,44 @@
+package SnakeHunt;
+
+/**
+ * CyclePolicy follows a fixed cycle through every cell of the board, so the
+ * snake never dies and eventually eats every hunt. It is slow but always
+ * wins, which makes it a baseline for the longest game. The board height
+ * must be even and the snake must start at cell (0, 0).
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class CyclePolicy implements Policy {
+
+    @Override
+    public Direction choose(GameEngine engine) {
+        return directionAt(engine.getBoard(), engine.getSnake().getHead());
+    }
+
+    /**
+     * Returns the direction that keeps the head on a cycle through every
+     * cell: right along the top row, a serpentine through the other columns
+     * and back up the first column. The board height must be even.
+     *
+     * @param board the board the snake moves on
+     * @param head the cell of the head
+     * @return the direction for the next move
+     */
+    public static Direction directionAt(Board board, int head) {
+        int width = board.getWidth();
+        int height = board.getHeight();
+        int x = board.cellX(head);
+        int y = board.cellY(head);
+        if (x == 0) {
+            return y > 0 ? Direction.UP : Direction.RIGHT;
+        }
+        if (y == 0) {
+            return x < width - 1 ? Direction.RIGHT : Direction.DOWN;
+        }
+        if (y % 2 == 1) {
+            return x > 1 || y == height - 1 ? Direction.LEFT : Direction.DOWN;
+        }
+        return x < width - 1 ? Direction.RIGHT : Direction.DOWN;
+    }
+}
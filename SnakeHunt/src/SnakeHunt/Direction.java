@@ -0,0 +1,103 @@
+package SnakeHunt;
+
+/**
+ * Direction lists the four ways the snake can move on the board, together
+ * with the step it makes along each axis in board cells.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public enum Direction {
+
+    UP(0, -1),
+    DOWN(0, 1),
+    LEFT(-1, 0),
+    RIGHT(1, 0);
+
+    private final int dx; // Step along the x-axis in cells
+    private final int dy; // Step along the y-axis in cells
+
+    /**
+     * Constructor to set the step of the direction on each axis.
+     *
+     * @param dx the step along the x-axis
+     * @param dy the step along the y-axis
+     */
+    Direction(int dx, int dy) {
+        this.dx = dx;
+        this.dy = dy;
+    }
+
+    /**
+     * Getter for the step along the x-axis.
+     *
+     * @return -1, 0 or 1
+     */
+    public int getDx() {
+        return dx;
+    }
+
+    /**
+     * Getter for the step along the y-axis.
+     *
+     * @return -1, 0 or 1
+     */
+    public int getDy() {
+        return dy;
+    }
+
+    /**
+     * Returns the direction pointing the other way, used to stop the snake
+     * from reversing into itself.
+     *
+     * @return the opposite direction
+     */
+    public Direction opposite() {
+        switch (this) {
+            case UP:
+                return DOWN;
+            case DOWN:
+                return UP;
+            case LEFT:
+                return RIGHT;
+            default:
+                return LEFT;
+        }
+    }
+
+    /**
+     * Returns the direction a quarter turn clockwise from this one.
+     *
+     * @return the direction to the right
+     */
+    public Direction right() {
+        switch (this) {
+            case UP:
+                return RIGHT;
+            case RIGHT:
+                return DOWN;
+            case DOWN:
+                return LEFT;
+            default:
+                return UP;
+        }
+    }
+
+    /**
+     * Returns the direction a quarter turn counterclockwise from this one.
+     *
+     * @return the direction to the left
+     */
+    public Direction left() {
+        switch (this) {
+            case UP:
+                return LEFT;
+            case LEFT:
+                return DOWN;
+            case DOWN:
+                return RIGHT;
+            default:
+                return UP;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package SnakeHunt;
+
+/**
+ * DirtyRegions collects the screen rectangles that changed during a tick so
+ * that only those parts of the panel are repainted. Rectangles that overlap
+ * or touch are merged into one, and the list never grows beyond a fixed
+ * capacity, so adding a region allocates nothing.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class DirtyRegions {
+
+    private static final int CAPACITY = 16; // Maximum number of separate regions
+
+    private final int[] left = new int[CAPACITY];   // Left edge of each region
+    private final int[] top = new int[CAPACITY];    // Top edge of each region
+    private final int[] right = new int[CAPACITY];  // Right edge of each region, exclusive
+    private final int[] bottom = new int[CAPACITY]; // Bottom edge of each region, exclusive
+    private int count; // Number of regions in use
+
+    /**
+     * Adds a rectangle to the dirty regions, merging it with any region it
+     * overlaps or touches. Empty rectangles are ignored.
+     *
+     * @param x the left edge in pixels
+     * @param y the top edge in pixels
+     * @param width the width in pixels
+     * @param height the height in pixels
+     */
+    public void add(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        int l = x;
+        int t = y;
+        int r = x + width;
+        int b = y + height;
+
+        // Absorb every region touching the rectangle; the union may touch more, so start over after each merge
+        int i = 0;
+        while (i < count) {
+            if (l <= right[i] && r >= left[i] && t <= bottom[i] && b >= top[i]) {
+                l = Math.min(l, left[i]);
+                t = Math.min(t, top[i]);
+                r = Math.max(r, right[i]);
+                b = Math.max(b, bottom[i]);
+                remove(i);
+                i = 0;
+            } else {
+                i++;
+            }
+        }
+
+        if (count == CAPACITY) {
+            // Out of room: fold the last region into the new one
+            count--;
+            l = Math.min(l, left[count]);
+            t = Math.min(t, top[count]);
+            r = Math.max(r, right[count]);
+            b = Math.max(b, bottom[count]);
+        }
+        left[count] = l;
+        top[count] = t;
+        right[count] = r;
+        bottom[count] = b;
+        count++;
+    }
+
+    /**
+     * Getter for the number of separate regions.
+     *
+     * @return the number of regions
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Getter for the left edge of a region.
+     *
+     * @param i the region, from 0 to size() - 1
+     * @return the left edge in pixels
+     */
+    public int getX(int i) {
+        return left[i];
+    }
+
+    /**
+     * Getter for the top edge of a region.
+     *
+     * @param i the region, from 0 to size() - 1
+     * @return the top edge in pixels
+     */
+    public int getY(int i) {
+        return top[i];
+    }
+
+    /**
+     * Getter for the width of a region.
+     *
+     * @param i the region, from 0 to size() - 1
+     * @return the width in pixels
+     */
+    public int getWidth(int i) {
+        return right[i] - left[i];
+    }
+
+    /**
+     * Getter for the height of a region.
+     *
+     * @param i the region, from 0 to size() - 1
+     * @return the height in pixels
+     */
+    public int getHeight(int i) {
+        return bottom[i] - top[i];
+    }
+
+    /**
+     * Removes all regions, ready for the next tick.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Removes a region by moving the last one into its place.
+     */
+    private void remove(int i) {
+        count--;
+        left[i] = left[count];
+        top[i] = top[count];
+        right[i] = right[count];
+        bottom[i] = bottom[count];
+    }
+}
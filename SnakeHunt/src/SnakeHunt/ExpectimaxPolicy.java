@@ -0,0 +1,477 @@
+package SnakeHunt;
+
+/**
+ * ExpectimaxPolicy looks ahead several moves before choosing one. It searches
+ * a tree in which the snake picks the best of its moves and, whenever it eats
+ * the hunt, the next hunt appears on a free cell at random, so that node
+ * takes the average over where it may appear. The leaves are scored by the
+ * hunts eaten and the distance to the hunt, a win or a loss ending the line
+ * at once. To keep chance nodes affordable, a spawn is averaged over
+ * SPAWN_SAMPLES free cells spread through the free cell index rather than
+ * over every free cell.
+ *
+ * The search deepens one move at a time until the time budget of the tick
+ * runs out, and plays the best move of the deepest search it completed. The
+ * first depth is always completed, so a move is always chosen. A budget of
+ * decision nodes may replace or complement the time budget: a search bounded
+ * by nodes only, with a table no other policy uses, chooses the same moves
+ * on every run and on every machine, which a time budget cannot. Every state
+ * searched is stored by its Zobrist hash in a TranspositionTable, which may
+ * be shared by several policies and threads. A state found there with a deep
+ * enough result is not searched again, which happens across the depths of a
+ * tick, across ticks, since each tick searches the subtree of the move played
+ * before, and across games.
+ *
+ * The search plays the moves on its own copy of the board and body and takes
+ * them back afterwards, updating the hash in constant time per move. The
+ * rules are those of GameEngine.step(): the tail leaves its cell before the
+ * head enters one, unless the snake grows, and the level is won once the win
+ * score is reached or the board is full. Copying the game at the start of a
+ * search is the only step whose time grows with the board; all arrays are
+ * kept between calls, so choosing a move allocates nothing.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class ExpectimaxPolicy implements Policy {
+
+    /**
+     * Free cells averaged over when a hunt appears in the search.
+     */
+    public static final int SPAWN_SAMPLES = 4;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int MAX_DEPTH = 64;         // Deepest search tried in one tick
+    private static final float HUNT_VALUE = 100f;    // Value of each hunt eaten
+    private static final float LOSS_VALUE = -10000f; // Value of hitting a wall or the body
+    private static final float MOBILITY_VALUE = 2f;  // Value of each free cell next to the head at a leaf
+    private static final int CLOCK_NODES = 256;      // Nodes searched between two readings of the clock
+    private static final int LOSS = 0;  // Results of play()
+    private static final int MOVED = 1;
+    private static final int ATE = 2;
+
+    private final TranspositionTable table; // Results of the states searched, possibly shared
+    private final long budgetNanos;         // Time allowed to choose a move, 0 for no limit
+    private final long budgetNodes;         // Decision nodes allowed to choose a move, 0 for no limit
+
+    // Copy of the game the search plays on
+    private int width;          // Width of the board the arrays were made for
+    private int height;         // Height of the board the arrays were made for
+    private ZobristKeys keys;   // Keys for the board size
+    private Board board;        // Occupancy and free cells
+    private int[] body;         // Ring buffer as in Snake, part i at (headIndex + i) % body.length
+    private int headIndex;      // Position of the head in the buffer
+    private int length;         // Number of body parts
+    private int growPending;    // Moves left that keep the tail in place
+    private int eaten;          // Hunts eaten
+    private int direction;      // Direction ordinal of the snake
+    private int hunt;           // Cell of the hunt, -1 while a spawn is pending or the board is full
+    private int winScore;       // Hunts needed to win the level
+    private long hash;          // Zobrist hash of the copy
+
+    // What each move changed, indexed by ply, to take it back
+    private final long[] savedHash = new long[MAX_DEPTH];
+    private final int[] savedTail = new int[MAX_DEPTH];      // Cell the tail left, -1 if the snake grew
+    private final int[] savedGrow = new int[MAX_DEPTH];
+    private final int[] savedEaten = new int[MAX_DEPTH];
+    private final int[] savedDirection = new int[MAX_DEPTH];
+    private final int[] savedHunt = new int[MAX_DEPTH];
+    private final int[] spawns = new int[(MAX_DEPTH + 1) * SPAWN_SAMPLES]; // Sampled cells of each chance node
+    private int ply; // Moves played since the root
+
+    // Search in progress
+    private long deadline;    // Time at which the search stops
+    private long nodeLimit;   // Node count at which the search stops
+    private boolean finishing; // True while the first depth runs, which ignores the deadline
+    private boolean aborted;  // True once the deadline passed
+    private int rootMove;     // Best root move of the depth in progress
+    private long leaves;      // Leaves evaluated or found in the table by the depth in progress
+
+    // Statistics since the policy was created
+    private long nodes;       // Decision nodes searched
+    private long probes;      // Lookups in the table
+    private long hits;        // Lookups that found a deep enough result
+    private long searchNanos; // Time spent choosing moves
+    private long depthSum;    // Sum of the depths completed for each move
+    private long decisions;   // Moves chosen
+    private int lastDepth;    // Depth completed for the last move
+
+    /**
+     * Constructor to create a policy with its own table of 2^20 buckets.
+     *
+     * @param budgetNanos the time allowed to choose each move
+     */
+    public ExpectimaxPolicy(long budgetNanos) {
+        this(new TranspositionTable(20), budgetNanos);
+    }
+
+    /**
+     * Constructor to create a policy using a given table.
+     *
+     * @param table the transposition table, which may be shared with other
+     * policies on any thread
+     * @param budgetNanos the time allowed to choose each move
+     */
+    public ExpectimaxPolicy(TranspositionTable table, long budgetNanos) {
+        this(table, budgetNanos, 0);
+    }
+
+    /**
+     * Constructor to create a policy bounded by time, by decision nodes or
+     * by both, using a given table.
+     *
+     * @param table the transposition table, which may be shared with other
+     * policies on any thread
+     * @param budgetNanos the time allowed to choose each move, 0 for no limit
+     * @param budgetNodes the decision nodes allowed to choose each move, 0
+     * for no limit
+     */
+    public ExpectimaxPolicy(TranspositionTable table, long budgetNanos, long budgetNodes) {
+        if (budgetNanos < 0 || budgetNodes < 0 || budgetNanos == 0 && budgetNodes == 0) {
+            throw new IllegalArgumentException("A time or node budget is needed: " + budgetNanos + " ns, "
+                    + budgetNodes + " nodes");
+        }
+        this.table = table;
+        this.budgetNanos = budgetNanos;
+        this.budgetNodes = budgetNodes;
+    }
+
+    @Override
+    public Direction choose(GameEngine engine) {
+        long start = System.nanoTime();
+        copy(engine);
+        table.newGeneration();
+        deadline = budgetNanos > 0 ? start + budgetNanos : Long.MAX_VALUE;
+        nodeLimit = budgetNodes > 0 ? nodes + budgetNodes : Long.MAX_VALUE;
+        aborted = false;
+        int best = direction; // Going straight when every move loses
+        int depth = 0;
+        while (depth < MAX_DEPTH) {
+            finishing = depth == 0;
+            leaves = 0;
+            decide(depth + 1);
+            if (aborted) {
+                break;
+            }
+            depth++;
+            best = rootMove;
+            if (leaves == 0) {
+                break; // Every line ends before this depth, so deeper searches find the same
+            }
+        }
+        lastDepth = depth;
+        depthSum += depth;
+        decisions++;
+        searchNanos += System.nanoTime() - start;
+        return DIRECTIONS[best];
+    }
+
+    /**
+     * Copies the game into the arrays of the search and computes its hash.
+     */
+    private void copy(GameEngine engine) {
+        Board source = engine.getBoard();
+        if (board == null || source.getWidth() != width || source.getHeight() != height) {
+            width = source.getWidth();
+            height = source.getHeight();
+            keys = new ZobristKeys(width, height);
+            board = new Board(width, height);
+            body = new int[width * height];
+        }
+        Snake snake = engine.getSnake();
+        board.clear();
+        length = snake.getLength();
+        for (int part = 0; part < length; part++) {
+            body[part] = snake.getSegment(part);
+            board.occupy(body[part]);
+        }
+        headIndex = 0;
+        growPending = snake.getGrowPending();
+        eaten = snake.huntsEaten;
+        direction = snake.direction.ordinal();
+        hunt = engine.getHunt().getCell();
+        winScore = engine.getWinScore();
+        hash = keys.hash(engine);
+        ply = 0;
+    }
+
+    /**
+     * Searches a decision node to the given depth.
+     *
+     * @return the value of the best move, the value of a loss if every move
+     * loses
+     */
+    private float decide(int depth) {
+        nodes++;
+        if (!finishing && (nodes > nodeLimit || nodes % CLOCK_NODES == 0 && System.nanoTime() > deadline)) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0f; // Discarded with the rest of the depth
+        }
+        if (depth == 0) {
+            leaves++;
+            return evaluate();
+        }
+        if (ply > 0) {
+            probes++;
+            long data = table.probe(hash);
+            if (data != TranspositionTable.MISS && TranspositionTable.depth(data) >= depth) {
+                hits++;
+                leaves++; // Its lines may go on past this depth
+                return TranspositionTable.value(data);
+            }
+        }
+        float best = Float.NEGATIVE_INFINITY;
+        int bestMove = TranspositionTable.NO_MOVE;
+        int back = DIRECTIONS[direction].opposite().ordinal();
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            int move = (direction + i) % DIRECTIONS.length; // Straight on first, so it wins ties
+            if (move == back) {
+                continue;
+            }
+            float value;
+            int result = play(move);
+            if (result == LOSS) {
+                value = LOSS_VALUE;
+            } else {
+                if (result == MOVED) {
+                    value = decide(depth - 1);
+                } else if (eaten >= winScore || board.getFreeCount() == 0) {
+                    value = winValue(); // Won, as GameEngine.step() decides
+                } else {
+                    value = spawn(depth - 1);
+                }
+                undo();
+            }
+            if (value > best) {
+                best = value;
+                bestMove = move;
+            }
+        }
+        if (aborted) {
+            return 0f;
+        }
+        table.store(hash, best, depth, bestMove);
+        if (ply == 0) {
+            rootMove = bestMove;
+        }
+        return best;
+    }
+
+    /**
+     * Averages the value of a decision node over the sampled cells where the
+     * next hunt may appear. The board has a free cell.
+     */
+    private float spawn(int depth) {
+        int free = board.getFreeCount();
+        int samples = Math.min(free, SPAWN_SAMPLES);
+        int base = ply * SPAWN_SAMPLES;
+        for (int i = 0; i < samples; i++) {
+            // Copied first: the moves searched below reorder the free cell index
+            spawns[base + i] = board.getFreeCell((int) ((long) i * free / samples));
+        }
+        float sum = 0f;
+        for (int i = 0; i < samples; i++) {
+            hunt = spawns[base + i];
+            hash ^= keys.hunt(hunt);
+            sum += decide(depth);
+            hash ^= keys.hunt(hunt);
+        }
+        hunt = -1;
+        return sum / samples;
+    }
+
+    /**
+     * Scores a state at the end of the search: every hunt eaten, a small
+     * penalty for the distance to the hunt and a small bonus for free cells
+     * around the head.
+     */
+    private float evaluate() {
+        int head = body[headIndex];
+        int x = head % width;
+        int y = head / width;
+        float value = eaten * HUNT_VALUE;
+        if (hunt >= 0) {
+            value -= Math.abs(hunt % width - x) + Math.abs(hunt / width - y);
+        }
+        int free = 0;
+        free += x > 0 && !board.isOccupied(head - 1) ? 1 : 0;
+        free += x < width - 1 && !board.isOccupied(head + 1) ? 1 : 0;
+        free += y > 0 && !board.isOccupied(head - width) ? 1 : 0;
+        free += y < height - 1 && !board.isOccupied(head + width) ? 1 : 0;
+        return value + free * MOBILITY_VALUE;
+    }
+
+    /**
+     * Value of a won level, above any leaf of the level.
+     */
+    private float winValue() {
+        return (winScore + 1) * HUNT_VALUE;
+    }
+
+    /**
+     * Plays one move on the copy as GameEngine.step() would, unless it
+     * loses, and updates the hash. A move that eats the hunt leaves no hunt
+     * placed, for the caller to spawn one.
+     *
+     * @return LOSS if the move hits a wall or the body, and then nothing was
+     * changed, otherwise MOVED or ATE
+     */
+    private int play(int move) {
+        int head = body[headIndex];
+        int x = head % width + DIRECTIONS[move].getDx();
+        int y = head / width + DIRECTIONS[move].getDy();
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return LOSS;
+        }
+        int newHead = x + y * width;
+        int tail = body[index(length - 1)];
+        if (board.isOccupied(newHead) && (growPending > 0 || newHead != tail)) {
+            return LOSS; // Only the tail moving away frees a taken cell
+        }
+        savedHash[ply] = hash;
+        savedGrow[ply] = growPending;
+        savedEaten[ply] = eaten;
+        savedDirection[ply] = direction;
+        savedHunt[ply] = hunt;
+        hash ^= keys.direction(DIRECTIONS[direction]) ^ keys.direction(DIRECTIONS[move]);
+        direction = move;
+
+        if (growPending > 0) {
+            hash ^= keys.grow(growPending) ^ keys.grow(growPending - 1);
+            growPending--;
+            savedTail[ply] = -1;
+        } else {
+            // The part before the tail becomes the tail
+            board.release(tail);
+            hash ^= keys.body(tail, ZobristKeys.TAIL);
+            length--;
+            if (length > 0) {
+                int last = body[index(length - 1)];
+                hash ^= keys.body(last, ZobristKeys.link(board, last, tail)) ^ keys.body(last, ZobristKeys.TAIL);
+            }
+            savedTail[ply] = tail;
+        }
+
+        // The new head links to the old one, or is the tail of a snake of one part
+        int link = length > 0 ? DIRECTIONS[move].opposite().ordinal() : ZobristKeys.TAIL;
+        hash ^= keys.head(head) ^ keys.head(newHead) ^ keys.body(newHead, link);
+        headIndex = headIndex == 0 ? body.length - 1 : headIndex - 1;
+        body[headIndex] = newHead;
+        length++;
+        board.occupy(newHead);
+        ply++;
+
+        if (newHead != hunt) {
+            return MOVED;
+        }
+        hash ^= keys.hunt(hunt) ^ keys.eaten(eaten) ^ keys.eaten(eaten + 1)
+                ^ keys.grow(growPending) ^ keys.grow(growPending + 1);
+        eaten++;
+        growPending++;
+        hunt = -1;
+        return ATE;
+    }
+
+    /**
+     * Takes back the last move played.
+     */
+    private void undo() {
+        ply--;
+        board.release(body[headIndex]);
+        headIndex = headIndex == body.length - 1 ? 0 : headIndex + 1;
+        length--;
+        int tail = savedTail[ply];
+        if (tail >= 0) {
+            body[index(length)] = tail; // Its slot was not reused, the body never fills the buffer
+            length++;
+            board.occupy(tail);
+        }
+        hash = savedHash[ply];
+        growPending = savedGrow[ply];
+        eaten = savedEaten[ply];
+        direction = savedDirection[ply];
+        hunt = savedHunt[ply];
+    }
+
+    /**
+     * Converts a body part number into its position in the ring buffer.
+     */
+    private int index(int part) {
+        int index = headIndex + part;
+        return index < body.length ? index : index - body.length;
+    }
+
+    /**
+     * Getter for the number of decision nodes searched so far.
+     *
+     * @return the number of nodes
+     */
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    /**
+     * Getter for the number of lookups in the transposition table so far.
+     *
+     * @return the number of lookups
+     */
+    public long getProbeCount() {
+        return probes;
+    }
+
+    /**
+     * Getter for the number of lookups that found a deep enough result.
+     *
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Getter for the time spent choosing moves so far.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getSearchNanos() {
+        return searchNanos;
+    }
+
+    /**
+     * Getter for the average depth completed per move chosen.
+     *
+     * @return the average depth, 0 before the first move
+     */
+    public double getAverageDepth() {
+        return decisions == 0 ? 0 : (double) depthSum / decisions;
+    }
+
+    /**
+     * Getter for the depth completed for the last move chosen.
+     *
+     * @return the depth in moves
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * Getter for the time allowed to choose each move.
+     *
+     * @return the budget in nanoseconds, 0 for no limit
+     */
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    /**
+     * Getter for the decision nodes allowed to choose each move.
+     *
+     * @return the budget in nodes, 0 for no limit
+     */
+    public long getBudgetNodes() {
+        return budgetNodes;
+    }
+}
@@ -0,0 +1,70 @@
+package SnakeHunt;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * FrameExchange hands frame snapshots from the thread ticking the game to
+ * the thread drawing it without either of them ever waiting. It owns three
+ * snapshots: the back one, filled by the writer; the front one, drawn by the
+ * reader; and the middle one, the latest published, held by an atomic
+ * reference. Publishing swaps the back snapshot with the middle one, and
+ * taking the latest frame swaps the middle one with the front one, so each
+ * snapshot belongs to exactly one side at a time.
+ *
+ * Two snapshots are not enough: with only a front and a back, the writer
+ * would have to wait for the reader to let go of the front one before
+ * reusing it. With three, the writer always has a snapshot of its own to
+ * fill, the reader keeps drawing the same one until a newer one is
+ * published, and a frame published while the reader is busy simply replaces
+ * the one that was waiting. Nothing is allocated after construction.
+ *
+ * There must be one writer at a time and one reader at a time. The writer
+ * may change thread as long as the changes happen under a common lock, and
+ * so may the reader.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class FrameExchange {
+
+    private FrameSnapshot back = new FrameSnapshot();  // Filled by the writer
+    private final AtomicReference<FrameSnapshot> middle = new AtomicReference<>(new FrameSnapshot()); // Latest published
+    private FrameSnapshot front = new FrameSnapshot(); // Drawn by the reader
+    private long published; // Frames published so far, writer only
+
+    /**
+     * Getter for the snapshot to fill before the next publish. Called by the
+     * writer only.
+     *
+     * @return the back snapshot
+     */
+    public FrameSnapshot back() {
+        return back;
+    }
+
+    /**
+     * Publishes the back snapshot as the latest frame and takes back the
+     * snapshot it replaces, which the reader no longer holds. Called by the
+     * writer only.
+     */
+    public void publish() {
+        back.sequence = ++published;
+        back.publishedNanos = System.nanoTime();
+        back = middle.getAndSet(back); // The swap publishes every write made to the snapshot
+    }
+
+    /**
+     * Takes the latest published frame, or keeps the one already held if
+     * nothing newer was published. The frame stays unchanged until the next
+     * call. Called by the reader only.
+     *
+     * @return the frame to draw, with sequence number 0 if nothing was
+     * published yet
+     */
+    public FrameSnapshot latest() {
+        if (middle.get().sequence > front.sequence) {
+            front = middle.getAndSet(front); // Only the writer replaces it meanwhile, and only with a newer one
+        }
+        return front;
+    }
+}
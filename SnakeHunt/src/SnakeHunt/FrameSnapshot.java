@@ -0,0 +1,179 @@
+package SnakeHunt;
+
+import java.util.Arrays;
+
+/**
+ * FrameSnapshot holds everything the renderer needs to draw one tick of a
+ * level: the body cells in view, the head and the cell it came from, the
+ * hunt, the camera position, the score, the level and the time played. The
+ * thread ticking the game fills a snapshot and publishes it through a
+ * FrameExchange; the renderer draws it without looking at the engine, so
+ * neither thread waits for the other.
+ *
+ * Only the cells of the viewport, plus one cell each way, are copied, as a
+ * bitmap in the same layout as the occupancy bitmap of the board. Capturing
+ * a frame therefore costs the same whatever the length of the snake or the
+ * size of the board, and allocates nothing once the bitmap has grown to the
+ * viewport.
+ *
+ * A snapshot is written only before it is published, and is not written
+ * again until the renderer has let go of it, so the renderer sees it as
+ * immutable.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class FrameSnapshot {
+
+    long sequence;        // Number of the frame, from 1, set when published
+    long publishedNanos;  // System.nanoTime() when the frame was published
+    long tickNanos;       // Time between two ticks at the speed of the level
+    GameEngine.Status status = GameEngine.Status.RUNNING; // State of the level after the tick
+    int boardWidth;       // Columns of the board
+    int boardHeight;      // Rows of the board
+    int cameraX;          // Board pixel at the left edge of the screen
+    int cameraY;          // Board pixel at the top edge of the screen
+    int firstColumn;      // First board column copied into the bitmap
+    int firstRow;         // First board row copied into the bitmap
+    int columns;          // Columns copied into the bitmap
+    int rows;             // Rows copied into the bitmap
+    private long[] body = new long[0]; // One bit per copied cell, row by row, set if a snake part is on it
+    int head = -1;        // Head cell
+    int previousHead = -1; // Head cell before the tick, or -1 if unknown
+    Direction direction = Direction.RIGHT; // Direction of the head
+    int hunt = -1;        // Hunt cell, or -1 if no hunt is on the board
+    int score;            // Hunts eaten
+    int level;            // Level played
+    long elapsedNanos;    // Time played in the level
+    boolean assisted;     // True if the autopilot steered during the level
+    long inputNanos;      // Time of the last key press applied to the snake, 0 if none
+
+    /**
+     * Copies the state of a level into the snapshot. The caller sets the
+     * fields the engine does not know about, such as previousHead.
+     *
+     * @param engine the engine of the level
+     * @param camera the camera showing the board
+     * @param viewWidth the width of the screen in pixels
+     * @param viewHeight the height of the screen in pixels
+     */
+    void capture(GameEngine engine, Camera camera, int viewWidth, int viewHeight) {
+        Board board = engine.getBoard();
+        Snake snake = engine.getSnake();
+        Hunt huntObject = engine.getHunt();
+        status = engine.getStatus();
+        boardWidth = board.getWidth();
+        boardHeight = board.getHeight();
+        cameraX = camera.getX();
+        cameraY = camera.getY();
+        head = snake.getHead();
+        direction = snake.direction;
+        hunt = huntObject.isPlaced() ? huntObject.getCell() : -1;
+        score = snake.huntsEaten;
+        level = engine.getLevel();
+        elapsedNanos = engine.getElapsedNanos();
+
+        // The viewport plus one cell each way, as far as the board goes
+        firstColumn = Math.max(0, cameraX / Map.UNIT_SIZE - 1);
+        firstRow = Math.max(0, cameraY / Map.UNIT_SIZE - 1);
+        int lastColumn = Math.min(boardWidth - 1, (cameraX + viewWidth - 1) / Map.UNIT_SIZE + 1);
+        int lastRow = Math.min(boardHeight - 1, (cameraY + viewHeight - 1) / Map.UNIT_SIZE + 1);
+        columns = lastColumn - firstColumn + 1;
+        rows = lastRow - firstRow + 1;
+        int words = (columns * rows + 63) >>> 6;
+        if (body.length < words) {
+            body = new long[words]; // Only when the viewport first meets a board this large
+        }
+        Arrays.fill(body, 0, words, 0L);
+        int bit = 0;
+        for (int row = firstRow; row <= lastRow; row++) {
+            int cell = board.cellOf(firstColumn, row);
+            for (int column = 0; column < columns; column++, cell++, bit++) {
+                if (board.isOccupied(cell)) {
+                    body[bit >>> 6] |= 1L << bit;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a snake part lies on a cell. Cells outside the copied part
+     * of the board are reported empty.
+     *
+     * @param column the board column
+     * @param row the board row
+     * @return true if the cell is occupied
+     */
+    boolean isOccupied(int column, int row) {
+        int x = column - firstColumn;
+        int y = row - firstRow;
+        if (x < 0 || y < 0 || x >= columns || y >= rows) {
+            return false;
+        }
+        int bit = x + y * columns;
+        return (body[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Getter for the number of the frame. Later frames have larger numbers.
+     *
+     * @return the sequence number, 0 before the first publish
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Getter for the state of the level in this frame.
+     *
+     * @return the status after the tick
+     */
+    public GameEngine.Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Getter for the head cell.
+     *
+     * @return the cell index
+     */
+    public int getHead() {
+        return head;
+    }
+
+    /**
+     * Getter for the hunt cell.
+     *
+     * @return the cell index, or -1 if no hunt is on the board
+     */
+    public int getHunt() {
+        return hunt;
+    }
+
+    /**
+     * Getter for the number of hunts eaten.
+     *
+     * @return the score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Getter for the level played.
+     *
+     * @return the level, from 1
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Getter for the time played in the level.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,371 @@
+package SnakeHunt;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * GameEngine runs the Snake Hunt rules without any Swing or AWT code. It owns
+ * the board, the snake and the hunt, and advances the game one tick at a time
+ * through {@link #step(Direction)}. Main drives it from the Swing timer and
+ * draws the result, while tools that only need the rules can run it headless
+ * as fast as the CPU allows.
+ *
+ * Every hunt position comes from a single random source, which is reseeded
+ * when a level starts with {@link #reset(int, long)}. The seed of a level
+ * and the directions given to step() are therefore enough to play it again
+ * exactly, which is what Replay records. The random source is a GameRandom
+ * whose state can be saved, so Snapshot can also stop a level in the middle
+ * and resume it later with the same hunts to come.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class GameEngine {
+
+    /**
+     * Maximum number of levels.
+     */
+    public static final int MAX_LEVEL = 3;
+
+    /**
+     * Required scores to win each level.
+     */
+    public static final int[] WIN_SCORES = {5, 10, 15};
+
+    /**
+     * Initial delay between game updates in milliseconds, controlling the snake
+     * speed.
+     */
+    public static final int INITIAL_DELAY = 150;
+
+    /**
+     * Milliseconds taken off the delay for each level after the first.
+     */
+    public static final int LEVEL_DELAY_STEP = 50;
+
+    /**
+     * Shortest delay between game updates in milliseconds, whatever the
+     * level.
+     */
+    public static final int MIN_DELAY = 30;
+
+    /**
+     * State of the current game after a tick.
+     */
+    public enum Status {
+        RUNNING, // The snake is still alive and the level is not won yet
+        WON,     // The win score of the level has been reached, or the snake fills the board
+        LOST     // The snake hit a wall or itself
+    }
+
+    private final Board board; // The board the game is played on
+    private final Random random; // Random source shared by every hunt of this engine
+    private long seed;          // Seed of the random source when the level started
+    private Snake snake;        // The snake of the current level
+    private Hunt hunt;          // The hunt of the current level
+    private int level;          // Current level (1 to MAX_LEVEL)
+    private long tick;          // Number of ticks played in the current level
+    private Status status;      // State after the last tick
+    private long elapsedNanos;  // Time played in the current level
+
+    /**
+     * Constructor to create an engine on a board of the given size, starting
+     * at level 1.
+     *
+     * @param width the board width in cells
+     * @param height the board height in cells
+     */
+    public GameEngine(int width, int height) {
+        this(width, height, new Random().nextLong());
+    }
+
+    /**
+     * Constructor to create an engine starting at level 1 with a given seed.
+     *
+     * @param width the board width in cells
+     * @param height the board height in cells
+     * @param seed the seed of the random source placing the hunts
+     */
+    public GameEngine(int width, int height, long seed) {
+        this(width, height, new GameRandom(seed));
+        this.seed = seed;
+    }
+
+    /**
+     * Constructor to create an engine with a given random source, starting at
+     * level 1.
+     *
+     * @param width the board width in cells
+     * @param height the board height in cells
+     * @param random the random source used to place the hunts
+     */
+    public GameEngine(int width, int height, Random random) {
+        this.board = new Board(width, height);
+        this.random = random;
+        reset(1);
+    }
+
+    /**
+     * Starts the given level from scratch with a new snake and hunt, after
+     * reseeding the random source.
+     *
+     * @param level the level to play, from 1 to MAX_LEVEL
+     * @param seed the seed of the random source placing the hunts
+     */
+    public void reset(int level, long seed) {
+        random.setSeed(seed);
+        this.seed = seed;
+        reset(level);
+    }
+
+    /**
+     * Starts the given level from scratch with a new snake and hunt. The
+     * random source goes on from where the previous level left it.
+     *
+     * @param level the level to play, from 1 to MAX_LEVEL
+     */
+    public void reset(int level) {
+        if (level < 1 || level > MAX_LEVEL) {
+            throw new IllegalArgumentException("Level must be between 1 and " + MAX_LEVEL + ": " + level);
+        }
+        this.level = level;
+        board.clear(); // Free the cells of the previous snake
+        snake = new Snake(board);
+        hunt = new Hunt(snake, random);
+        tick = 0;
+        elapsedNanos = 0;
+        status = Status.RUNNING;
+    }
+
+    /**
+     * Advances the game by one tick: turns the snake, moves it, lets it eat
+     * the hunt and then checks for a win or a collision. Calling it after the
+     * game has ended does nothing.
+     *
+     * @param direction the direction requested for this tick, or null to keep
+     * going straight
+     * @return the state of the game after the tick
+     */
+    public Status step(Direction direction) {
+        if (status != Status.RUNNING) {
+            return status;
+        }
+        snake.turn(direction);
+        snake.move();
+        snake.checkHunt(hunt);
+        tick++;
+        // Check if level is completed before checking for collisions. A
+        // board with no free cell left for the hunt also counts as a win.
+        if (snake.huntsEaten >= getWinScore() || !hunt.isPlaced()) {
+            status = Status.WON;
+        } else if (!snake.checkCollisions()) {
+            status = Status.LOST;
+        }
+        return status;
+    }
+
+    /**
+     * Adds to the time played in the current level. The engine only counts
+     * ticks, so the caller adds the time each tick took.
+     *
+     * @param nanos the time to add in nanoseconds
+     */
+    public void addElapsedNanos(long nanos) {
+        elapsedNanos += nanos;
+    }
+
+    /**
+     * Getter for the time played in the current level, as added by
+     * addElapsedNanos().
+     *
+     * @return the time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Computes the number of bytes written by writeState().
+     *
+     * @return the number of bytes
+     */
+    long stateSize() {
+        return 4 + 8 + 8 + 8 + 8 + 4 + snake.stateSize() + board.stateSize();
+    }
+
+    /**
+     * Writes the state of a level in progress to a buffer: the level, the
+     * seed and current state of the random source, the tick, the time
+     * played, the hunt, the snake and the board.
+     *
+     * @param out the buffer to write to, with stateSize() bytes left
+     * @throws IllegalStateException if the level has ended, or the engine
+     * was given a random source whose state cannot be read
+     */
+    void writeState(ByteBuffer out) {
+        if (status != Status.RUNNING) {
+            throw new IllegalStateException("Only a level in progress can be saved: " + status);
+        }
+        if (!(random instanceof GameRandom)) {
+            throw new IllegalStateException("The random source of this engine cannot be saved");
+        }
+        out.putInt(level);
+        out.putLong(seed);
+        out.putLong(((GameRandom) random).getState());
+        out.putLong(tick);
+        out.putLong(elapsedNanos);
+        out.putInt(hunt.getCell());
+        snake.writeState(out);
+        board.writeState(out);
+    }
+
+    /**
+     * Replaces the current level with one written by writeState() on a board
+     * of the same size. Besides the checks of the snake and the board, the
+     * level must still be running, the bitmap must mark exactly the cells of
+     * the snake, and the hunt must be on a free cell, or absent only when no
+     * cell is free.
+     *
+     * @param in the buffer to read from
+     * @throws IllegalStateException if the engine was given a random source
+     * whose state cannot be set
+     * @throws IllegalArgumentException if the state is inconsistent
+     */
+    void readState(ByteBuffer in) {
+        if (!(random instanceof GameRandom)) {
+            throw new IllegalStateException("The random source of this engine cannot be restored");
+        }
+        int savedLevel = in.getInt();
+        if (savedLevel < 1 || savedLevel > MAX_LEVEL) {
+            throw new IllegalArgumentException("Level out of range: " + savedLevel);
+        }
+        level = savedLevel;
+        seed = in.getLong();
+        ((GameRandom) random).setState(in.getLong());
+        tick = in.getLong();
+        elapsedNanos = in.getLong();
+        if (tick < 0 || elapsedNanos < 0) {
+            throw new IllegalArgumentException("Tick or time played out of range: " + tick + ", " + elapsedNanos);
+        }
+        int huntCell = in.getInt();
+        snake = new Snake(board, in);
+        if (snake.huntsEaten >= getWinScore()) {
+            throw new IllegalArgumentException("Level already won: " + snake.huntsEaten + " hunts");
+        }
+        board.readState(in);
+        checkSnakeOnBoard();
+        boolean huntPlaced = huntCell >= 0 && huntCell < board.getWidth() * board.getHeight()
+                && !board.isOccupied(huntCell);
+        if (!huntPlaced && (huntCell != -1 || board.getFreeCount() > 0)) {
+            throw new IllegalArgumentException("Hunt not on a free cell: " + huntCell);
+        }
+        hunt = new Hunt(snake, random, huntCell);
+        status = Status.RUNNING;
+    }
+
+    /**
+     * Computes the time between two ticks for a level. Each level takes
+     * LEVEL_DELAY_STEP milliseconds off the initial delay, down to MIN_DELAY.
+     * Kept here rather than in Main so that headless tools such as Replay do
+     * not load the Swing classes.
+     *
+     * @param level the level, from 1
+     * @return the tick period in nanoseconds
+     */
+    public static long tickNanosFor(int level) {
+        int delay = Math.max(MIN_DELAY, INITIAL_DELAY - (level - 1) * LEVEL_DELAY_STEP);
+        return delay * 1_000_000L;
+    }
+
+    /**
+     * Checks that the bitmap of the board marks the cells of the snake, each
+     * once, and no other cell. The board counts as many taken cells as the
+     * snake has parts, so it is enough that no part is free or repeated.
+     */
+    private void checkSnakeOnBoard() {
+        int length = snake.getLength();
+        if (board.getWidth() * board.getHeight() - board.getFreeCount() != length) {
+            throw new IllegalArgumentException("Board and snake disagree on the cells taken");
+        }
+        long[] seen = new long[(board.getWidth() * board.getHeight() + 63) >>> 6];
+        for (int i = 0; i < length; i++) {
+            int cell = snake.getSegment(i);
+            if (!board.isOccupied(cell) || (seen[cell >>> 6] & 1L << cell) != 0) {
+                throw new IllegalArgumentException("Snake part " + i + " not marked once on the board");
+            }
+            seen[cell >>> 6] |= 1L << cell;
+        }
+    }
+
+    /**
+     * Getter for the score needed to win the current level.
+     *
+     * @return the win score of the current level
+     */
+    public int getWinScore() {
+        return WIN_SCORES[level - 1];
+    }
+
+    /**
+     * Getter for the board.
+     *
+     * @return the board
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Getter for the snake of the current level.
+     *
+     * @return the snake
+     */
+    public Snake getSnake() {
+        return snake;
+    }
+
+    /**
+     * Getter for the hunt of the current level.
+     *
+     * @return the hunt
+     */
+    public Hunt getHunt() {
+        return hunt;
+    }
+
+    /**
+     * Getter for the seed the random source had when it was last seeded.
+     *
+     * @return the seed, 0 if the engine was given its random source
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Getter for the current level.
+     *
+     * @return the level, from 1 to MAX_LEVEL
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Getter for the number of ticks played in the current level.
+     *
+     * @return the tick count
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Getter for the state of the game after the last tick.
+     *
+     * @return the game status
+     */
+    public Status getStatus() {
+        return status;
+    }
+}
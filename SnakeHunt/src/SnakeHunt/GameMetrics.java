@@ -0,0 +1,225 @@
+package SnakeHunt;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * GameMetrics collects the latencies of a game session: the time taken by a
+ * tick, the time taken to paint, the time from a key press to the tick
+ * applying it and to the first frame showing its effect, and the number of
+ * draws needed to place a hunt. Each is
+ * kept in a LatencyHistogram for the debug overlay of Main.
+ *
+ * Every value is also emitted as a JDK Flight Recorder event in the "Snake
+ * Hunt" category, so a session can be profiled by starting the game with
+ * -XX:StartFlightRecording. The events are only created while a recording
+ * has them enabled, so recording stays allocation-free otherwise.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class GameMetrics {
+
+    // Event types, looked up once to check cheaply whether a recording wants them
+    private static final EventType TICK_TYPE = EventType.getEventType(TickEvent.class);
+    private static final EventType PAINT_TYPE = EventType.getEventType(PaintEvent.class);
+    private static final EventType INPUT_TYPE = EventType.getEventType(InputLatencyEvent.class);
+    private static final EventType INPUT_TICK_TYPE = EventType.getEventType(InputToTickEvent.class);
+    private static final EventType SPAWN_TYPE = EventType.getEventType(HuntSpawnEvent.class);
+
+    private final LatencyHistogram tickTimes = new LatencyHistogram();      // Nanoseconds per tick
+    private final LatencyHistogram paintTimes = new LatencyHistogram();     // Nanoseconds per paint
+    private final LatencyHistogram inputLatencies = new LatencyHistogram(); // Nanoseconds from key press to display
+    private final LatencyHistogram inputTickLatencies = new LatencyHistogram(); // Nanoseconds from key press to tick
+    private final LatencyHistogram spawnAttempts = new LatencyHistogram();  // Draws per hunt placement
+
+    /**
+     * Records the duration of one tick.
+     *
+     * @param nanos the time taken by the tick in nanoseconds
+     */
+    public void recordTick(long nanos) {
+        tickTimes.record(nanos);
+        if (TICK_TYPE.isEnabled()) {
+            TickEvent event = new TickEvent();
+            event.tickTime = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records the duration of one paint.
+     *
+     * @param nanos the time taken to paint in nanoseconds
+     */
+    public void recordPaint(long nanos) {
+        paintTimes.record(nanos);
+        if (PAINT_TYPE.isEnabled()) {
+            PaintEvent event = new PaintEvent();
+            event.paintTime = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records the time from a key press to the frame showing it.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void recordInputLatency(long nanos) {
+        inputLatencies.record(nanos);
+        if (INPUT_TYPE.isEnabled()) {
+            InputLatencyEvent event = new InputLatencyEvent();
+            event.latency = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records the time from a key press to the tick applying it.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void recordInputToTick(long nanos) {
+        inputTickLatencies.record(nanos);
+        if (INPUT_TICK_TYPE.isEnabled()) {
+            InputToTickEvent event = new InputToTickEvent();
+            event.latency = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records the number of draws taken to place a hunt.
+     *
+     * @param attempts the number of draws
+     */
+    public void recordSpawnAttempts(int attempts) {
+        spawnAttempts.record(attempts);
+        if (SPAWN_TYPE.isEnabled()) {
+            HuntSpawnEvent event = new HuntSpawnEvent();
+            event.attempts = attempts;
+            event.commit();
+        }
+    }
+
+    /**
+     * Getter for the tick durations.
+     *
+     * @return the histogram of tick times in nanoseconds
+     */
+    public LatencyHistogram getTickTimes() {
+        return tickTimes;
+    }
+
+    /**
+     * Getter for the paint durations.
+     *
+     * @return the histogram of paint times in nanoseconds
+     */
+    public LatencyHistogram getPaintTimes() {
+        return paintTimes;
+    }
+
+    /**
+     * Getter for the input to display latencies.
+     *
+     * @return the histogram of latencies in nanoseconds
+     */
+    public LatencyHistogram getInputLatencies() {
+        return inputLatencies;
+    }
+
+    /**
+     * Getter for the input to tick latencies.
+     *
+     * @return the histogram of latencies in nanoseconds
+     */
+    public LatencyHistogram getInputTickLatencies() {
+        return inputTickLatencies;
+    }
+
+    /**
+     * Getter for the hunt placement draws.
+     *
+     * @return the histogram of draws per placement
+     */
+    public LatencyHistogram getSpawnAttempts() {
+        return spawnAttempts;
+    }
+
+    /**
+     * Flight Recorder event for one game tick.
+     */
+    @Name("SnakeHunt.Tick")
+    @Label("Tick")
+    @Category("Snake Hunt")
+    @Description("Time taken to move the snake and apply the game rules")
+    static class TickEvent extends Event {
+
+        @Label("Tick Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long tickTime;
+    }
+
+    /**
+     * Flight Recorder event for one paint of the game screen.
+     */
+    @Name("SnakeHunt.Paint")
+    @Label("Paint")
+    @Category("Snake Hunt")
+    @Description("Time taken to draw the game screen or a dirty region of it")
+    static class PaintEvent extends Event {
+
+        @Label("Paint Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long paintTime;
+    }
+
+    /**
+     * Flight Recorder event for the delay between a key press and its display.
+     */
+    @Name("SnakeHunt.InputLatency")
+    @Label("Input Latency")
+    @Category("Snake Hunt")
+    @Description("Time from a direction key press to the first frame showing the turn")
+    static class InputLatencyEvent extends Event {
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    }
+
+    /**
+     * Flight Recorder event for the delay between a key press and the tick
+     * applying it.
+     */
+    @Name("SnakeHunt.InputToTick")
+    @Label("Input To Tick")
+    @Category("Snake Hunt")
+    @Description("Time from a direction key press to the tick turning the snake")
+    static class InputToTickEvent extends Event {
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    }
+
+    /**
+     * Flight Recorder event for the placement of a new hunt.
+     */
+    @Name("SnakeHunt.HuntSpawn")
+    @Label("Hunt Spawn")
+    @Category("Snake Hunt")
+    @Description("Number of random draws taken to place a new hunt")
+    static class HuntSpawnEvent extends Event {
+
+        @Label("Attempts")
+        int attempts;
+    }
+}
@@ -0,0 +1,77 @@
+package SnakeHunt;
+
+import java.util.Random;
+
+/**
+ * GameRandom is the random source of GameEngine. It produces exactly the
+ * same numbers as java.util.Random for the same seed, so replays recorded
+ * with either stay valid, but its 48-bit state can be read and set. That is
+ * what lets a snapshot resume a game with the hunts it would have had.
+ *
+ * It is meant for one thread: unlike Random, the state is a plain field
+ * and not updated atomically. The cached value of nextGaussian() is not
+ * part of the state, and GameEngine never uses it.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class GameRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long MULTIPLIER = 0x5DEECE66DL; // Constants of the generator used by Random
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state; // Current 48-bit state, set by setSeed() from the Random constructor
+
+    /**
+     * Constructor to create a random source with a seed.
+     *
+     * @param seed the seed
+     */
+    public GameRandom(long seed) {
+        super(seed); // Calls setSeed()
+    }
+
+    /**
+     * Sets the seed the same way Random does.
+     *
+     * @param seed the seed
+     */
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed); // Clears the cached Gaussian
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    /**
+     * Generates the next random bits the same way Random does.
+     *
+     * @param bits the number of random bits
+     * @return the random bits
+     */
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    /**
+     * Getter for the state of the generator.
+     *
+     * @return the 48-bit state
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Setter for the state of the generator, as returned by getState().
+     *
+     * @param state the 48-bit state
+     */
+    public void setState(long state) {
+        this.state = state & MASK;
+    }
+}
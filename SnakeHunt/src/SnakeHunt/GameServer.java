@@ -0,0 +1,616 @@
+package SnakeHunt;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * GameServer runs an Arena for many players over TCP. The server is the
+ * authority: it plays every tick itself and clients only send the direction
+ * they want and draw what they are told. The messages are described in
+ * Protocol. Run it from the command line:
+ *
+ * <pre>
+ * java -cp SnakeHunt.jar SnakeHunt.GameServer --port 7777 --snakes 1024
+ * </pre>
+ *
+ * Options are --port, --snakes, --food, --board (width x height, such as
+ * 512x512), --tick-ms, --seed and --threads (of the arena pool).
+ *
+ * A single thread owns every socket. It waits on a selector until the next
+ * tick is due, reading all the inputs that arrived meanwhile, so they are
+ * taken in one batch per tick. At the deadline it plays the tick, encodes
+ * one TICK frame, copies it into the output buffer of every client and
+ * writes as much as each socket takes without blocking; the rest goes out
+ * when the socket becomes writable. A client whose buffer fills up is too
+ * slow to follow the game and is disconnected, so one slow client never
+ * holds up the others or makes the server buffer without limit. The frame
+ * and the client buffers are sized when the server is created, from the
+ * STATE frame of the first round and the largest TICK frame the arena can
+ * produce, so a large arena never overflows them.
+ *
+ * Each snake is a slot. A client joining takes a free slot and steers that
+ * snake; the other snakes are steered by a simple bot so the arena stays
+ * busy, and clients joining when every slot is taken watch as spectators.
+ * A round ends when at most one snake is left, and the next one starts with
+ * a full STATE frame to everyone.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class GameServer {
+
+    private static final int OUTPUT_CAPACITY = 64 * 1024; // Fewest bytes buffered for a client before it is dropped
+    private static final int BUFFERED_FRAMES = 4; // Largest frames a client may fall behind by before it is dropped
+    private static final int MAX_CATCH_UP_TICKS = 5; // Ticks played late in a row before the backlog is dropped
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int width;       // Board width in cells
+    private final int height;      // Board height in cells
+    private final int snakeCount;  // Number of snakes, and of player slots
+    private final int foodCount;   // Pieces of food on the board
+    private final long seed;       // Seed of the first round
+    private final long tickNanos;  // Tick period
+    private final ForkJoinPool pool; // Runs the arena ticks
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final List<Client> clients = new ArrayList<>(); // Connected clients
+    private final Client[] owners;     // Client steering each snake, null for a bot
+    private final Direction[] inputs;  // Last direction received for each snake, null if none
+    private final boolean[] wasAlive;  // Snakes alive before the tick being encoded
+    private Arena arena;               // Arena of the current round
+    private int round;                 // Number of the current round
+    private final int outputCapacity;  // Bytes buffered for a client before it is dropped
+    private ByteBuffer frame;          // Frame encoded once for every client
+    private volatile boolean running;  // False once stop() was called
+
+    // Statistics, read by other threads
+    private volatile int connected;         // Clients connected now
+    private volatile long ticksPlayed;      // Ticks played since start
+    private volatile long bytesSent;        // Bytes written to sockets
+    private volatile long inputsReceived;   // INPUT frames read
+    private volatile long clientsDropped;   // Clients disconnected for being too slow
+    private final LatencyHistogram tickTimes = new LatencyHistogram(); // Nanoseconds to play and send a tick
+
+    /**
+     * Constructor to create a server listening on a port. The server starts
+     * serving when run() is called.
+     *
+     * @param port the TCP port, 0 for any free port
+     * @param width the board width in cells
+     * @param height the board height in cells
+     * @param snakeCount the number of snakes
+     * @param foodCount the number of pieces of food
+     * @param seed the seed of the first round
+     * @param tickNanos the tick period in nanoseconds
+     * @param pool the pool running the arena ticks
+     * @throws IOException if the port cannot be opened
+     */
+    public GameServer(int port, int width, int height, int snakeCount, int foodCount, long seed, long tickNanos,
+            ForkJoinPool pool) throws IOException {
+        this.width = width;
+        this.height = height;
+        this.snakeCount = snakeCount;
+        this.foodCount = foodCount;
+        this.seed = seed;
+        this.tickNanos = tickNanos;
+        this.pool = pool;
+        this.owners = new Client[snakeCount];
+        this.inputs = new Direction[snakeCount];
+        this.wasAlive = new boolean[snakeCount];
+        this.arena = new Arena(width, height, snakeCount, foodCount, seed, pool, this::steer);
+        long frameBytes = Math.max(Protocol.stateSize(arena), Protocol.maxTickSize(snakeCount, foodCount));
+        if (frameBytes > Integer.MAX_VALUE / BUFFERED_FRAMES) {
+            throw new IllegalArgumentException("Arena too large to send: " + snakeCount + " snakes, " + foodCount
+                    + " food");
+        }
+        this.frame = ByteBuffer.allocate((int) frameBytes);
+        this.outputCapacity = Math.max(OUTPUT_CAPACITY, BUFFERED_FRAMES * (int) frameBytes);
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Getter for the port the server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Serves clients and plays ticks until stop() is called. Runs on the
+     * calling thread.
+     *
+     * @throws IOException if the selector fails
+     */
+    public void run() throws IOException {
+        running = true;
+        long nextTick = System.nanoTime() + tickNanos;
+        try {
+            while (running) {
+                long wait = nextTick - System.nanoTime();
+                if (wait <= 0) {
+                    tick();
+                    nextTick += tickNanos;
+                    if (System.nanoTime() - nextTick > MAX_CATCH_UP_TICKS * tickNanos) {
+                        nextTick = System.nanoTime() + tickNanos; // Too far behind, skip the missed ticks
+                    }
+                    continue;
+                }
+                if (wait < 1_000_000L) {
+                    selector.selectNow(); // Less than the select timeout resolution left
+                } else {
+                    selector.select(wait / 1_000_000L);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+            }
+        } finally {
+            for (Client client : new ArrayList<>(clients)) {
+                disconnect(client);
+            }
+            serverChannel.close();
+            selector.close();
+        }
+    }
+
+    /**
+     * Asks run() to return. Can be called from any thread.
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Handles one ready key: accepts a client, reads its inputs or sends
+     * what is left in its buffer.
+     */
+    private void handle(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        Client client = (Client) key.attachment();
+        try {
+            if (key.isReadable()) {
+                read(client);
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush(client);
+            }
+        } catch (IOException e) {
+            disconnect(client); // Closed or reset by the peer
+        }
+    }
+
+    /**
+     * Accepts every pending connection, gives each a slot and sends it the
+     * welcome and the current state.
+     */
+    private void accept() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+                if (channel == null) {
+                    return;
+                }
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } catch (IOException e) {
+                return; // The connection went away before it was set up
+            }
+            Client client = new Client(channel, outputCapacity);
+            try {
+                client.key = channel.register(selector, SelectionKey.OP_READ, client);
+            } catch (IOException e) {
+                closeQuietly(channel);
+                continue;
+            }
+            clients.add(client);
+            connected = clients.size();
+            client.slot = freeSlot();
+            if (client.slot >= 0) {
+                owners[client.slot] = client;
+                inputs[client.slot] = null;
+            }
+            Protocol.writeWelcome(client.out, client.slot, width, height, snakeCount, tickNanos);
+            sendState(client);
+        }
+    }
+
+    /**
+     * Finds a snake not steered by a client, preferring living ones.
+     *
+     * @return the snake, or -1 if every snake has a client
+     */
+    private int freeSlot() {
+        int dead = -1;
+        for (int i = 0; i < snakeCount; i++) {
+            if (owners[i] == null) {
+                if (arena.isAlive(i)) {
+                    return i;
+                }
+                if (dead < 0) {
+                    dead = i;
+                }
+            }
+        }
+        return dead;
+    }
+
+    /**
+     * Reads the available bytes of a client and takes its INPUT frames.
+     */
+    private void read(Client client) throws IOException {
+        ByteBuffer in = client.in;
+        if (client.channel.read(in) < 0) {
+            disconnect(client);
+            return;
+        }
+        in.flip();
+        while (in.remaining() >= Protocol.HEADER_BYTES) {
+            int length = in.getInt(in.position());
+            if (length < 1 || length > Protocol.MAX_CLIENT_FRAME) {
+                disconnect(client); // Not a client of this protocol
+                return;
+            }
+            if (in.remaining() < Protocol.HEADER_BYTES + length) {
+                break; // Rest of the frame not arrived yet
+            }
+            int end = in.position() + Protocol.HEADER_BYTES + length;
+            in.position(in.position() + Protocol.HEADER_BYTES);
+            if (in.get() == Protocol.INPUT && length == 2) {
+                int ordinal = in.get();
+                if (client.slot >= 0 && ordinal >= 0 && ordinal < DIRECTIONS.length) {
+                    inputs[client.slot] = DIRECTIONS[ordinal];
+                }
+                inputsReceived++;
+            }
+            in.position(end); // Unknown frames are skipped
+        }
+        in.compact();
+    }
+
+    /**
+     * Plays one tick, or starts the next round, and sends the result to
+     * every client.
+     */
+    private void tick() {
+        long start = System.nanoTime();
+        int aliveBefore = arena.getAliveCount();
+        if (aliveBefore <= 1 && (snakeCount > 1 || aliveBefore == 0)) {
+            newRound();
+        } else {
+            for (int i = 0; i < snakeCount; i++) {
+                wasAlive[i] = arena.isAlive(i);
+            }
+            arena.step();
+            Arrays.fill(inputs, null); // Inputs count for one tick only
+            int size = Protocol.tickSize(arena, aliveBefore, arena.getSpawnedFrom());
+            if (frame.capacity() < size) {
+                frame = ByteBuffer.allocate(size); // Not expected, the frame is sized for the largest tick
+            }
+            frame.clear();
+            Protocol.writeTick(frame, arena, wasAlive, aliveBefore, arena.getSpawnedFrom(), start);
+            broadcast(frame.array(), frame.position());
+        }
+        ticksPlayed++;
+        tickTimes.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Replaces the arena with a new one and sends its state to every client.
+     * Clients keep their slots.
+     */
+    private void newRound() {
+        round++;
+        arena = new Arena(width, height, snakeCount, foodCount, seed + round, pool, this::steer);
+        Arrays.fill(inputs, null);
+        int size = Protocol.stateSize(arena);
+        if (frame.capacity() < size) {
+            frame = ByteBuffer.allocate(size);
+        }
+        frame.clear();
+        Protocol.writeState(frame, arena, round);
+        broadcast(frame.array(), frame.position());
+    }
+
+    /**
+     * Sends the state of the arena to one client, replacing its output
+     * buffer with a larger one if the state does not fit.
+     */
+    private void sendState(Client client) {
+        int size = Protocol.stateSize(arena);
+        if (client.out.remaining() < size) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(client.out.position() + size + outputCapacity);
+            client.out.flip();
+            larger.put(client.out);
+            client.out = larger;
+        }
+        Protocol.writeState(client.out, arena, round);
+        try {
+            flush(client);
+        } catch (IOException e) {
+            disconnect(client);
+        }
+    }
+
+    /**
+     * Appends a frame to the output of every client and writes what the
+     * sockets take. Clients with no room left are disconnected.
+     */
+    private void broadcast(byte[] bytes, int length) {
+        for (int c = clients.size() - 1; c >= 0; c--) { // Backwards, since clients may be removed
+            Client client = clients.get(c);
+            if (client.out.remaining() < length) {
+                clientsDropped++;
+                disconnect(client);
+                continue;
+            }
+            client.out.put(bytes, 0, length);
+            try {
+                flush(client);
+            } catch (IOException e) {
+                disconnect(client);
+            }
+        }
+    }
+
+    /**
+     * Writes as much of the output of a client as its socket takes, and
+     * watches for the socket becoming writable while anything is left.
+     */
+    private void flush(Client client) throws IOException {
+        ByteBuffer out = client.out;
+        out.flip();
+        bytesSent += client.channel.write(out);
+        boolean pending = out.hasRemaining();
+        out.compact();
+        if (client.key.isValid()) {
+            client.key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Closes the connection of a client and frees its slot for a bot.
+     */
+    private void disconnect(Client client) {
+        if (!clients.remove(client)) {
+            return;
+        }
+        connected = clients.size();
+        if (client.slot >= 0) {
+            owners[client.slot] = null;
+            inputs[client.slot] = null;
+        }
+        client.key.cancel();
+        closeQuietly(client.channel);
+    }
+
+    /**
+     * Closes a channel, ignoring errors.
+     */
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing left to do with it
+        }
+    }
+
+    /**
+     * Chooses the direction of a snake: the input of its client, or the bot
+     * for snakes without one. Called from the arena pool, which only reads
+     * the arrays written by the server thread before the tick.
+     */
+    private Direction steer(Arena arena, int snake) {
+        if (owners[snake] != null) {
+            return inputs[snake];
+        }
+        return bot(arena, snake);
+    }
+
+    /**
+     * Keeps going straight while the next cell is free, otherwise turns to
+     * the first free neighbouring cell.
+     */
+    static Direction bot(Arena arena, int i) {
+        Board board = arena.getBoard();
+        Snake snake = arena.getSnake(i);
+        int head = snake.getHead();
+        Direction turn = (i + arena.getTick()) % 7 == 0 ? snake.direction.right() : snake.direction; // Wander a little
+        for (int k = 0; k < DIRECTIONS.length; k++) {
+            Direction direction = k == 0 ? turn : DIRECTIONS[(turn.ordinal() + k) % DIRECTIONS.length];
+            int x = board.cellX(head) + direction.getDx();
+            int y = board.cellY(head) + direction.getDy();
+            if (direction != snake.direction.opposite() && board.contains(x, y)
+                    && !board.isOccupied(board.cellOf(x, y))) {
+                return direction;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Getter for the number of connected clients.
+     *
+     * @return the number of clients
+     */
+    public int getConnectedCount() {
+        return connected;
+    }
+
+    /**
+     * Getter for the number of ticks played, rounds started included.
+     *
+     * @return the number of ticks
+     */
+    public long getTicksPlayed() {
+        return ticksPlayed;
+    }
+
+    /**
+     * Getter for the bytes written to all sockets.
+     *
+     * @return the number of bytes
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Getter for the number of INPUT frames received.
+     *
+     * @return the number of inputs
+     */
+    public long getInputsReceived() {
+        return inputsReceived;
+    }
+
+    /**
+     * Getter for the number of clients disconnected for being too slow.
+     *
+     * @return the number of clients
+     */
+    public long getClientsDropped() {
+        return clientsDropped;
+    }
+
+    /**
+     * Getter for the times taken to play a tick and hand it to every client.
+     *
+     * @return the histogram of tick times in nanoseconds
+     */
+    public LatencyHistogram getTickTimes() {
+        return tickTimes;
+    }
+
+    /**
+     * Connection of one client.
+     */
+    private static final class Client {
+
+        final SocketChannel channel; // Socket of the client
+        final ByteBuffer in = ByteBuffer.allocate(4 * Protocol.MAX_CLIENT_FRAME); // Bytes read, not yet handled
+        ByteBuffer out;   // Frames not yet written, in write mode
+        SelectionKey key; // Registration with the selector
+        int slot;         // Snake steered by the client, -1 for a spectator
+
+        Client(SocketChannel channel, int capacity) {
+            this.channel = channel;
+            this.out = ByteBuffer.allocateDirect(capacity);
+        }
+    }
+
+    /**
+     * Parses the options and serves until the process is stopped, printing
+     * the statistics every few seconds.
+     *
+     * @param args the command-line options
+     * @throws IOException if the port cannot be opened
+     */
+    public static void main(String[] args) throws IOException {
+        int port = 7777;
+        int snakes = 256;
+        int food = -1; // Default depends on the snake count
+        int width = 256;
+        int height = 256;
+        long tickMillis = 100;
+        long seed = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value for " + option);
+                }
+                String value = args[++i];
+                switch (option) {
+                    case "--port":
+                        port = Integer.parseInt(value);
+                        break;
+                    case "--snakes":
+                        snakes = Integer.parseInt(value);
+                        break;
+                    case "--food":
+                        food = Integer.parseInt(value);
+                        break;
+                    case "--board":
+                        int separator = value.indexOf('x');
+                        width = Integer.parseInt(value.substring(0, separator));
+                        height = Integer.parseInt(value.substring(separator + 1));
+                        break;
+                    case "--tick-ms":
+                        tickMillis = Long.parseLong(value);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + option);
+                }
+            }
+            if (snakes < 1 || tickMillis < 1 || threads < 1) {
+                throw new IllegalArgumentException("Snakes, tick and threads must be positive");
+            }
+            if (food < 0) {
+                food = snakes;
+            }
+            new Arena(width, height, snakes, food, seed, ForkJoinPool.commonPool(), GameServer::bot); // Checks the sizes
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: GameServer [--port N] [--snakes N] [--food N] [--board WxH] [--tick-ms N]"
+                    + " [--seed N] [--threads N]");
+            System.exit(2);
+            return;
+        }
+
+        GameServer server = new GameServer(port, width, height, snakes, food, seed, tickMillis * 1_000_000L,
+                new ForkJoinPool(threads));
+        Thread reporter = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                LatencyHistogram times = server.getTickTimes();
+                System.out.printf("clients %d, ticks %d, sent %.1f MB, inputs %d, dropped %d,"
+                        + " tick p50 %.0f us p99 %.0f us%n", server.getConnectedCount(), server.getTicksPlayed(),
+                        server.getBytesSent() / 1e6, server.getInputsReceived(), server.getClientsDropped(),
+                        times.getPercentile(50) / 1000.0, times.getPercentile(99) / 1000.0);
+            }
+        }, "Snake Hunt server stats");
+        reporter.setDaemon(true);
+        reporter.start();
+        System.out.printf("Serving %d snakes on a %dx%d board on port %d%n", snakes, width, height, server.getPort());
+        server.run();
+    }
+}
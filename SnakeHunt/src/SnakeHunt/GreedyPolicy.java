@@ -0,0 +1,44 @@
+package SnakeHunt;
+
+/**
+ * GreedyPolicy heads straight for the hunt, closing the larger distance
+ * first, and turns aside only when the direct move would lose the game at
+ * once. It does not look further ahead, so it can trap itself in its own
+ * body.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class GreedyPolicy implements Policy {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Override
+    public Direction choose(GameEngine engine) {
+        Board board = engine.getBoard();
+        Snake snake = engine.getSnake();
+        Hunt hunt = engine.getHunt();
+        int dx = hunt.getX() - board.cellX(snake.getHead());
+        int dy = hunt.getY() - board.cellY(snake.getHead());
+        Direction horizontal = dx < 0 ? Direction.LEFT : Direction.RIGHT;
+        Direction vertical = dy < 0 ? Direction.UP : Direction.DOWN;
+
+        // Try the axis with the larger distance first, then the other one
+        Direction first = Math.abs(dx) >= Math.abs(dy) ? horizontal : vertical;
+        Direction second = first == horizontal ? vertical : horizontal;
+        if ((first == horizontal ? dx : dy) != 0 && first != snake.direction.opposite()
+                && Policy.isSafe(engine, first)) {
+            return first;
+        }
+        if ((second == horizontal ? dx : dy) != 0 && second != snake.direction.opposite()
+                && Policy.isSafe(engine, second)) {
+            return second;
+        }
+        for (Direction direction : DIRECTIONS) {
+            if (direction != snake.direction.opposite() && Policy.isSafe(engine, direction)) {
+                return direction;
+            }
+        }
+        return null; // Trapped, every move loses
+    }
+}
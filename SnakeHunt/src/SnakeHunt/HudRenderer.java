@@ -0,0 +1,178 @@
+package SnakeHunt;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * HudRenderer draws the score, the level and the timer over the board
+ * during a level. Each of the two lines is kept as a transparent image and
+ * rasterized again only when its value changes: the score line when a hunt
+ * is eaten or a level starts, the timer once per second. Every other frame
+ * copies the part of the two images covered by text, so drawing the HUD
+ * allocates nothing. Drawing the text itself would not do: switching
+ * between the two fonts on every frame makes Java2D rebuild its font data
+ * each time.
+ *
+ * The text is written digit by digit into char arrays rather than with
+ * string concatenation or String.format.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class HudRenderer {
+
+    private static final char[] SCORE_LABEL = "Score: ".toCharArray();
+    private static final char[] LEVEL_LABEL = "  Level: ".toCharArray();
+    private static final char[] TIME_LABEL = "Time: ".toCharArray();
+    private static final int TIMER_X = 10;        // Left edge of the timer text
+    private static final int TIMER_BASELINE = 30; // Baseline of the timer text
+
+    private final Font scoreFont;  // Font of the score line
+    private final Font timerFont;  // Font of the timer
+    private final BufferedImage scoreImage; // Band at the top of the screen holding the score line
+    private final BufferedImage timerImage; // Top-left corner holding the timer
+    private final Rectangle scoreBounds = new Rectangle(); // Part of scoreImage covered by text
+    private final Rectangle timerBounds = new Rectangle(); // Part of timerImage covered by text
+    private final char[] text = new char[48]; // Line being rasterized
+    private int shownScore = -1;    // Score in scoreImage, -1 before the first draw
+    private int shownLevel = -1;    // Level in scoreImage
+    private long shownSeconds = -1; // Elapsed seconds in timerImage, -1 before the first draw
+    private int rasterCount;        // Number of times a line was rasterized
+
+    /**
+     * Constructor to create the HUD images.
+     *
+     * @param screenWidth the width of the screen in pixels, the score line
+     * is centered on it
+     * @param scoreHeight the height of the band holding the score line
+     * @param timerWidth the width of the corner holding the timer
+     * @param timerHeight the height of the corner holding the timer
+     * @param scoreFont the font of the score line
+     * @param timerFont the font of the timer
+     */
+    public HudRenderer(int screenWidth, int scoreHeight, int timerWidth, int timerHeight, Font scoreFont,
+            Font timerFont) {
+        this.scoreFont = scoreFont;
+        this.timerFont = timerFont;
+        // Premultiplied alpha is the quickest transparent image to copy
+        this.scoreImage = new BufferedImage(screenWidth, scoreHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+        this.timerImage = new BufferedImage(timerWidth, timerHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    /**
+     * Draws the score line and the timer in white, rasterizing again those
+     * whose value changed since the last call.
+     *
+     * @param g the Graphics object to draw on, in screen pixels
+     * @param score the hunts eaten
+     * @param level the level played
+     * @param elapsedNanos the time played in the level
+     */
+    public void draw(Graphics g, int score, int level, long elapsedNanos) {
+        if (score != shownScore || level != shownLevel) {
+            shownScore = score;
+            shownLevel = level;
+            int length = append(text, SCORE_LABEL, 0);
+            length = appendNumber(text, score, length);
+            length = append(text, LEVEL_LABEL, length);
+            length = appendNumber(text, level, length);
+            rasterize(scoreImage, scoreFont, length, -1, scoreFont.getSize(), scoreBounds); // Baseline one font size down
+        }
+        long seconds = elapsedNanos / 1_000_000_000L;
+        if (seconds != shownSeconds) {
+            shownSeconds = seconds;
+            int length = append(text, TIME_LABEL, 0);
+            length = appendTwoDigits(text, (int) (seconds / 60 % 60), length);
+            text[length++] = ':';
+            length = appendTwoDigits(text, (int) (seconds % 60), length);
+            rasterize(timerImage, timerFont, length, TIMER_X, TIMER_BASELINE, timerBounds);
+        }
+        copy(g, scoreImage, scoreBounds);
+        copy(g, timerImage, timerBounds);
+    }
+
+    /**
+     * Clears an image and draws the first characters of the text into it
+     * in white, then records the part of the image the text covers.
+     *
+     * @param x the left edge of the text, or -1 to center it
+     */
+    private void rasterize(BufferedImage image, Font font, int length, int x, int baseline, Rectangle bounds) {
+        rasterCount++;
+        Graphics2D g = image.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.setComposite(AlphaComposite.SrcOver);
+        g.setColor(Color.WHITE);
+        g.setFont(font);
+        FontMetrics metrics = g.getFontMetrics();
+        int width = metrics.charsWidth(text, 0, length);
+        int left = x >= 0 ? x : (image.getWidth() - width) / 2;
+        g.drawChars(text, 0, length, left, baseline);
+        g.dispose();
+        int top = Math.max(0, baseline - metrics.getAscent());
+        int bottom = Math.min(image.getHeight(), baseline + metrics.getDescent());
+        bounds.setBounds(Math.max(0, left), top, Math.min(image.getWidth(), left + width) - Math.max(0, left),
+                bottom - top);
+    }
+
+    /**
+     * Copies the part of an image covered by text to the same place on the
+     * screen.
+     */
+    private static void copy(Graphics g, BufferedImage image, Rectangle bounds) {
+        int right = bounds.x + bounds.width;
+        int bottom = bounds.y + bounds.height;
+        g.drawImage(image, bounds.x, bounds.y, right, bottom, bounds.x, bounds.y, right, bottom, null);
+    }
+
+    /**
+     * Copies characters to a line at the given position.
+     *
+     * @return the position after them
+     */
+    private static int append(char[] text, char[] chars, int position) {
+        System.arraycopy(chars, 0, text, position, chars.length);
+        return position + chars.length;
+    }
+
+    /**
+     * Writes a non-negative number in decimal to a line at the given
+     * position.
+     *
+     * @return the position after it
+     */
+    private static int appendNumber(char[] text, int value, int position) {
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + digits;
+    }
+
+    /**
+     * Writes a number from 0 to 99 as two digits to a line at the given
+     * position.
+     *
+     * @return the position after it
+     */
+    private static int appendTwoDigits(char[] text, int value, int position) {
+        text[position] = (char) ('0' + value / 10);
+        text[position + 1] = (char) ('0' + value % 10);
+        return position + 2;
+    }
+
+    /**
+     * Getter for the number of times the score line or the timer was
+     * rasterized.
+     *
+     * @return the number of rasterizations
+     */
+    public int getRasterCount() {
+        return rasterCount;
+    }
+}
@@ -1,91 +1,130 @@
 package SnakeHunt;
 
-import java.awt.*;
-import java.util.ArrayList;
 import java.util.Random;
 
 /**
- * Hunt holds the x and y coordinates for a hunt position on the map. The
- * hunt location is randomly generated and does not overlap with the snake.
+ * Hunt holds the cell index (x + y * width) of the hunt position on the board.
+ * The hunt location is drawn uniformly from the free cells of the board, so
+ * it never overlaps with the snake and takes a single draw. Boards too large
+ * for a free cell index draw random cells until one is free instead, and
+ * after MAX_DRAWS misses take the next free cell after the last draw.
  *
  * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
  * CE190616, Pham Gia Bao - CE191671
  */
 public class Hunt {
 
-    private int x; // x-coordinate of the hunt on the map
-    private int y; // y-coordinate of the hunt on the map
+    private static final int MAX_DRAWS = 64; // Draws on a board without free index before scanning
+
+    private int cell; // Cell index of the hunt on the board, -1 when the board is full
     private Snake snake; // Reference to the Snake object, used to avoid hunt spawning on snake
-    private Random random = new Random(); // Random object to generate random coordinates
+    private Random random; // Random object to generate random coordinates
+    private int spawnAttempts; // Number of draws taken by the last call to newHunt()
 
     /**
      * Constructor that takes a Snake object to avoid overlap. Calls newHunt()
      * to generate the initial position of the hunt.
+     *
+     * @param snake the snake the hunt must not spawn on
+     * @param random the source of random coordinates
      */
-    public Hunt(Snake snake) {
+    public Hunt(Snake snake, Random random) {
         this.snake = snake;
+        this.random = random;
         newHunt(); // Generate the hunt's initial position
     }
 
     /**
-     * Generates a new position for the hunt, ensuring it doesn't overlap with
-     * the snake. Loops until a position not on the snake is found.
+     * Constructor that restores a hunt at a known cell, as read from a
+     * snapshot, without drawing from the random source.
+     *
+     * @param snake the snake the hunt must not spawn on
+     * @param random the source of random coordinates
+     * @param cell the cell of the hunt, -1 if the board is full
      */
-    public void newHunt() {
-        boolean huntOnSnake;
+    Hunt(Snake snake, Random random, int cell) {
+        this.snake = snake;
+        this.random = random;
+        this.cell = cell;
+    }
 
+    /**
+     * Generates a new position for the hunt by picking one of the free cells
+     * of the board at random. When the snake covers the whole board there is
+     * nowhere left to go and the hunt is removed. The random source is only
+     * used through nextInt(), the same way on every board size, so a seed
+     * gives the same hunts every time.
+     *
+     * @return true if the hunt was placed, false if the board is full
+     */
+    public boolean newHunt() {
+        Board board = snake.getBoard();
+        if (board.getFreeCount() == 0) {
+            cell = -1; // No free cell left for the hunt
+            spawnAttempts = 0;
+            return false;
+        }
+        if (board.hasFreeIndex()) {
+            cell = board.getFreeCell(random.nextInt(board.getFreeCount()));
+            spawnAttempts = 1;
+            return true;
+        }
+        int cells = board.getWidth() * board.getHeight();
+        spawnAttempts = 0;
         do {
-            // Calculate random coordinates within the screen bounds, aligned to grid units
-            x = random.nextInt(Main.SCREEN_WIDTH / Map.UNIT_SIZE - 1) * Map.UNIT_SIZE;
-            y = random.nextInt(Main.SCREEN_HEIGHT / Map.UNIT_SIZE - 1) * Map.UNIT_SIZE;
+            cell = random.nextInt(cells);
+            spawnAttempts++;
+        } while (board.isOccupied(cell) && spawnAttempts < MAX_DRAWS);
+        if (board.isOccupied(cell)) {
+            cell = board.nextFreeCell(cell); // Nearly full board, so stop drawing
+        }
+        return true;
+    }
 
-            // Check if the new position overlaps with the snake's body
-            huntOnSnake = !checkHuntCordinate(snake.body);
-        } while (huntOnSnake); // Continue looping until a valid position is found
+    /**
+     * Getter for the number of random draws taken to place the hunt the last
+     * time newHunt() was called.
+     *
+     * @return the number of draws, 0 if the board was full
+     */
+    public int getSpawnAttempts() {
+        return spawnAttempts;
     }
 
     /**
-     * Checks if the hunt coordinates overlap with any segment of the snake.
+     * Checks if the hunt is on the board. It is only missing once the snake
+     * fills the whole board.
      *
-     * @param list the list of snake segments to check against
-     * @return true if the hunt coordinates are not on the snake, false
-     * otherwise
+     * @return true if the hunt has a position, false otherwise
      */
-    public boolean checkHuntCordinate(ArrayList<SnakeCoordinate> list) {
-        for (SnakeCoordinate point : list) {
-            // Return false if hunt's coordinates overlap with any snake segment
-            if (point.getX() == x && point.getY() == y) {
-                return false;
-            }
-        }
-        return true;
+    public boolean isPlaced() {
+        return cell >= 0;
     }
 
     /**
-     * Draws the hunt on the screen as a red oval.
+     * Getter for the cell of the hunt.
      *
-     * @param g the Graphics object used to draw the hunt
+     * @return the cell index, or -1 if the hunt is not placed
      */
-    public void draw(Graphics g) {
-        g.setColor(Color.RED); // Set color to red
-        g.fillOval(x, y, Map.UNIT_SIZE, Map.UNIT_SIZE); // Draw the hunt as a filled oval
+    public int getCell() {
+        return cell;
     }
 
     /**
      * Getter for the x-coordinate of the hunt.
      *
-     * @return the x-coordinate
+     * @return the column of the hunt
      */
     public int getX() {
-        return x;
+        return snake.getBoard().cellX(cell);
     }
 
     /**
      * Getter for the y-coordinate of the hunt.
      *
-     * @return the y-coordinate
+     * @return the row of the hunt
      */
     public int getY() {
-        return y;
+        return snake.getBoard().cellY(cell);
     }
 }
@@ -0,0 +1,122 @@
+package SnakeHunt;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * InputQueue carries direction key presses from the event thread to the
+ * thread that ticks the game. Each press is stamped with System.nanoTime()
+ * when it is offered and kept in order, so two presses made within one tick
+ * are both played, one per tick, instead of the second overwriting the
+ * first. A quick U-turn of two presses therefore takes two ticks, as it
+ * must, rather than being lost or turning the snake into itself.
+ *
+ * The queue is a fixed ring of CAPACITY slots for one producer and one
+ * consumer. The producer writes a slot and then publishes the new tail; the
+ * consumer reads a slot and then publishes the new head. Neither ever waits
+ * for the other and nothing is allocated. When the ring is full, the new
+ * press is dropped and counted: a player cannot usefully queue more turns
+ * than that.
+ *
+ * take() hands out one direction change per tick, checked against the
+ * direction the snake has at that tick: presses that would reverse the
+ * snake or keep its direction are skipped.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class InputQueue {
+
+    /**
+     * Number of presses the queue holds, a power of two.
+     */
+    public static final int CAPACITY = 16;
+
+    private static final int MASK = CAPACITY - 1;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final byte[] directions = new byte[CAPACITY]; // Direction ordinal of each slot
+    private final long[] stamps = new long[CAPACITY];     // System.nanoTime() of each press
+    private final AtomicLong head = new AtomicLong();  // Next slot to read, written by the consumer
+    private final AtomicLong tail = new AtomicLong();  // Next slot to write, written by the producer
+    private long takenStamp;      // Stamp of the press returned by the last take(), consumer only
+    private volatile long dropped; // Presses dropped because the queue was full, producer only
+
+    /**
+     * Adds a press to the queue. Called by the producer only.
+     *
+     * @param direction the direction pressed
+     * @param nanos the time of the press, from System.nanoTime()
+     * @return false if the queue was full and the press was dropped
+     */
+    public boolean offer(Direction direction, long nanos) {
+        long t = tail.get();
+        if (t - head.get() == CAPACITY) {
+            dropped++; // Single writer, so no lost update
+            return false;
+        }
+        int slot = (int) t & MASK;
+        directions[slot] = (byte) direction.ordinal();
+        stamps[slot] = nanos;
+        tail.lazySet(t + 1); // Ordered after the slot writes, which the consumer then sees
+        return true;
+    }
+
+    /**
+     * Removes presses up to the first one that turns a snake going in the
+     * given direction, and returns it. Called by the consumer only.
+     *
+     * @param current the direction of the snake before the tick
+     * @return the new direction, or null if no queued press turns the snake
+     */
+    public Direction take(Direction current) {
+        long h = head.get();
+        long t = tail.get();
+        Direction taken = null;
+        while (h != t && taken == null) {
+            int slot = (int) h & MASK;
+            Direction direction = DIRECTIONS[directions[slot]];
+            if (direction != current && direction != current.opposite()) {
+                taken = direction;
+                takenStamp = stamps[slot];
+            }
+            h++;
+        }
+        head.lazySet(h); // Frees the slots read for the producer
+        return taken;
+    }
+
+    /**
+     * Getter for the time of the press returned by the last take().
+     *
+     * @return the time from System.nanoTime()
+     */
+    public long getTakenStamp() {
+        return takenStamp;
+    }
+
+    /**
+     * Drops every queued press, for example when a level starts. Called
+     * while the game is not ticking.
+     */
+    public void clear() {
+        head.lazySet(tail.get());
+    }
+
+    /**
+     * Getter for the number of presses waiting.
+     *
+     * @return the number of presses, from 0 to CAPACITY
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * Getter for the number of presses dropped because the queue was full.
+     *
+     * @return the number of presses
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+}
@@ -0,0 +1,131 @@
+package SnakeHunt;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram counts recorded values in buckets whose width grows with
+ * the value, so it covers nanoseconds up to hours in a fixed array with a
+ * relative error of at most one eighth. Recording is lock-free and allocates
+ * nothing, so it can be called from the tick and paint paths on any thread,
+ * and percentiles can be read from another thread meanwhile.
+ *
+ * Values below 8 have a bucket each. Above that, every power of two is split
+ * into 8 buckets of equal width.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;                // Each power of two is split into 2^SUB_BITS buckets
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS; // Enough for any positive long
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS); // Number of values in each bucket
+    private final AtomicLong count = new AtomicLong(); // Number of recorded values
+    private final AtomicLong max = new AtomicLong();   // Largest recorded value
+
+    /**
+     * Records one value. Negative values count as 0.
+     *
+     * @param value the value to record, such as a duration in nanoseconds
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get(); // Another thread raised the max meanwhile
+        }
+    }
+
+    /**
+     * Adds every value recorded by another histogram to this one. The other
+     * histogram should not be recording meanwhile.
+     *
+     * @param other the histogram to add
+     */
+    public void add(LatencyHistogram other) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            long n = other.counts.get(bucket);
+            if (n != 0) {
+                counts.addAndGet(bucket, n);
+            }
+        }
+        count.addAndGet(other.count.get());
+        long otherMax = other.max.get();
+        long current = max.get();
+        while (otherMax > current && !max.compareAndSet(current, otherMax)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Getter for the number of recorded values.
+     *
+     * @return the number of values
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Getter for the largest recorded value.
+     *
+     * @return the maximum, 0 when nothing was recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Computes a percentile of the recorded values. The result is the upper
+     * edge of the bucket holding the percentile, never above the maximum.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the value at the percentile, 0 when nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperEdge(bucket), max.get());
+            }
+        }
+        return max.get(); // Values recorded while reading were not all counted yet
+    }
+
+    /**
+     * Finds the bucket of a value.
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Computes the largest value falling into a bucket.
+     */
+    private static long upperEdge(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1; // Width of the bucket is 2^shift
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
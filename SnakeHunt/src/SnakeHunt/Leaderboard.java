@@ -0,0 +1,458 @@
+package SnakeHunt;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leaderboard keeps the result of every level played in a local file and
+ * the best runs of each level in memory.
+ *
+ * The file is an append-only log of fixed-size records, memory-mapped, so
+ * adding a run writes 32 bytes into the mapping and bumps the record count
+ * in the header; the file grows by doubling. The count is written after the
+ * record, so a crash loses at most the run being written. When the leaderboard
+ * opens, the whole log is scanned once to rebuild the index: for each level,
+ * the INDEX_SIZE best runs in rank order. Most records of a long log are
+ * rejected by a single comparison with the last entry, so millions of runs
+ * load in well under a second. Once the log holds compactAt records, it is
+ * compacted: rewritten in place, through the mapping, with only the indexed
+ * runs, which are the only ones a query can return. The file keeps its size
+ * and the space after the kept runs takes new ones. The count is written
+ * last here too; a crash while the runs are rewritten leaves some of them
+ * twice in the log, and loading skips the copies.
+ *
+ * All file work happens on one background thread, in the order it was
+ * asked for. Recording a run only queues it, so it never blocks the caller,
+ * and queries read an index published after each change, so they never wait
+ * for the thread either.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class Leaderboard implements AutoCloseable {
+
+    /**
+     * Number of best runs indexed for each level.
+     */
+    public static final int INDEX_SIZE = 100;
+
+    /**
+     * Default number of records after which the log is compacted.
+     */
+    public static final long DEFAULT_COMPACT_AT = 1_000_000L;
+
+    /**
+     * Ranks runs: the higher score first, then the shorter time, then the
+     * earlier date.
+     */
+    public static final Comparator<Entry> RANKING = Comparator.comparingInt((Entry e) -> -e.score)
+            .thenComparingLong(e -> e.elapsedMillis).thenComparingLong(e -> e.epochMillis);
+
+    private static final int MAGIC = 0x53484C42; // "SHLB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;  // Magic, version, record count, then unused
+    private static final int COUNT_OFFSET = 8;   // Position of the record count in the header
+    private static final int RECORD_BYTES = 32;  // Level, flags, unused, score, time, date, seed
+    private static final int MIN_MAPPED_BYTES = 1 << 20; // Size of a new log file
+
+    private final Path file;      // The log
+    private final long compactAt; // Records after which the log is compacted
+    private final ExecutorService worker; // The thread doing all file work
+    private FileChannel channel;  // Open log, null if it could not be opened
+    private MappedByteBuffer map; // Mapping of the whole log file
+    private long count;           // Records in the log
+    private final Entry[][] index = new Entry[GameEngine.MAX_LEVEL][INDEX_SIZE]; // Best runs of each level, worked on by the thread
+    private final int[] indexSizes = new int[GameEngine.MAX_LEVEL]; // Entries used in each row of index
+    private volatile Entry[][] published = new Entry[GameEngine.MAX_LEVEL][0]; // Copy of index read by queries
+    private volatile long publishedCount; // Copy of count read by queries
+
+    /**
+     * Constructor to open a leaderboard. The log is read on the background
+     * thread, so queries return nothing until it is loaded.
+     *
+     * @param file the log file, created if it does not exist
+     * @param compactAt the number of records after which the log is
+     * compacted, more than the runs indexed for all levels
+     */
+    public Leaderboard(Path file, long compactAt) {
+        if (compactAt <= (long) GameEngine.MAX_LEVEL * INDEX_SIZE) {
+            // The compacted log would be due for compaction again at every run
+            throw new IllegalArgumentException("Compaction must wait for more than "
+                    + GameEngine.MAX_LEVEL * INDEX_SIZE + " records: " + compactAt);
+        }
+        this.file = file;
+        this.compactAt = compactAt;
+        this.worker = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "Snake Hunt leaderboard");
+            thread.setDaemon(true); // Queued runs are written by close(), called on exit
+            return thread;
+        });
+        worker.execute(this::load);
+    }
+
+    /**
+     * Constructor to open a leaderboard compacted at DEFAULT_COMPACT_AT
+     * records.
+     *
+     * @param file the log file, created if it does not exist
+     */
+    public Leaderboard(Path file) {
+        this(file, DEFAULT_COMPACT_AT);
+    }
+
+    /**
+     * Opens or creates the log and rebuilds the index from it. Runs on the
+     * background thread.
+     */
+    private void load() {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            if (channel.size() == 0) {
+                remap(MIN_MAPPED_BYTES);
+                map.putInt(0, MAGIC);
+                map.putInt(4, VERSION);
+                map.putLong(COUNT_OFFSET, 0);
+            } else {
+                remap(channel.size());
+                if (channel.size() < HEADER_BYTES || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+                    throw new IOException("Not a Snake Hunt leaderboard");
+                }
+            }
+            count = Math.min(map.getLong(COUNT_OFFSET), (map.capacity() - HEADER_BYTES) / RECORD_BYTES);
+            for (long i = 0; i < count; i++) {
+                int position = (int) (HEADER_BYTES + i * RECORD_BYTES);
+                int level = map.get(position);
+                if (level >= 1 && level <= GameEngine.MAX_LEVEL) {
+                    int score = map.getInt(position + 4);
+                    long elapsedMillis = map.getLong(position + 8);
+                    long epochMillis = map.getLong(position + 16);
+                    if (beatsIndex(level, score, elapsedMillis, epochMillis)) { // Only build entries that go in
+                        insert(new Entry(level, score, elapsedMillis, epochMillis, (map.get(position + 1) & 1) != 0,
+                                map.getLong(position + 24)));
+                    }
+                }
+            }
+            publish();
+        } catch (IOException e) {
+            System.err.println("Leaderboard disabled, could not open " + file + ": " + e.getMessage());
+            closeChannel();
+        }
+    }
+
+    /**
+     * Maps the first bytes of the log file, growing the file if it is
+     * shorter.
+     */
+    private void remap(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Leaderboard log is full");
+        }
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * Records a run. Returns at once; the run is written by the background
+     * thread.
+     *
+     * @param level the level played, from 1 to GameEngine.MAX_LEVEL
+     * @param score the hunts eaten
+     * @param elapsedMillis the time played in milliseconds
+     * @param won true if the level was won
+     * @param seed the seed of the level
+     * @return a future completed once the run is in the log
+     */
+    public Future<?> record(int level, int score, long elapsedMillis, boolean won, long seed) {
+        if (level < 1 || level > GameEngine.MAX_LEVEL) {
+            throw new IllegalArgumentException("Level must be between 1 and " + GameEngine.MAX_LEVEL + ": " + level);
+        }
+        Entry entry = new Entry(level, score, elapsedMillis, System.currentTimeMillis(), won, seed);
+        return worker.submit(() -> append(entry));
+    }
+
+    /**
+     * Appends a run to the log, adds it to the index and compacts the log
+     * when it is due. Runs on the background thread.
+     */
+    private void append(Entry entry) {
+        if (channel == null) {
+            return; // The log could not be opened
+        }
+        try {
+            long end = HEADER_BYTES + (count + 1) * RECORD_BYTES;
+            if (end > map.capacity()) {
+                remap(Math.max(end, 2L * map.capacity()));
+            }
+            writeRecord((int) (end - RECORD_BYTES), entry);
+            map.putLong(COUNT_OFFSET, ++count); // After the record, so a torn write is never counted
+            if (beatsIndex(entry.level, entry.score, entry.elapsedMillis, entry.epochMillis)) {
+                insert(entry);
+            }
+            if (count >= compactAt) {
+                compactLog();
+            }
+            publish();
+        } catch (IOException e) {
+            System.err.println("Could not record the run in " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a run into the mapping as a record.
+     */
+    private void writeRecord(int position, Entry entry) {
+        map.put(position, (byte) entry.level);
+        map.put(position + 1, (byte) (entry.won ? 1 : 0));
+        map.putShort(position + 2, (short) 0);
+        map.putInt(position + 4, entry.score);
+        map.putLong(position + 8, entry.elapsedMillis);
+        map.putLong(position + 16, entry.epochMillis);
+        map.putLong(position + 24, entry.seed);
+    }
+
+    /**
+     * Checks if a run would enter the index of its level.
+     */
+    private boolean beatsIndex(int level, int score, long elapsedMillis, long epochMillis) {
+        int size = indexSizes[level - 1];
+        if (size < INDEX_SIZE) {
+            return true;
+        }
+        Entry last = index[level - 1][size - 1];
+        return score != last.score ? score > last.score
+                : elapsedMillis != last.elapsedMillis ? elapsedMillis < last.elapsedMillis
+                : epochMillis < last.epochMillis;
+    }
+
+    /**
+     * Inserts a run into the index of its level, in rank order, dropping the
+     * last entry if the row is full. A run already in the index, with the
+     * same rank and seed, is not inserted twice.
+     */
+    private void insert(Entry entry) {
+        Entry[] row = index[entry.level - 1];
+        int size = indexSizes[entry.level - 1];
+        int position = Arrays.binarySearch(row, 0, size, entry, RANKING);
+        if (position >= 0 && row[position].seed == entry.seed) {
+            return; // Copy left by a compaction that did not finish
+        }
+        if (position < 0) {
+            position = -position - 1;
+        }
+        int moved = Math.min(size, INDEX_SIZE - 1) - position;
+        System.arraycopy(row, position, row, position + 1, moved);
+        row[position] = entry;
+        indexSizes[entry.level - 1] = Math.min(size + 1, INDEX_SIZE);
+    }
+
+    /**
+     * Copies the index for the queries.
+     */
+    private void publish() {
+        Entry[][] copy = new Entry[GameEngine.MAX_LEVEL][];
+        for (int level = 0; level < GameEngine.MAX_LEVEL; level++) {
+            copy[level] = Arrays.copyOf(index[level], indexSizes[level]);
+        }
+        published = copy;
+        publishedCount = count;
+    }
+
+    /**
+     * Compacts the log now instead of waiting for compactAt records.
+     *
+     * @return a future completed once the log is compacted
+     */
+    public Future<?> compact() {
+        return worker.submit(() -> {
+            if (channel != null) {
+                compactLog();
+                publish();
+            }
+        });
+    }
+
+    /**
+     * Rewrites the log in place with only the indexed runs, then sets the
+     * count to them. The file stays open and mapped, which Windows needs: it
+     * does not let a mapped file be replaced. Runs on the background thread.
+     */
+    private void compactLog() {
+        int position = HEADER_BYTES;
+        for (int level = 0; level < GameEngine.MAX_LEVEL; level++) {
+            for (int i = 0; i < indexSizes[level]; i++, position += RECORD_BYTES) {
+                writeRecord(position, index[level][i]); // Held in memory, so overwriting its record loses nothing
+            }
+        }
+        map.force(); // The kept runs reach the disk before the count drops to them
+        count = (position - HEADER_BYTES) / RECORD_BYTES;
+        map.putLong(COUNT_OFFSET, count);
+        map.force();
+    }
+
+    /**
+     * Closes the log file, ignoring errors. The mapping goes away once it is
+     * garbage collected.
+     */
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing left to do with it
+            }
+        }
+        channel = null;
+    }
+
+    /**
+     * Getter for the best runs of a level, best first.
+     *
+     * @param level the level, from 1 to GameEngine.MAX_LEVEL
+     * @param k the number of runs wanted, at most INDEX_SIZE are returned
+     * @return the runs, fewer than k if fewer were recorded
+     */
+    public Entry[] top(int level, int k) {
+        Entry[] row = published[level - 1];
+        return Arrays.copyOf(row, Math.min(k, row.length));
+    }
+
+    /**
+     * Getter for the best run of a level.
+     *
+     * @param level the level, from 1 to GameEngine.MAX_LEVEL
+     * @return the run, or null if none was recorded
+     */
+    public Entry best(int level) {
+        Entry[] row = published[level - 1];
+        return row.length > 0 ? row[0] : null;
+    }
+
+    /**
+     * Getter for the number of records in the log, as of the last change
+     * published.
+     *
+     * @return the number of records
+     */
+    public long getRecordCount() {
+        return publishedCount;
+    }
+
+    /**
+     * Writes the queued runs, flushes the log to disk and stops the
+     * background thread. Waits a few seconds at most.
+     */
+    @Override
+    public void close() {
+        worker.execute(() -> {
+            if (channel != null) {
+                map.force();
+                closeChannel();
+            }
+        });
+        worker.shutdown();
+        try {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns a future completed once every run recorded so far is in the
+     * log and the index.
+     *
+     * @return the future
+     */
+    public CompletableFuture<Void> drain() {
+        return CompletableFuture.runAsync(() -> {
+        }, worker);
+    }
+
+    /**
+     * One recorded run.
+     */
+    public static final class Entry {
+
+        private final int level;          // Level played
+        private final int score;          // Hunts eaten
+        private final long elapsedMillis; // Time played
+        private final long epochMillis;   // When the run ended
+        private final boolean won;        // True if the level was won
+        private final long seed;          // Seed of the level, to replay it
+
+        Entry(int level, int score, long elapsedMillis, long epochMillis, boolean won, long seed) {
+            this.level = level;
+            this.score = score;
+            this.elapsedMillis = elapsedMillis;
+            this.epochMillis = epochMillis;
+            this.won = won;
+            this.seed = seed;
+        }
+
+        /**
+         * Getter for the level played.
+         *
+         * @return the level
+         */
+        public int getLevel() {
+            return level;
+        }
+
+        /**
+         * Getter for the score.
+         *
+         * @return the hunts eaten
+         */
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * Getter for the time played.
+         *
+         * @return the time in milliseconds
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * Getter for when the run ended.
+         *
+         * @return the time in milliseconds since the epoch
+         */
+        public long getEpochMillis() {
+            return epochMillis;
+        }
+
+        /**
+         * Checks if the level was won.
+         *
+         * @return true if it was won
+         */
+        public boolean isWon() {
+            return won;
+        }
+
+        /**
+         * Getter for the seed of the level.
+         *
+         * @return the seed
+         */
+        public long getSeed() {
+            return seed;
+        }
+    }
+}
@@ -2,15 +2,32 @@ package SnakeHunt;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Random;
 import javax.swing.*;
 
 /**
  * Main class for the Snake Hunt game. Handles game states, UI, and key inputs.
+ * The game rules live in GameEngine; this class only feeds it the player's
+ * direction on each tick and draws the result. Ticks come from a
+ * TickScheduler thread. After each tick the state to draw is copied into a
+ * FrameSnapshot and published through a FrameExchange, and painting, by
+ * Swing or by the render loop in active rendering mode, draws the latest
+ * snapshot without taking the lock held by the tick. A slow frame therefore
+ * never delays a tick, and a long tick never delays a frame.
  *
  * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
  * CE190616, Pham Gia Bao - CE191671
  */
-public class Main extends JPanel implements ActionListener {
+public class Main extends JPanel {
 
     // Constants for screen dimensions and game speed
     /**
@@ -24,83 +41,275 @@ public class Main extends JPanel implements ActionListener {
     public static final int SCREEN_HEIGHT = 720;
 
     /**
-     * Initial delay between game updates in milliseconds, controlling the snake
-     * speed.
+     * Width of the game board in cells.
      */
-    public static final int INITIAL_DELAY = 150;
+    public static final int BOARD_WIDTH = SCREEN_WIDTH / Map.UNIT_SIZE;
 
-    private int currentDelay; // Current speed, can be adjusted
+    /**
+     * Height of the game board in cells.
+     */
+    public static final int BOARD_HEIGHT = SCREEN_HEIGHT / Map.UNIT_SIZE;
+
+    /**
+     * Largest board side accepted by --board, in cells. Boards up to this
+     * size are drawn as fast as the default one, see ViewportBenchmark.
+     */
+    public static final int MAX_BOARD_SIZE = 10_000;
+
+    private long tickNanos; // Current speed as the time between two ticks
+
+    // Screen areas of the in-game text, repainted when their values change
+    private static final int SCORE_AREA_HEIGHT = 60; // Band at the top holding the score and level
+    private static final int TIMER_AREA_WIDTH = 200;  // Top-left corner holding the timer
+    private static final int TIMER_AREA_HEIGHT = 40;
+
+    // Debug overlay with the latency percentiles, toggled with F3
+    private static final int OVERLAY_X = 10;
+    private static final int OVERLAY_Y = SCREEN_HEIGHT - 132;
+    private static final int OVERLAY_WIDTH = 560;
+    private static final int OVERLAY_HEIGHT = 122;
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 14);
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 180);
+
+    // Fonts of the screens and the HUD, resolved once instead of on every frame
+    private static final Font TITLE_FONT = new Font("Segoe Script", Font.BOLD, 120); // Game title on the menu
+    private static final Font BANNER_FONT = new Font("Ink Free", Font.BOLD, 80);  // End of level banners
+    private static final Font HEADING_FONT = new Font("Ink Free", Font.BOLD, 70); // Screen titles
+    private static final Font TEXT_FONT = new Font("Ink Free", Font.BOLD, 40);    // Options, score and time
+    private static final Font INSTRUCTION_FONT = new Font("Ink Free", Font.PLAIN, 35); // How to Play lines
+    private static final Font ABOUT_FONT = new Font("Ink Free", Font.PLAIN, 30);  // About lines
+    private static final Font BEST_FONT = new Font("Ink Free", Font.BOLD, 30);    // Best run on the end screens
+    private static final Font TIMER_FONT = new Font("Ink Free", Font.BOLD, 20);   // In-game timer
+
+    /**
+     * Screens made only of text, each kept as an image by the screen cache.
+     */
+    private enum Screen {
+        MENU, HOW_TO_PLAY, ABOUT, QUIT, COMING_SOON, LEVEL_END
+    }
+
+    // Replays of finished levels are kept here, one file per level played
+    private static final Path REPLAY_DIR = Paths.get(System.getProperty("user.home"), ".snakehunt", "replays");
+    private static final DateTimeFormatter REPLAY_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // Quick save written with F5 and loaded with F9
+    private static final Path QUICK_SAVE = REPLAY_DIR.resolveSibling("quicksave.shs");
+
+    // Every finished level is recorded here
+    private static final Path LEADERBOARD_FILE = REPLAY_DIR.resolveSibling("leaderboard.log");
+
+    private DirtyRegions dirtyRegions = new DirtyRegions();   // Areas changed by the ticks since the last repaint
+    private DirtyRegions paintedRegions = new DirtyRegions(); // Areas being repainted on the event thread
+    private final FrameExchange frames = new FrameExchange(); // Snapshots passed from the ticks to the painting
+    private final ScreenCache screens = new ScreenCache(Screen.values().length, SCREEN_WIDTH, SCREEN_HEIGHT,
+            Color.BLACK); // Text screens rasterized once, painting only
+    private final HudRenderer hud = new HudRenderer(SCREEN_WIDTH, SCORE_AREA_HEIGHT, TIMER_AREA_WIDTH,
+            TIMER_AREA_HEIGHT, TEXT_FONT, TIMER_FONT); // Score and timer rasterized on change, painting only
+    private long shownSeconds; // Elapsed seconds currently shown by the timer
 
     // Game objects and states
-    Snake snake;  // Represents the snake in the game
-    Hunt hunt;    // Represents the hunt object, linked to the snake
+    GameEngine engine; // Runs the game rules for the snake and hunt
+    private int boardWidth = BOARD_WIDTH;   // Columns of the board played, may exceed the window
+    private int boardHeight = BOARD_HEIGHT; // Rows of the board played, may exceed the window
+    private final Camera camera = new Camera(SCREEN_WIDTH, SCREEN_HEIGHT); // Part of the board on screen
+    private final Random seeds; // Gives the seed of every level played, so a session can be played again
+    private Replay replay;      // Records the level being played, null after a quick load
     Map map;      // Represents the game map/grid
-    Timer timer;  // Controls game loop timing
-    boolean running;  // Indicates if the game is actively running
-    private boolean inMenu = true; // True if game is in menu state
-    private boolean inSA = false;  // True if game is in "Showing About" state
-    boolean gameOver = false;      // Tracks game-over state
-    boolean inQuit = false;        // True if game is in quitting state
-    private boolean inHowToPlay = false; // True if game is in "How to Play" state
-    private boolean inComingSoon = false; // True if game is in "Coming Soon" state
-    private long startTime;        // Tracks the start time of the game
-    private int level = 1;         // Current level (1-3)
-    private static final int MAX_LEVEL = 3; // Maximum number of levels
-    private static final int[] WIN_SCORES = {5, 10, 15}; // Required scores to win each level
-    private boolean levelCompleted = false; // True if current level is completed
-
-    /**
-     * Constructor to set up the game panel
+    private final InputQueue input = new InputQueue(); // Direction presses waiting for the ticks
+    private final TickScheduler scheduler = new TickScheduler("Snake Hunt ticks", this::tick); // Ticks the game on its own thread
+    private boolean paintPending; // True while a repaint of the dirty regions is queued on the event thread
+    private final Runnable paintDirtyRegions = this::repaintDirtyRegions; // Queued on the event thread after a tick
+    private ActiveRenderer activeRenderer; // Draws the game in active rendering mode, null otherwise
+    private final MyKeyAdapter keyAdapter = new MyKeyAdapter(); // Handles key inputs for the panel or the canvas
+    private final GameMetrics metrics = new GameMetrics(); // Latencies of ticks, paints and inputs
+    private volatile boolean overlayShown; // True while the debug overlay is drawn
+    private final AutopilotPolicy autopilot = new AutopilotPolicy(); // Steers the snake in demo mode
+    private boolean autopilotOn;    // True while the autopilot steers the snake, toggled with F2
+    private boolean assisted;       // True once the autopilot steered in the current level, which keeps it off the leaderboard
+    private Leaderboard leaderboard; // Best runs of each level, null unless started from main()
+    private long appliedInputNanos; // Time of the last key press applied by a tick, 0 if none
+    private long shownInputNanos;   // Time of the last key press shown on screen, painting only
+    // The screen flags are read without the lock by the painting
+    volatile boolean running;  // Indicates if the game is actively running, read without the lock by key presses
+    private volatile boolean inMenu = true; // True if game is in menu state
+    private volatile boolean inSA = false;  // True if game is in "Showing About" state
+    volatile boolean gameOver = false;      // Tracks game-over state
+    volatile boolean inQuit = false;        // True if game is in quitting state
+    private volatile boolean inHowToPlay = false; // True if game is in "How to Play" state
+    private volatile boolean inComingSoon = false; // True if game is in "Coming Soon" state
+    private volatile boolean levelCompleted = false; // True if current level is completed
+
+    /**
+     * Constructor to set up the game panel with a random session seed
      */
     public Main() {
+        this(new Random().nextLong());
+    }
+
+    /**
+     * Constructor to set up the game panel. The seed of every level played
+     * comes from the session seed, so the same seed gives the same hunts.
+     *
+     * @param seed the session seed
+     */
+    public Main(long seed) {
+        this.seeds = new Random(seed);
         this.setBackground(Color.BLACK);   // Set background color
         this.setOpaque(true);              // Ensure correct background drawing
-        this.addKeyListener(new MyKeyAdapter()); // Add KeyListener for key inputs
+        this.addKeyListener(keyAdapter);   // Add KeyListener for key inputs
         this.setPreferredSize(new Dimension(SCREEN_WIDTH, SCREEN_HEIGHT)); // Set panel size
-        this.currentDelay = INITIAL_DELAY; // Initialize current delay
+        this.tickNanos = GameEngine.tickNanosFor(1);  // Initialize current speed
+        this.map = new Map();              // Create the map once so its cached grid is kept between games
     }
 
     /**
      * Custom painting method that handles drawing different screens based on
      * the game state. This method determines what to render—menu, game, "About"
-     * screen, or game over.
+     * screen, or game over. During a game only the cells inside the clip are
+     * drawn, so a repaint of a small dirty region stays cheap. The game is
+     * drawn from the latest frame snapshot, so the scheduler thread keeps
+     * ticking meanwhile.
      *
      * @param g The Graphics object used for drawing on the panel.
      */
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        FrameSnapshot frame = frames.latest();
+        long start = System.nanoTime();
+        render(g, frame, 1.0);
+        metrics.recordPaint(System.nanoTime() - start);
+        frameShown(frame);
+    }
+
+    /**
+     * Getter for the latest frame snapshot published by the ticks. Called by
+     * the thread painting the game only: the frame stays unchanged until the
+     * next call.
+     *
+     * @return the frame to draw
+     */
+    FrameSnapshot latestFrame() {
+        return frames.latest();
+    }
+
+    /**
+     * Draws the current screen. Used by paintComponent, and by the active
+     * renderer, which also passes how far the game is into the next tick.
+     * The level is drawn from the given frame only, never from the engine.
+     *
+     * @param g The Graphics object used for drawing.
+     * @param frame The latest frame snapshot.
+     * @param alpha Share of the next tick already elapsed, from 0 to 1, used
+     * to slide the snake head between cells.
+     */
+    void render(Graphics g, FrameSnapshot frame, double alpha) {
+        if (activeRenderer != null) {
+            // The canvas has no Swing background, so clear it first
+            g.setColor(getBackground());
+            g.fillRect(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
+        }
         if (inMenu) {
-            drawMenu(g);
+            drawScreen(g, Screen.MENU, 0, frame);
         } else if (inHowToPlay) {
-            drawHowToPlay(g);
+            drawScreen(g, Screen.HOW_TO_PLAY, 0, frame);
         } else if (inSA) {
-            drawAbout(g);
+            drawScreen(g, Screen.ABOUT, 0, frame);
         } else if (inQuit) {
-            drawQuit(g);
+            drawScreen(g, Screen.QUIT, 0, frame);
         } else if (inComingSoon) {
-            drawComingSoon(g);
-        } else {
-            if (running) {
-                map.drawGrid(g);
-                snake.draw(g);
-                hunt.draw(g);
-                g.setColor(Color.WHITE);
-                g.setFont(new Font("Ink Free", Font.BOLD, 40));
-                FontMetrics metrics = getFontMetrics(g.getFont());
-                g.drawString("Score: " + snake.huntsEaten + "  Level: " + level,
-                        (SCREEN_WIDTH - metrics.stringWidth("Score: " + snake.huntsEaten + "  Level: " + level)) / 2,
-                        g.getFont().getSize());
-                long elapsedMillis = System.currentTimeMillis() - startTime;
-                String timerText = String.format("Time: %02d:%02d", (elapsedMillis / 60000) % 60, (elapsedMillis / 1000) % 60);
-                g.setFont(new Font("Ink Free", Font.BOLD, 20));
-                g.drawString(timerText, 10, 30);
-            } else if (levelCompleted) {
-                winScreen(g);
+            drawScreen(g, Screen.COMING_SOON, 0, frame);
+        } else if (frame.sequence != 0 && frame.boardWidth != 0) { // Nothing to draw before the first frame is published
+            if (frame.status == GameEngine.Status.RUNNING) {
+                // Draw the board in board pixels, cut to the viewport of the camera
+                Graphics world = g.create();
+                world.translate(-frame.cameraX, -frame.cameraY);
+                world.clipRect(frame.cameraX, frame.cameraY, SCREEN_WIDTH, SCREEN_HEIGHT);
+                map.drawGrid(world);
+                map.drawSnake(world, frame, alpha);
+                map.drawHunt(world, frame);
+                world.dispose();
+                hud.draw(g, frame.score, frame.level, frame.elapsedNanos);
             } else {
-                gameOver(g);
+                drawScreen(g, Screen.LEVEL_END, frame.sequence, frame); // The last frame of a level stays the same
             }
         }
+        if (overlayShown) {
+            drawOverlay(g);
+        }
+    }
+
+    /**
+     * Draws a text screen from the screen cache, rasterizing it first if it
+     * was never shown or showed another key.
+     *
+     * @param g The Graphics object used for drawing.
+     * @param screen The screen to draw.
+     * @param key The value the screen shows, 0 for a fixed screen.
+     * @param frame The latest frame snapshot, shown by the end screens.
+     */
+    private void drawScreen(Graphics g, Screen screen, long key, FrameSnapshot frame) {
+        Graphics image = screens.update(screen.ordinal(), key);
+        if (image != null) {
+            switch (screen) {
+                case MENU:
+                    drawMenu(image);
+                    break;
+                case HOW_TO_PLAY:
+                    drawHowToPlay(image);
+                    break;
+                case ABOUT:
+                    drawAbout(image);
+                    break;
+                case QUIT:
+                    drawQuit(image);
+                    break;
+                case COMING_SOON:
+                    drawComingSoon(image);
+                    break;
+                case LEVEL_END:
+                    if (frame.status == GameEngine.Status.WON) {
+                        winScreen(image, frame);
+                    } else {
+                        gameOver(image, frame);
+                    }
+                    break;
+            }
+            image.dispose();
+        }
+        screens.draw(g, screen.ordinal());
+    }
+
+    /**
+     * Draws the debug overlay with the median, 99th percentile and maximum of
+     * the tick time, paint time, input to tick latency, input to display
+     * latency and hunt placement draws.
+     *
+     * @param g The Graphics object used for drawing.
+     */
+    private void drawOverlay(Graphics g) {
+        g.setColor(OVERLAY_BACKGROUND);
+        g.fillRect(OVERLAY_X, OVERLAY_Y, OVERLAY_WIDTH, OVERLAY_HEIGHT);
+        g.setColor(Color.YELLOW);
+        g.setFont(OVERLAY_FONT);
+        int y = OVERLAY_Y + 22;
+        drawLatencyLine(g, "tick ", metrics.getTickTimes(), y);
+        drawLatencyLine(g, "paint", metrics.getPaintTimes(), y + 22);
+        drawLatencyLine(g, "queue", metrics.getInputTickLatencies(), y + 44);
+        drawLatencyLine(g, "input", metrics.getInputLatencies(), y + 66);
+        LatencyHistogram spawns = metrics.getSpawnAttempts();
+        g.drawString(String.format("spawn  p50 %9d     p99 %9d     max %9d draws",
+                spawns.getPercentile(50), spawns.getPercentile(99), spawns.getMax()), OVERLAY_X + 10, y + 88);
+    }
+
+    /**
+     * Draws one line of the debug overlay for a histogram of nanoseconds,
+     * shown in microseconds.
+     */
+    private void drawLatencyLine(Graphics g, String name, LatencyHistogram histogram, int y) {
+        g.drawString(String.format("%s  p50 %9.1f us  p99 %9.1f us  max %9.1f us", name,
+                histogram.getPercentile(50) / 1000.0, histogram.getPercentile(99) / 1000.0,
+                histogram.getMax() / 1000.0), OVERLAY_X + 10, y);
     }
 
     /**
@@ -116,7 +325,6 @@ public class Main extends JPanel implements ActionListener {
         inComingSoon = false;
         gameOver = false;
         levelCompleted = false;
-        level = 1;
         repaint();      // Repaint the panel to display the menu screen
     }
 
@@ -124,17 +332,19 @@ public class Main extends JPanel implements ActionListener {
      * Initializes and starts the game
      */
     public void startGame() {
-        map = new Map();           // Create new map
-        snake = new Snake();       // Create new snake
-        hunt = new Hunt(snake);    // Create new hunt for the snake
-        hunt.newHunt();            // Generate a new hunt
+        engine = new GameEngine(boardWidth, boardHeight, seeds.nextLong()); // Create new snake and hunt, starting from level 1
+        replay = Replay.start(engine);
+        map.setBoardSize(boardWidth, boardHeight);
+        camera.center(engine.getBoard(), engine.getSnake().getHead());
+        input.clear();             // Keep the snake's initial direction
+        tickNanos = GameEngine.tickNanosFor(1); // Reset speed to initial value
+        assisted = false;
+        publishFrame(-1);          // The first frame of the level, before any tick and before the renderer looks for one
         running = true;            // Set game state to running
         inMenu = false;            // Set state to in-game
-        level = 1;                 // Start from level 1
-        currentDelay = INITIAL_DELAY; // Reset speed to initial value
-        timer = new Timer(currentDelay, this);
-        timer.start();             // Start timer
-        startTime = System.currentTimeMillis();
+        startTicking();            // Start timer
+        shownSeconds = 0;
+        repaint();                 // Paint the whole board once, later ticks only repaint what changed
     }
 
     /**
@@ -144,11 +354,11 @@ public class Main extends JPanel implements ActionListener {
      */
     private void drawMenu(Graphics g) {
         g.setColor(Color.RED);
-        g.setFont(new Font("Segoe Script", Font.BOLD, 120));
+        g.setFont(TITLE_FONT);
         g.drawString("Snake Hunt", (SCREEN_WIDTH - g.getFontMetrics().stringWidth("Snake Hunt")) / 2, SCREEN_HEIGHT / 2 - 100);
 
         g.setColor(Color.WHITE);
-        g.setFont(new Font("Ink Free", Font.BOLD, 40));
+        g.setFont(TEXT_FONT);
 
         // Updated menu options
         g.drawString("Press 1 to Play", (SCREEN_WIDTH - g.getFontMetrics().stringWidth("Press 1 to Play")) / 2, SCREEN_HEIGHT / 2);
@@ -161,40 +371,40 @@ public class Main extends JPanel implements ActionListener {
      * Draws the game-over screen
      *
      * @param g
+     * @param frame the last frame of the level
      */
-    public void gameOver(Graphics g) {
-        gameOver = true; // Set the gameOver state to true
-
+    public void gameOver(Graphics g, FrameSnapshot frame) {
         // Calculate elapsed time
-        long elapsedMillis = System.currentTimeMillis() - startTime;
+        long elapsedMillis = frame.elapsedNanos / 1_000_000;
         String timerText = String.format("Time: %02d:%02d", (elapsedMillis / 60000) % 60, (elapsedMillis / 1000) % 60);
 
         // Set up vertical positions
         int baseY = SCREEN_HEIGHT / 2;
         int currentY = baseY - 150; // Start higher up
+        drawBest(g, currentY - 60, frame);
 
         // Draw timer
         g.setColor(Color.WHITE);
-        g.setFont(new Font("Ink Free", Font.BOLD, 40));
+        g.setFont(TEXT_FONT);
         FontMetrics timerMetrics = g.getFontMetrics();
         g.drawString(timerText, (SCREEN_WIDTH - timerMetrics.stringWidth(timerText)) / 2, currentY);
         currentY += 80;
 
         // Draw score
         g.setColor(Color.RED);
-        String scoreText = "Score: " + snake.huntsEaten;
+        String scoreText = "Score: " + frame.score;
         g.drawString(scoreText, (SCREEN_WIDTH - timerMetrics.stringWidth(scoreText)) / 2, currentY);
         currentY += 100;
 
         // Draw GAME OVER text
-        g.setFont(new Font("Ink Free", Font.BOLD, 80));
+        g.setFont(BANNER_FONT);
         FontMetrics gameOverMetrics = g.getFontMetrics();
         g.drawString("GAME OVER", (SCREEN_WIDTH - gameOverMetrics.stringWidth("GAME OVER")) / 2, currentY);
         currentY += 100;
 
         // Draw menu options
         g.setColor(Color.WHITE);
-        g.setFont(new Font("Ink Free", Font.BOLD, 40));
+        g.setFont(TEXT_FONT);
         g.drawString("Press 1 to RePlay", (SCREEN_WIDTH - g.getFontMetrics().stringWidth("Press 1 to RePlay")) / 2, currentY);
         currentY += 70;
         g.drawString("Press 3 to get back Home", (SCREEN_WIDTH - g.getFontMetrics().stringWidth("Press 3 to get back Home")) / 2, currentY);
@@ -206,36 +416,39 @@ public class Main extends JPanel implements ActionListener {
      * proceed to the next level, or return to the menu.
      *
      * @param g The Graphics object used to draw text and shapes on the panel.
+     * @param frame The last frame of the level.
      */
-    private void winScreen(Graphics g) {
+    private void winScreen(Graphics g, FrameSnapshot frame) {
         int baseY = SCREEN_HEIGHT / 2;
         int currentY = baseY - 200; // Adjust for better centering
+        drawBest(g, currentY - 60, frame);
 
         // Player name
         g.setColor(Color.WHITE);
-        g.setFont(new Font("Ink Free", Font.BOLD, 40));
+        g.setFont(TEXT_FONT);
         FontMetrics metrics = g.getFontMetrics();
 
         // Game duration
-        long elapsedMillis = System.currentTimeMillis() - startTime;
+        long elapsedMillis = frame.elapsedNanos / 1_000_000;
         String timerText = String.format("Time: %02d:%02d", (elapsedMillis / 60000) % 60, (elapsedMillis / 1000) % 60);
         g.drawString(timerText, (SCREEN_WIDTH - metrics.stringWidth(timerText)) / 2, currentY);
         currentY += 80;
 
         // Score
         g.setColor(Color.RED);
-        String scoreText = "Score: " + snake.huntsEaten;
+        String scoreText = "Score: " + frame.score;
         g.drawString(scoreText, (SCREEN_WIDTH - metrics.stringWidth(scoreText)) / 2, currentY);
         currentY += 100;
 
         // Victory message
-        g.setFont(new Font("Ink Free", Font.BOLD, 80));
-        g.drawString("Level " + level + " Completed!", (SCREEN_WIDTH - g.getFontMetrics().stringWidth("Level " + level + " Completed!")) / 2, currentY);
+        g.setFont(BANNER_FONT);
+        String levelText = "Level " + frame.level + " Completed!";
+        g.drawString(levelText, (SCREEN_WIDTH - g.getFontMetrics().stringWidth(levelText)) / 2, currentY);
         currentY += 100;
 
         // Options
         g.setColor(Color.WHITE);
-        g.setFont(new Font("Ink Free", Font.BOLD, 40));
+        g.setFont(TEXT_FONT);
         g.drawString("Press 1 to Replay", (SCREEN_WIDTH - g.getFontMetrics().stringWidth("Press 1 to Replay")) / 2, currentY);
         currentY += 50;
         g.drawString("Press 2 to Next Level", (SCREEN_WIDTH - g.getFontMetrics().stringWidth("Press 2 to Next Level")) / 2, currentY);
@@ -256,21 +469,21 @@ public class Main extends JPanel implements ActionListener {
             "Use arrow keys or WASD to control the snake's direction",
             "Collect red dots to grow longer",
             "Avoid hitting yourself",
-            "Reach " + WIN_SCORES[0] + ", " + WIN_SCORES[1] + ", " + WIN_SCORES[2] + " red dots to win each level",
+            "Reach " + GameEngine.WIN_SCORES[0] + ", " + GameEngine.WIN_SCORES[1] + ", " + GameEngine.WIN_SCORES[2] + " red dots to win each level",
             "Press 3 to return to menu"
         };
 
         g.setColor(Color.RED);
-        g.setFont(new Font("Ink Free", Font.BOLD, 70));
+        g.setFont(HEADING_FONT);
         g.drawString(title, (SCREEN_WIDTH - g.getFontMetrics().stringWidth(title)) / 2, SCREEN_HEIGHT / 2 - 150);
 
         g.setColor(Color.WHITE);
-        g.setFont(new Font("Ink Free", Font.PLAIN, 35));
+        g.setFont(INSTRUCTION_FONT);
 
         int y = SCREEN_HEIGHT / 2 - 20;
         for (int i = 0; i < instructions.length; i++) {
             if (i == instructions.length - 1) { // "Press 3 to return to menu"
-                g.setFont(new Font("Ink Free", Font.BOLD, 40));
+                g.setFont(TEXT_FONT);
             }
             g.drawString(instructions[i], (SCREEN_WIDTH - g.getFontMetrics().stringWidth(instructions[i])) / 2, y);
             y += 70;
@@ -299,13 +512,13 @@ public class Main extends JPanel implements ActionListener {
 
         // Draw title
         g.setColor(Color.RED);
-        g.setFont(new Font("Ink Free", Font.BOLD, 70));
+        g.setFont(HEADING_FONT);
         int y = SCREEN_HEIGHT / 2 - 210;
         g.drawString(title, (SCREEN_WIDTH - g.getFontMetrics().stringWidth(title)) / 2, y);
 
         // Draw description
         g.setColor(Color.WHITE);
-        g.setFont(new Font("Ink Free", Font.PLAIN, 30));
+        g.setFont(ABOUT_FONT);
         y += 50;
         for (String line : description) {
             g.drawString(line, (SCREEN_WIDTH - g.getFontMetrics().stringWidth(line)) / 2, y);
@@ -328,7 +541,7 @@ public class Main extends JPanel implements ActionListener {
 
         // Return to menu instruction
         y += 50;
-        g.setFont(new Font("Ink Free", Font.BOLD, 40));
+        g.setFont(TEXT_FONT);
         g.drawString("Press 3 to return to menu",
                 (SCREEN_WIDTH - g.getFontMetrics().stringWidth("Press 3 to return to menu")) / 2, y);
     }
@@ -342,14 +555,12 @@ public class Main extends JPanel implements ActionListener {
      */
     private void drawQuit(Graphics g) {
         g.setColor(Color.RED);
-        g.setFont(new Font("Ink Free", Font.BOLD, 70));
+        g.setFont(HEADING_FONT);
         g.drawString("Goodbye", (SCREEN_WIDTH - g.getFontMetrics().stringWidth("Goodbye")) / 2, SCREEN_HEIGHT / 2 - 50);
 
         g.setColor(Color.WHITE);
-        g.setFont(new Font("Ink Free", Font.BOLD, 40));
+        g.setFont(TEXT_FONT);
         g.drawString("See you again!", (SCREEN_WIDTH - g.getFontMetrics().stringWidth("See you again!")) / 2, SCREEN_HEIGHT / 2 + 50);
-
-        new Timer(2000, e -> System.exit(0)).start();
     }
 
     /**
@@ -363,56 +574,324 @@ public class Main extends JPanel implements ActionListener {
         int baseY = SCREEN_HEIGHT / 2;
         int currentY = baseY - 50;
         g.setColor(Color.RED);
-        g.setFont(new Font("Ink Free", Font.BOLD, 70));
+        g.setFont(HEADING_FONT);
         g.drawString("Coming Soon", (SCREEN_WIDTH - g.getFontMetrics().stringWidth("Coming Soon")) / 2, SCREEN_HEIGHT / 2 - 50);
         currentY += 70;
         g.setColor(Color.WHITE);
-        g.setFont(new Font("Ink Free", Font.BOLD, 40));
+        g.setFont(TEXT_FONT);
         g.drawString("Press 3 to get back Home", (SCREEN_WIDTH - g.getFontMetrics().stringWidth("Press 3 to get back Home")) / 2, currentY);
     }
 
     /**
-     * Invoked periodically by the Timer to update the game state. Moves the
-     * snake, checks for hunt consumption, and handles collisions.
-     *
-     * @param e ActionEvent triggered by the Timer
+     * Advances the game by one tick. Hands the requested direction to the
+     * engine, which moves the snake, checks for hunt consumption, and handles
+     * collisions, then publishes a frame snapshot and repaints what changed.
+     * Called from the scheduler thread. A tick of a scheduler thread stopped
+     * while it waited for the lock does nothing, so a restarted level never
+     * gets an extra tick from the old thread.
      */
-    @Override
-    public void actionPerformed(ActionEvent e) {
+    synchronized void tick() {
+        if (!scheduler.isCurrent()) {
+            return; // Stale thread, replaced by startTicking() or stopped
+        }
         if (running) {
-            snake.move();
-            snake.checkHunt(hunt);
-            // Check if level is completed
-            if (snake.huntsEaten >= WIN_SCORES[level - 1]) {
+            // Remember what may change so that only those cells are repainted
+            Snake snake = engine.getSnake();
+            int oldHead = snake.getHead();
+            int oldTail = snake.getSegment(snake.getLength() - 1);
+            int oldHunt = engine.getHunt().getCell();
+            int oldScore = snake.huntsEaten;
+            Direction oldDirection = snake.direction;
+
+            long start = System.nanoTime();
+            Direction direction = input.take(oldDirection); // At most one turn per tick, the rest wait for later ticks
+            if (direction != null) {
+                metrics.recordInputToTick(start - input.getTakenStamp());
+                appliedInputNanos = input.getTakenStamp(); // Measured once a frame shows the turn
+            }
+            if (autopilotOn && direction == null && engine.getBoard().hasFreeIndex()) { // Its arrays would not fit a larger board
+                direction = autopilot.choose(engine); // A key press still overrides the autopilot
+                assisted = true;
+            }
+            GameEngine.Status status = engine.step(direction);
+            metrics.recordTick(System.nanoTime() - start);
+            engine.addElapsedNanos(tickNanos); // Time played counts ticks, so pauses and stalls do not add to it
+            if (replay != null) {
+                replay.record(oldDirection, snake.direction);
+            }
+            if (snake.huntsEaten != oldScore) {
+                metrics.recordSpawnAttempts(engine.getHunt().getSpawnAttempts());
+            }
+            boolean scrolled = camera.follow(engine.getBoard(), snake.getHead());
+            publishFrame(oldHead);
+            if (status == GameEngine.Status.WON) {
                 running = false;
-                timer.stop();
+                stopTicking();
                 levelCompleted = true; // Mark level as completed
-            } else if (!snake.checkCollisions()) {
+                saveReplay(replay);
+                recordRun(true);
+            } else if (status == GameEngine.Status.LOST) {
                 running = false;
-                timer.stop();
+                stopTicking();
                 gameOver = true;
+                saveReplay(replay);
+                recordRun(false);
+            } else if (activeRenderer == null && !scrolled) { // A scroll moves every cell, so it repaints the whole panel below
+                markCell(oldHead);  // Old head turns into a body part
+                markCell(oldTail);  // Tail cell may have been vacated
+                markCell(snake.getHead());
+                markCell(oldHunt);
+                markCell(engine.getHunt().getCell());
+                if (snake.huntsEaten != oldScore) {
+                    dirtyRegions.add(0, 0, SCREEN_WIDTH, SCORE_AREA_HEIGHT);
+                }
+                long seconds = engine.getElapsedNanos() / 1_000_000_000L;
+                if (seconds != shownSeconds) {
+                    shownSeconds = seconds;
+                    dirtyRegions.add(0, 0, TIMER_AREA_WIDTH, TIMER_AREA_HEIGHT);
+                }
+                if (overlayShown) {
+                    dirtyRegions.add(OVERLAY_X, OVERLAY_Y, OVERLAY_WIDTH, OVERLAY_HEIGHT);
+                }
+                if (!paintPending) {
+                    paintPending = true; // Regions of later ticks are added until the event thread gets to it
+                    SwingUtilities.invokeLater(paintDirtyRegions);
+                }
+                return;
             }
         }
         repaint();
     }
 
+    /**
+     * Copies the state of the level into the back frame snapshot and
+     * publishes it for the painting. Called with the lock held, so the
+     * frames have one writer at a time.
+     *
+     * @param previousHead the head cell before the tick, or -1 at the start
+     * of a level
+     */
+    private void publishFrame(int previousHead) {
+        FrameSnapshot frame = frames.back();
+        frame.capture(engine, camera, SCREEN_WIDTH, SCREEN_HEIGHT);
+        frame.previousHead = previousHead;
+        frame.tickNanos = tickNanos;
+        frame.assisted = assisted;
+        frame.inputNanos = appliedInputNanos;
+        frames.publish();
+    }
+
+    /**
+     * Starts the scheduler that ticks the game at the current speed, in both
+     * rendering modes.
+     */
+    private void startTicking() {
+        scheduler.start(tickNanos);
+    }
+
+    /**
+     * Stops the scheduler.
+     */
+    private void stopTicking() {
+        scheduler.stop();
+    }
+
+    /**
+     * Getter for the scheduler ticking the game, which also measures how
+     * evenly the ticks are spaced.
+     *
+     * @return the tick scheduler
+     */
+    TickScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Getter for the latencies measured during the session.
+     *
+     * @return the game metrics
+     */
+    GameMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Called by the painting once a frame is on screen. Records the input to
+     * display latency of a key press the frame is the first to show.
+     *
+     * @param frame the frame shown
+     */
+    void frameShown(FrameSnapshot frame) {
+        if (frame.inputNanos != shownInputNanos) {
+            shownInputNanos = frame.inputNanos;
+            metrics.recordInputLatency(System.nanoTime() - frame.inputNanos);
+        }
+    }
+
+    /**
+     * Marks the screen area of a board cell as dirty. Cells outside the
+     * viewport leave nothing to repaint.
+     *
+     * @param cell the cell index, ignored if negative
+     */
+    private void markCell(int cell) {
+        if (cell >= 0) {
+            Board board = engine.getBoard();
+            dirtyRegions.add(board.cellX(cell) * Map.UNIT_SIZE - camera.getX(),
+                    board.cellY(cell) * Map.UNIT_SIZE - camera.getY(), Map.UNIT_SIZE, Map.UNIT_SIZE);
+        }
+    }
+
+    /**
+     * Paints each dirty region on its own, then clears them. The regions are
+     * painted right away instead of through repaint(x, y, w, h), because the
+     * repaint manager would merge them into their bounding box, which for a
+     * head and a tail at opposite corners is the whole board. Runs on the
+     * event thread, queued by tick(). The regions are swapped out under the
+     * lock and painted without it, so the ticks go on meanwhile.
+     */
+    private void repaintDirtyRegions() {
+        DirtyRegions regions;
+        synchronized (this) {
+            paintPending = false;
+            regions = dirtyRegions;
+            dirtyRegions = paintedRegions; // Emptied by the previous repaint
+            paintedRegions = regions;
+        }
+        for (int i = 0; i < regions.size(); i++) {
+            paintImmediately(regions.getX(i), regions.getY(i), regions.getWidth(i), regions.getHeight(i));
+        }
+        regions.clear();
+    }
+
+    /**
+     * Writes the replay of a finished level to REPLAY_DIR on a background
+     * thread, so the tick is not held up by the disk.
+     *
+     * @param finished the replay of the level, no longer recorded to, or
+     * null if the level was not recorded
+     */
+    private static void saveReplay(Replay finished) {
+        if (finished == null) {
+            return; // A level resumed from a snapshot was not recorded from its start
+        }
+        Path file = REPLAY_DIR.resolve(LocalDateTime.now().format(REPLAY_TIME) + "-L" + finished.getLevel() + ".shr");
+        Thread writer = new Thread(() -> {
+            try {
+                Files.createDirectories(REPLAY_DIR);
+                finished.save(file);
+            } catch (IOException e) {
+                System.err.println("Could not save the replay " + file + ": " + e.getMessage());
+            }
+        }, "Snake Hunt replay writer");
+        writer.start(); // Not a daemon, so a replay saved just before quitting is still written
+    }
+
+    /**
+     * Adds the level just finished to the leaderboard, unless the autopilot
+     * played part of it. The leaderboard writes it on its own thread.
+     *
+     * @param won true if the level was won
+     */
+    private void recordRun(boolean won) {
+        if (leaderboard != null && !assisted) {
+            leaderboard.record(engine.getLevel(), engine.getSnake().huntsEaten, engine.getElapsedNanos() / 1_000_000,
+                    won, engine.getSeed());
+        }
+    }
+
+    /**
+     * Draws the best run of the current level on an end screen, counting the
+     * run just finished, which the leaderboard may not have indexed yet.
+     *
+     * @param g The Graphics object used for drawing.
+     * @param y the baseline of the line
+     * @param frame the last frame of the level
+     */
+    private void drawBest(Graphics g, int y, FrameSnapshot frame) {
+        if (leaderboard == null) {
+            return;
+        }
+        Leaderboard.Entry best = leaderboard.best(frame.level);
+        int score = frame.score;
+        long elapsedMillis = frame.elapsedNanos / 1_000_000;
+        boolean current = !frame.assisted && (best == null || score > best.getScore()
+                || score == best.getScore() && elapsedMillis < best.getElapsedMillis()); // This run is the best
+        if (!current) {
+            if (best == null) {
+                return; // Nothing recorded yet
+            }
+            score = best.getScore();
+            elapsedMillis = best.getElapsedMillis();
+        }
+        String bestText = String.format("Best: %d in %02d:%02d", score, (elapsedMillis / 60000) % 60,
+                (elapsedMillis / 1000) % 60);
+        g.setColor(Color.LIGHT_GRAY);
+        g.setFont(BEST_FONT);
+        g.drawString(bestText, (SCREEN_WIDTH - g.getFontMetrics().stringWidth(bestText)) / 2, y);
+    }
+
+    /**
+     * Saves the level being played to QUICK_SAVE. The state is copied into a
+     * buffer right away, which takes a few milliseconds even for a long
+     * snake, and the file is written on a background thread.
+     */
+    private void quickSave() {
+        ByteBuffer snapshot = Snapshot.encode(engine);
+        Thread writer = new Thread(() -> {
+            try {
+                Files.createDirectories(QUICK_SAVE.getParent());
+                Snapshot.write(snapshot, QUICK_SAVE);
+            } catch (IOException e) {
+                System.err.println("Could not save the game " + QUICK_SAVE + ": " + e.getMessage());
+            }
+        }, "Snake Hunt quick save writer");
+        writer.start(); // Not a daemon, so a save made just before quitting is still written
+    }
+
+    /**
+     * Resumes the level saved in QUICK_SAVE from any screen, on the board
+     * size it was saved with. Nothing changes if there is no valid save.
+     */
+    private void quickLoad() {
+        GameEngine loaded;
+        try {
+            loaded = Snapshot.load(QUICK_SAVE);
+        } catch (NoSuchFileException e) {
+            return; // Nothing saved yet
+        } catch (IOException e) {
+            System.err.println("Could not load the game " + QUICK_SAVE + ": " + e.getMessage());
+            return;
+        }
+        stopTicking();
+        engine = loaded;
+        replay = null; // A replay has to start with the level
+        boardWidth = engine.getBoard().getWidth();
+        boardHeight = engine.getBoard().getHeight();
+        map.setBoardSize(boardWidth, boardHeight);
+        camera.center(engine.getBoard(), engine.getSnake().getHead());
+        input.clear();
+        tickNanos = GameEngine.tickNanosFor(engine.getLevel());
+        assisted = false;
+        publishFrame(-1); // Before leaving the screen, so the renderer never draws the game without a frame of it
+        running = true;
+        inMenu = false;
+        inSA = false;
+        inHowToPlay = false;
+        inComingSoon = false;
+        gameOver = false;
+        levelCompleted = false;
+        startTicking();
+        shownSeconds = engine.getElapsedNanos() / 1_000_000_000L;
+        repaint(); // Paint the whole board once, later ticks only repaint what changed
+    }
+
     /**
      * Advances to the next level by resetting game objects and increasing
      * difficulty.
      */
     private void nextLevel() {
-        level++;
-        snake = new Snake();
-        hunt.newHunt();
-        running = true;
-        levelCompleted = false;
-        currentDelay = INITIAL_DELAY - (level - 1) * 50;
-        if (currentDelay < 0) {
-            currentDelay = 0;
-        }
-        timer = new Timer(currentDelay, this);
-        timer.start();
-        startTime = System.currentTimeMillis();
+        playLevel(engine.getLevel() + 1);
     }
 
     /**
@@ -420,17 +899,28 @@ public class Main extends JPanel implements ActionListener {
      * same level.
      */
     private void replayLevel() {
-        snake = new Snake();
-        hunt.newHunt();
+        playLevel(engine.getLevel());
+    }
+
+    /**
+     * Resets the engine to the given level and restarts the scheduler with the
+     * speed of that level.
+     *
+     * @param level the level to play
+     */
+    private void playLevel(int level) {
+        engine.reset(level, seeds.nextLong());
+        replay = Replay.start(engine);
+        camera.center(engine.getBoard(), engine.getSnake().getHead());
+        input.clear();
         running = true;
         levelCompleted = false;
-        currentDelay = INITIAL_DELAY - (level - 1) * 50;
-        if (currentDelay < 0) {
-            currentDelay = 0;
-        }
-        timer = new Timer(currentDelay, this);
-        timer.start();
-        startTime = System.currentTimeMillis();
+        tickNanos = GameEngine.tickNanosFor(level);
+        assisted = false;
+        publishFrame(-1);
+        startTicking();
+        shownSeconds = 0;
+        repaint(); // Paint the whole board once, later ticks only repaint what changed
     }
 
     /**
@@ -438,16 +928,40 @@ public class Main extends JPanel implements ActionListener {
      */
     public class MyKeyAdapter extends KeyAdapter {
 
-        private boolean keyPressedFlag = false; // Track key press state
-
         @Override
         public void keyPressed(KeyEvent e) {
-            if (keyPressedFlag && !inMenu) {
+            Direction direction = directionFor(e.getKeyCode());
+            if (direction != null && running) {
+                input.offer(direction, System.nanoTime()); // Lock-free, so a tick in progress does not hold up the press
                 return;
             }
+            synchronized (Main.this) { // The scheduler ticks the game from its own thread
+                handleKey(e);
+            }
+        }
+
+        /**
+         * Dispatches a key press according to the current game state.
+         *
+         * @param e The KeyEvent object describing the key press.
+         */
+        private void handleKey(KeyEvent e) {
             int keyCode = e.getKeyCode();
 
-            if (inMenu) {
+            if (keyCode == KeyEvent.VK_F3) {
+                overlayShown = !overlayShown; // Toggle the debug overlay on any screen
+                repaint();
+            } else if (keyCode == KeyEvent.VK_F2) {
+                autopilotOn = !autopilotOn; // Toggle the autopilot on any screen
+            } else if (keyCode == KeyEvent.VK_F5) {
+                if (running) {
+                    quickSave();
+                }
+            } else if (keyCode == KeyEvent.VK_F9) {
+                if (!inQuit) {
+                    quickLoad();
+                }
+            } else if (inMenu) {
                 handleMenu(keyCode);
             } else if (inHowToPlay) {
                 if (keyCode == KeyEvent.VK_3) {
@@ -471,7 +985,7 @@ public class Main extends JPanel implements ActionListener {
                         startGame();
                     }
                 } else if (keyCode == KeyEvent.VK_2 && levelCompleted) {
-                    if (level < MAX_LEVEL) {
+                    if (engine.getLevel() < GameEngine.MAX_LEVEL) {
                         nextLevel();
                     } else {
                         inComingSoon = true;
@@ -486,8 +1000,6 @@ public class Main extends JPanel implements ActionListener {
                     }
                     levelCompleted = false;
                 }
-            } else if (running) {
-                handleGameControls(keyCode);
             }
         }
 
@@ -514,59 +1026,38 @@ public class Main extends JPanel implements ActionListener {
                     inQuit = true;
                     inMenu = false;
                     repaint();
+                    new Timer(2000, e -> System.exit(0)).start(); // Close after showing the goodbye screen
                     break;
             }
         }
 
         /**
-         * Handles key inputs for controlling the snake movement during game
-         * play. Maps arrow keys and WASD keys to change the snake direction,
-         * preventing reverse movement.
+         * Maps the arrow keys and WASD keys to directions. Whether a
+         * direction may be taken is checked by the tick that takes it from
+         * the input queue.
          *
          * @param keyCode The integer code of the key pressed by the user, as
          * defined in KeyEvent.
+         * @return the direction, or null for any other key
          */
-        private void handleGameControls(int keyCode) {
+        private Direction directionFor(int keyCode) {
             switch (keyCode) {
                 case KeyEvent.VK_LEFT:    // Left arrow
                 case KeyEvent.VK_A:       // A key
-                    if (snake.direction != 'R') {
-                        snake.direction = 'L';
-                    }
-                    break;
+                    return Direction.LEFT;
                 case KeyEvent.VK_RIGHT:   // Right arrow
                 case KeyEvent.VK_D:       // D key
-                    if (snake.direction != 'L') {
-                        snake.direction = 'R';
-                    }
-                    break;
+                    return Direction.RIGHT;
                 case KeyEvent.VK_UP:      // Up arrow
                 case KeyEvent.VK_W:       // W key
-                    if (snake.direction != 'D') {
-                        snake.direction = 'U';
-                    }
-                    break;
+                    return Direction.UP;
                 case KeyEvent.VK_DOWN:    // Down arrow
                 case KeyEvent.VK_S:       // S key
-                    if (snake.direction != 'U') {
-                        snake.direction = 'D';
-                    }
-                    break;
+                    return Direction.DOWN;
+                default:
+                    return null;
             }
         }
-
-        /**
-         * Handles the release of a key by resetting the key press flag. Ensures
-         * that subsequent key presses can be processed after the current key is
-         * released.
-         *
-         * @param e The KeyEvent object containing information about the key
-         * release event.
-         */
-        @Override
-        public void keyReleased(KeyEvent e) {
-            keyPressedFlag = false;
-        }
     }
 
     /**
@@ -594,21 +1085,71 @@ public class Main extends JPanel implements ActionListener {
     }
 
     /**
-     * Main method program
+     * Main method program. Pass "--active" to draw the game from a render
+     * loop on a Canvas instead of through Swing repaints, "--seed N" to
+     * play the session with the seed N, "--autopilot" to start with the
+     * autopilot steering, as on a demo kiosk, and "--board WxH" to play on a
+     * board of W by H cells, which the camera scrolls over when it is larger
+     * than the window. During a level, F5 saves it and F9 resumes the last
+     * save, also from the menu. A malformed option prints the usage and exits
+     * before any window opens.
      *
-     * @param args
+     * @param args command-line arguments
      */
     public static void main(String[] args) {
+        boolean active = Arrays.asList(args).contains("--active");
+        int seedIndex = Arrays.asList(args).indexOf("--seed");
+        int boardIndex = Arrays.asList(args).indexOf("--board");
+        long seed = new Random().nextLong(); // Session seed
+        int boardWidth = BOARD_WIDTH;
+        int boardHeight = BOARD_HEIGHT;
+        try {
+            if (seedIndex >= 0 && seedIndex + 1 < args.length) {
+                seed = Long.parseLong(args[seedIndex + 1]);
+            }
+            if (boardIndex >= 0 && boardIndex + 1 < args.length) {
+                String size = args[boardIndex + 1];
+                int separator = size.indexOf('x');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Board size must be width x height, such as 46x24: " + size);
+                }
+                boardWidth = Integer.parseInt(size.substring(0, separator));
+                boardHeight = Integer.parseInt(size.substring(separator + 1));
+                if (boardWidth > MAX_BOARD_SIZE || boardHeight > MAX_BOARD_SIZE) {
+                    throw new IllegalArgumentException("Board sides must be at most " + MAX_BOARD_SIZE + ": " + size);
+                }
+                new GameEngine(boardWidth, boardHeight).reset(1); // Checks the board size
+            }
+        } catch (IllegalArgumentException e) { // NumberFormatException included
+            System.err.println(e.getMessage());
+            System.err.println("Usage: Main [--active] [--seed N] [--autopilot] [--board WxH]");
+            System.exit(2);
+            return;
+        }
         JFrame frame = new JFrame("Snake Hunt"); // Create the main application window titled "Snake Hunt"
-        Main main = new Main();                       // Instantiate the Main game panel
-        frame.add(main);                              // Add the game panel to the frame
+        Main main = new Main(seed);                   // Instantiate the Main game panel
+        main.autopilotOn = Arrays.asList(args).contains("--autopilot");
+        main.leaderboard = new Leaderboard(LEADERBOARD_FILE);
+        Runtime.getRuntime().addShutdownHook(new Thread(main.leaderboard::close, "Snake Hunt leaderboard close"));
+        main.boardWidth = boardWidth;
+        main.boardHeight = boardHeight;
+        Component screen = main;                      // Component showing the game and receiving keys
+        if (active) {
+            main.activeRenderer = new ActiveRenderer(main);
+            main.activeRenderer.addKeyListener(main.keyAdapter);
+            screen = main.activeRenderer;
+        }
+        frame.add(screen);                            // Add the game screen to the frame
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE); // Exit the application when the frame is closed
         frame.setResizable(false);                     // Prevent the frame from being resized
         frame.pack();                                  // Adjust the frame size to fit the content
         frame.setLocationRelativeTo(null);             // Center the frame on the screen
         frame.setVisible(true);                        // Make the frame visible
-        main.setFocusable(true);                       // Allow the game panel to receive keyboard focus
-        main.requestFocusInWindow();                   // Request focus for the game panel to ensure it can capture input
+        screen.setFocusable(true);                     // Allow the game screen to receive keyboard focus
+        screen.requestFocusInWindow();                 // Request focus for the game screen to ensure it can capture input
         main.Menu();                                   // Display the main menu when the game starts
+        if (active) {
+            main.activeRenderer.start();               // Start drawing once the canvas is on screen
+        }
     }
 }
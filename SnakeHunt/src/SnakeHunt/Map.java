@@ -1,12 +1,26 @@
 package SnakeHunt;
 
 import java.awt.*;
+import java.awt.image.VolatileImage;
 import javax.swing.*;
 
 /**
  * Represents the game map, extending JPanel to handle the graphical rendering
- * of the game grid. This class is responsible for drawing the background and
- * grid lines that form the playing field for the Snake Hunt game.
+ * of the game grid. This class is responsible for drawing the background, the
+ * grid lines that form the playing field, and the snake and hunt on top of it.
+ * Game objects store board cells, which are turned into pixels here using
+ * UNIT_SIZE.
+ *
+ * The grid never changes during a game, so it is rendered once into an
+ * image and copied onto the screen each frame. The image is rebuilt only
+ * when the board size or the colors change, or when the graphics system
+ * loses its contents. It holds at most one window of cells, plus one cell
+ * each way, and is tiled over the part of the board inside the clip, so a
+ * board much larger than the window costs no more to draw than the window.
+ *
+ * Everything is drawn in board pixels. For a board larger than the window
+ * the caller translates the Graphics object by the Camera position, and the
+ * clip then selects the cells of the viewport.
  *
  * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
  * CE190616, Pham Gia Bao - CE191671
@@ -15,6 +29,15 @@ public class Map extends JPanel {
 
     public static final int UNIT_SIZE = 30; // Size of each grid unit in pixels
 
+    private int columns = Main.BOARD_WIDTH; // Number of board columns covered by the grid
+    private int rows = Main.BOARD_HEIGHT;   // Number of board rows covered by the grid
+    private Color gridColor = Color.DARK_GRAY; // Color of the grid lines
+    private final SpriteAtlas sprites = new SpriteAtlas(UNIT_SIZE); // Pre-rendered snake and hunt tiles
+
+    private VolatileImage gridImage; // Cached grid layer, null until first drawn
+    private Color gridImageBackground; // Background color the cached layer was rendered with
+    private Color gridImageLines;      // Line color the cached layer was rendered with
+
     /**
      * Constructor to initialize the map with a black background.
      */
@@ -22,25 +45,210 @@ public class Map extends JPanel {
         this.setBackground(Color.BLACK); // Set background color for the map
     }
 
+    /**
+     * Sets the number of board cells covered by the grid. The cached grid is
+     * rebuilt on the next draw if the size changed.
+     *
+     * @param columns the number of columns
+     * @param rows the number of rows
+     */
+    public void setBoardSize(int columns, int rows) {
+        if (columns != this.columns || rows != this.rows) {
+            this.columns = columns;
+            this.rows = rows;
+            flushGrid();
+        }
+    }
+
+    /**
+     * Sets the color of the grid lines. The cached grid is rebuilt on the
+     * next draw.
+     *
+     * @param gridColor the new line color
+     */
+    public void setGridColor(Color gridColor) {
+        this.gridColor = gridColor;
+    }
+
     /**
      * Draws the grid on the map using dark gray lines, creating a tiled effect
-     * for the game field.
+     * for the game field. The grid is copied from the cached layer, which is
+     * created or repainted first when needed, once for each tile of the layer
+     * meeting the clip.
      *
      * @param g the Graphics object used to render the grid
      */
     public void drawGrid(Graphics g) {
         Graphics2D g2d = (Graphics2D) g;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON); // Enable anti-aliasing for smoother lines
-        g2d.setColor(Color.DARK_GRAY); // Set line color to dark gray
+        GraphicsConfiguration config = g2d.getDeviceConfiguration();
+        do {
+            boolean themeChanged = !getBackground().equals(gridImageBackground) || !gridColor.equals(gridImageLines);
+            if (gridImage == null) {
+                int tileColumns = Math.min(columns, Main.SCREEN_WIDTH / UNIT_SIZE + 1);
+                int tileRows = Math.min(rows, Main.SCREEN_HEIGHT / UNIT_SIZE + 1);
+                gridImage = config.createCompatibleVolatileImage(tileColumns * UNIT_SIZE, tileRows * UNIT_SIZE);
+                renderGrid();
+            } else {
+                int state = gridImage.validate(config);
+                if (state == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    // The screen changed, so the layer must be created again for it
+                    flushGrid();
+                    continue;
+                }
+                if (state == VolatileImage.IMAGE_RESTORED || themeChanged) {
+                    renderGrid(); // The contents were lost or are out of date
+                }
+            }
+            drawTiles(g2d);
+        } while (gridImage == null || gridImage.contentsLost());
+
+        // Enable anti-aliasing for the snake and hunt drawn on top of the grid
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    }
 
-        // Draw vertical lines across the width of the screen
-        for (int i = 0; i < Main.SCREEN_WIDTH / UNIT_SIZE; i++) {
-            g2d.drawLine(i * UNIT_SIZE, 0, i * UNIT_SIZE, Main.SCREEN_HEIGHT);
+    /**
+     * Copies the cached layer onto every tile of the board meeting the clip,
+     * cutting the last tiles at the board edges.
+     */
+    private void drawTiles(Graphics2D g2d) {
+        int boardWidth = columns * UNIT_SIZE;
+        int boardHeight = rows * UNIT_SIZE;
+        int tileWidth = gridImage.getWidth();
+        int tileHeight = gridImage.getHeight();
+        int left = 0;
+        int top = 0;
+        int right = boardWidth;
+        int bottom = boardHeight;
+        Rectangle clip = g2d.getClipBounds();
+        if (clip != null) {
+            left = Math.max(left, clip.x);
+            top = Math.max(top, clip.y);
+            right = Math.min(right, clip.x + clip.width);
+            bottom = Math.min(bottom, clip.y + clip.height);
         }
+        for (int y = top / tileHeight * tileHeight; y < bottom; y += tileHeight) {
+            for (int x = left / tileWidth * tileWidth; x < right; x += tileWidth) {
+                int width = Math.min(tileWidth, boardWidth - x);
+                int height = Math.min(tileHeight, boardHeight - y);
+                g2d.drawImage(gridImage, x, y, x + width, y + height, 0, 0, width, height, null);
+            }
+        }
+    }
+
+    /**
+     * Paints the background and the grid lines into the cached layer.
+     */
+    private void renderGrid() {
+        Graphics2D g2d = gridImage.createGraphics();
+        try {
+            gridImageBackground = getBackground();
+            gridImageLines = gridColor;
+            g2d.setColor(gridImageBackground);
+            g2d.fillRect(0, 0, gridImage.getWidth(), gridImage.getHeight());
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON); // Enable anti-aliasing for smoother lines
+            g2d.setColor(gridImageLines); // Set line color
+
+            int width = gridImage.getWidth();
+            int height = gridImage.getHeight();
 
-        // Draw horizontal lines across the height of the screen
-        for (int i = 0; i < Main.SCREEN_HEIGHT / UNIT_SIZE; i++) {
-            g2d.drawLine(0, i * UNIT_SIZE, Main.SCREEN_WIDTH, i * UNIT_SIZE);
+            // Draw vertical lines across the width of the layer
+            for (int x = 0; x < width; x += UNIT_SIZE) {
+                g2d.drawLine(x, 0, x, height);
+            }
+
+            // Draw horizontal lines across the height of the layer
+            for (int y = 0; y < height; y += UNIT_SIZE) {
+                g2d.drawLine(0, y, width, y);
+            }
+        } finally {
+            g2d.dispose();
+        }
+    }
+
+    /**
+     * Releases the cached grid layer so it is created again on the next
+     * draw.
+     */
+    private void flushGrid() {
+        if (gridImage != null) {
+            gridImage.flush();
+            gridImage = null;
+        }
+    }
+
+    /**
+     * Draws the snake of a frame snapshot, with its head partway between the
+     * cell it left on the tick of the frame and the cell it is on. The game
+     * draws from the snapshot published by the thread ticking it instead of
+     * from the engine that thread keeps changing, and a renderer running
+     * faster than the game slides the head smoothly from one cell to the
+     * next. The head is a green pentagon oriented based on direction, and
+     * the body parts are ovals in shades of green picked from the cell they
+     * lie on. All tiles come from the sprite atlas.
+     *
+     * Only the cells inside the clip of the Graphics object are visited, and
+     * the snake parts among them are found through the bitmap of the
+     * snapshot. Repainting a few dirty cells therefore costs the same
+     * whatever the length of the snake.
+     *
+     * @param g the Graphics object used for drawing
+     * @param frame the frame to draw
+     * @param alpha how far the head has travelled, from 0 (previous cell) to 1
+     * (current cell)
+     */
+    public void drawSnake(Graphics g, FrameSnapshot frame, double alpha) {
+        int firstColumn = frame.firstColumn;
+        int lastColumn = frame.firstColumn + frame.columns - 1;
+        int firstRow = frame.firstRow;
+        int lastRow = frame.firstRow + frame.rows - 1;
+        Rectangle clip = g.getClipBounds();
+        if (clip != null) {
+            // Limit the drawing to the cells touched by the clip
+            firstColumn = Math.max(firstColumn, clip.x / UNIT_SIZE);
+            lastColumn = Math.min(lastColumn, (clip.x + clip.width - 1) / UNIT_SIZE);
+            firstRow = Math.max(firstRow, clip.y / UNIT_SIZE);
+            lastRow = Math.min(lastRow, (clip.y + clip.height - 1) / UNIT_SIZE);
+        }
+
+        int width = frame.boardWidth;
+        int head = frame.head;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int cell = column + row * width;
+                if (cell != head && frame.isOccupied(column, row)) {
+                    sprites.drawBody(g, SpriteAtlas.shadeOf(cell), column * UNIT_SIZE, row * UNIT_SIZE);
+                }
+            }
+        }
+
+        // Draw the head last, on top of the body part it is leaving
+        int headX = head % width * UNIT_SIZE;
+        int headY = head / width * UNIT_SIZE;
+        int previousHead = frame.previousHead;
+        if (previousHead >= 0 && previousHead != head && alpha < 1.0) {
+            int fromX = previousHead % width * UNIT_SIZE;
+            int fromY = previousHead / width * UNIT_SIZE;
+            headX = fromX + (int) Math.round((headX - fromX) * alpha);
+            headY = fromY + (int) Math.round((headY - fromY) * alpha);
+        }
+        sprites.drawHead(g, frame.direction, headX, headY);
+    }
+
+    /**
+     * Draws the hunt of a frame snapshot as a red oval, if it is on the board
+     * and inside the clip.
+     *
+     * @param g the Graphics object used to draw the hunt
+     * @param frame the frame to draw
+     */
+    public void drawHunt(Graphics g, FrameSnapshot frame) {
+        if (frame.hunt < 0) {
+            return;
+        }
+        int x = frame.hunt % frame.boardWidth * UNIT_SIZE;
+        int y = frame.hunt / frame.boardWidth * UNIT_SIZE;
+        if (g.hitClip(x, y, UNIT_SIZE, UNIT_SIZE)) {
+            sprites.drawHunt(g, x, y);
         }
     }
 }
@@ -0,0 +1,47 @@
+package SnakeHunt;
+
+/**
+ * Policy chooses the direction of the snake on every tick of a headless game,
+ * in place of a player. Policies are used by the batch runner to play many
+ * games, and each thread gets its own instance, so a policy may keep state
+ * between calls.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public interface Policy {
+
+    /**
+     * Prepares the policy for a new game. Policies using random choices
+     * reseed themselves here so that each game can be replayed on its own.
+     *
+     * @param seed the seed of the game
+     */
+    default void reset(long seed) {
+    }
+
+    /**
+     * Chooses the direction for the next tick.
+     *
+     * @param engine the game, not to be modified
+     * @return the direction, or null to keep going straight
+     */
+    Direction choose(GameEngine engine);
+
+    /**
+     * Checks if moving one cell in a direction keeps the snake on the board
+     * and off its own body. The tail counts as taken, even though it usually
+     * moves away.
+     *
+     * @param engine the game
+     * @param direction the direction to check
+     * @return true if the next cell is on the board and free
+     */
+    static boolean isSafe(GameEngine engine, Direction direction) {
+        Board board = engine.getBoard();
+        int head = engine.getSnake().getHead();
+        int x = board.cellX(head) + direction.getDx();
+        int y = board.cellY(head) + direction.getDy();
+        return board.contains(x, y) && !board.isOccupied(board.cellOf(x, y));
+    }
+}
@@ -0,0 +1,247 @@
+package SnakeHunt;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Protocol defines the binary messages between GameServer and its clients.
+ * Every message is a frame: an int with the number of bytes that follow, a
+ * type byte, then the fields of the type, all big-endian.
+ *
+ * Server to client:
+ * <ul>
+ * <li>WELCOME: the snake slot of the client (-1 for a spectator), the board
+ * width and height, the number of snakes and the tick period in
+ * nanoseconds.</li>
+ * <li>STATE: the full arena, sent on joining, when a round starts and to
+ * clients that fell behind: the round, the tick, then for each snake its
+ * direction and its cells from head to tail (none once dead), then the food
+ * cells.</li>
+ * <li>TICK: the changes of one tick: the tick, the server time it was played,
+ * one 4-bit code for each snake alive before the tick, in snake order, two
+ * per byte, then the food cells spawned and a checksum of the new state. A
+ * code is the direction ordinal the snake moved in, or DIED. Clients know
+ * where the food is, so they can tell when a head eats and the tail stays,
+ * which keeps the update to half a byte per snake.</li>
+ * </ul>
+ * Client to server:
+ * <ul>
+ * <li>INPUT: the ordinal of the direction the client wants its snake to take
+ * on the next tick. The last input received before a tick counts.</li>
+ * </ul>
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public final class Protocol {
+
+    public static final byte WELCOME = 1; // Server to client message types
+    public static final byte STATE = 2;
+    public static final byte TICK = 3;
+    public static final byte INPUT = 10;  // Client to server message type
+
+    /**
+     * Code of a snake that died during a tick.
+     */
+    public static final int DIED = 4;
+
+    /**
+     * Bytes of the length field in front of every frame.
+     */
+    public static final int HEADER_BYTES = 4;
+
+    /**
+     * Largest frame a client may send.
+     */
+    public static final int MAX_CLIENT_FRAME = 16;
+
+    private static final long MIX = 0x9E3779B97F4A7C15L; // Spreads cell numbers over the checksum bits
+
+    private Protocol() {
+    }
+
+    /**
+     * Writes a WELCOME frame.
+     *
+     * @param out the buffer to write to
+     * @param slot the snake of the client, or -1 for a spectator
+     * @param width the board width in cells
+     * @param height the board height in cells
+     * @param snakes the number of snakes
+     * @param tickNanos the tick period in nanoseconds
+     */
+    public static void writeWelcome(ByteBuffer out, int slot, int width, int height, int snakes, long tickNanos) {
+        out.putInt(1 + 4 * 4 + 8);
+        out.put(WELCOME);
+        out.putInt(slot);
+        out.putInt(width);
+        out.putInt(height);
+        out.putInt(snakes);
+        out.putLong(tickNanos);
+    }
+
+    /**
+     * Computes the size of the STATE frame of an arena, header included.
+     *
+     * @param arena the arena
+     * @return the number of bytes
+     */
+    public static int stateSize(Arena arena) {
+        int size = HEADER_BYTES + 1 + 4 + 4 + 4;
+        for (int i = 0; i < arena.getSnakeCount(); i++) {
+            size += 1 + 4 + (arena.isAlive(i) ? 4 * arena.getSnake(i).getLength() : 0);
+        }
+        return size + 4 + 4 * arena.getFoodCount();
+    }
+
+    /**
+     * Writes a STATE frame with the whole arena.
+     *
+     * @param out the buffer to write to, with at least stateSize() bytes
+     * left
+     * @param arena the arena
+     * @param round the number of the round
+     */
+    public static void writeState(ByteBuffer out, Arena arena, int round) {
+        out.putInt(stateSize(arena) - HEADER_BYTES);
+        out.put(STATE);
+        out.putInt(round);
+        out.putInt(arena.getTick());
+        out.putInt(arena.getSnakeCount());
+        for (int i = 0; i < arena.getSnakeCount(); i++) {
+            Snake snake = arena.getSnake(i);
+            out.put((byte) snake.direction.ordinal());
+            if (arena.isAlive(i)) {
+                out.putInt(snake.getLength());
+                for (int s = 0; s < snake.getLength(); s++) {
+                    out.putInt(snake.getSegment(s));
+                }
+            } else {
+                out.putInt(0);
+            }
+        }
+        out.putInt(arena.getFoodCount());
+        for (int i = 0; i < arena.getFoodCount(); i++) {
+            out.putInt(arena.getFoodCell(i));
+        }
+    }
+
+    /**
+     * Computes the size of the TICK frame of a tick, header included.
+     *
+     * @param arena the arena, after the tick
+     * @param aliveBefore the number of snakes alive before the tick
+     * @param spawnedFrom the first food slot filled during the tick
+     * @return the number of bytes
+     */
+    public static int tickSize(Arena arena, int aliveBefore, int spawnedFrom) {
+        return HEADER_BYTES + 1 + 4 + 8 + 4 + (aliveBefore + 1) / 2 + 4 + 4 * (arena.getFoodCount() - spawnedFrom) + 8;
+    }
+
+    /**
+     * Computes the size of the largest TICK frame of an arena, in which every
+     * snake was alive and every piece of food was eaten and spawned again.
+     *
+     * @param snakes the number of snakes
+     * @param foodCount the number of pieces of food
+     * @return the number of bytes, as a long since it may not fit an int
+     */
+    public static long maxTickSize(int snakes, int foodCount) {
+        return HEADER_BYTES + 1 + 4 + 8 + 4 + (snakes + 1L) / 2 + 4 + 4L * foodCount + 8;
+    }
+
+    /**
+     * Writes a TICK frame for the tick the arena has just played.
+     *
+     * @param out the buffer to write to, with at least tickSize() bytes left
+     * @param arena the arena, after the tick
+     * @param wasAlive which snakes were alive before the tick
+     * @param aliveBefore the number of snakes alive before the tick
+     * @param spawnedFrom the first food slot filled during the tick, from
+     * Arena.getSpawnedFrom()
+     * @param nanos the server time of the tick, from System.nanoTime()
+     */
+    public static void writeTick(ByteBuffer out, Arena arena, boolean[] wasAlive, int aliveBefore, int spawnedFrom,
+            long nanos) {
+        int spawned = arena.getFoodCount() - spawnedFrom;
+        out.putInt(tickSize(arena, aliveBefore, spawnedFrom) - HEADER_BYTES);
+        out.put(TICK);
+        out.putInt(arena.getTick());
+        out.putLong(nanos);
+        out.putInt(aliveBefore);
+        int pending = -1; // Code waiting for the second half of its byte
+        for (int i = 0; i < wasAlive.length; i++) {
+            if (wasAlive[i]) {
+                int code = arena.isAlive(i) ? arena.getSnake(i).direction.ordinal() : DIED;
+                if (pending < 0) {
+                    pending = code;
+                } else {
+                    out.put((byte) (pending | code << 4));
+                    pending = -1;
+                }
+            }
+        }
+        if (pending >= 0) {
+            out.put((byte) pending);
+        }
+        out.putInt(spawned);
+        for (int i = spawnedFrom; i < arena.getFoodCount(); i++) {
+            out.putInt(arena.getFoodCell(i));
+        }
+        out.putLong(checksum(arena));
+    }
+
+    /**
+     * Writes an INPUT frame.
+     *
+     * @param out the buffer to write to
+     * @param direction the direction wanted for the next tick
+     */
+    public static void writeInput(ByteBuffer out, Direction direction) {
+        out.putInt(2);
+        out.put(INPUT);
+        out.put((byte) direction.ordinal());
+    }
+
+    /**
+     * Computes the checksum of an arena sent with every tick.
+     *
+     * @param arena the arena
+     * @return the checksum
+     */
+    public static long checksum(Arena arena) {
+        long hash = 0;
+        for (int i = 0; i < arena.getSnakeCount(); i++) {
+            Snake snake = arena.getSnake(i);
+            hash = hashSnake(hash, arena.isAlive(i), snake.getHead(), snake.getLength());
+        }
+        for (int i = 0; i < arena.getFoodCount(); i++) {
+            hash += hashFood(arena.getFoodCell(i));
+        }
+        return hash;
+    }
+
+    /**
+     * Adds one snake to a checksum. Snakes are added in order.
+     *
+     * @param hash the checksum so far
+     * @param alive true if the snake is alive
+     * @param head the head cell
+     * @param length the number of parts
+     * @return the new checksum
+     */
+    static long hashSnake(long hash, boolean alive, int head, int length) {
+        return alive ? (hash * 31 + head) * 31 + length : hash * 31 - 1;
+    }
+
+    /**
+     * Hashes a piece of food. The hashes of all pieces are summed, since the
+     * server and the clients keep the food in different orders.
+     *
+     * @param cell the cell of the food
+     * @return the hash
+     */
+    static long hashFood(int cell) {
+        long z = (cell + 1) * MIX;
+        return z ^ (z >>> 29);
+    }
+}
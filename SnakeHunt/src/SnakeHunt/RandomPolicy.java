@@ -0,0 +1,39 @@
+package SnakeHunt;
+
+import java.util.Random;
+
+/**
+ * RandomPolicy keeps going straight most of the time and otherwise turns at
+ * random, always preferring a move that does not lose the game at once.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class RandomPolicy implements Policy {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int TURN_ODDS = 4; // Turns on one tick out of TURN_ODDS when going straight is safe
+
+    private final Random random = new Random(); // Reseeded for every game
+
+    @Override
+    public void reset(long seed) {
+        random.setSeed(seed);
+    }
+
+    @Override
+    public Direction choose(GameEngine engine) {
+        Direction current = engine.getSnake().direction;
+        if (random.nextInt(TURN_ODDS) != 0 && Policy.isSafe(engine, current)) {
+            return current;
+        }
+        int first = random.nextInt(DIRECTIONS.length);
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            Direction direction = DIRECTIONS[(first + i) % DIRECTIONS.length];
+            if (direction != current.opposite() && Policy.isSafe(engine, direction)) {
+                return direction;
+            }
+        }
+        return current; // Trapped, every move loses
+    }
+}
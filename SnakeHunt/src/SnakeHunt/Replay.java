@@ -0,0 +1,273 @@
+package SnakeHunt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Replay records one played level so that it can be played again exactly.
+ * Since every hunt comes from the seeded random source of GameEngine, the
+ * board size, the level, the seed and the direction of the snake on each
+ * tick are all that is needed.
+ *
+ * Each tick is stored as a 2-bit turn relative to the direction of the
+ * previous tick: straight, right or left. The snake cannot reverse, so these
+ * three cover every move, and four ticks fit in a byte. The packed turns are
+ * compressed with Deflate when written; a snake goes straight on most ticks,
+ * so long runs of zero bits shrink to almost nothing.
+ *
+ * The file starts with the magic "SHRP" and a version byte, followed by the
+ * board width and height, the level, the seed and the number of ticks, then
+ * the compressed turns.
+ *
+ * Playing a replay back runs the engine headless, as fast as it can, which
+ * is many thousands of times faster than the game itself. Run this class
+ * with replay files as arguments to check them and measure the speed.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class Replay {
+
+    /**
+     * Version of the file format written by this class.
+     */
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x53485250; // "SHRP"
+    private static final int STRAIGHT = 0; // Turn codes, as quarter turns clockwise
+    private static final int RIGHT = 1;
+    private static final int LEFT = 3;
+    private static final int INITIAL_CAPACITY = 256; // Bytes of turns before the buffer grows
+    private static final int READ_CHUNK = 64 * 1024; // Bytes of turns read before the buffer grows, when reading
+
+    private final int width;   // Board width in cells
+    private final int height;  // Board height in cells
+    private final int level;   // Level played
+    private final long seed;   // Seed of the random source when the level started
+    private byte[] turns;      // Turn of each tick, four per byte, first tick in the low bits
+    private int ticks;         // Number of ticks recorded
+
+    /**
+     * Constructor to create an empty replay.
+     *
+     * @param width the board width in cells
+     * @param height the board height in cells
+     * @param level the level played
+     * @param seed the seed of the level
+     */
+    public Replay(int width, int height, int level, long seed) {
+        this.width = width;
+        this.height = height;
+        this.level = level;
+        this.seed = seed;
+        this.turns = new byte[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Creates an empty replay for the level an engine has just started.
+     *
+     * @param engine the engine, reset with a seed and not stepped yet
+     * @return the replay
+     */
+    public static Replay start(GameEngine engine) {
+        Board board = engine.getBoard();
+        return new Replay(board.getWidth(), board.getHeight(), engine.getLevel(), engine.getSeed());
+    }
+
+    /**
+     * Records the move of one tick.
+     *
+     * @param before the direction of the snake before the tick
+     * @param after the direction of the snake after the tick
+     */
+    public void record(Direction before, Direction after) {
+        int turn = after == before ? STRAIGHT : after == before.right() ? RIGHT : LEFT;
+        if (ticks >> 2 == turns.length) {
+            turns = Arrays.copyOf(turns, turns.length * 2);
+        }
+        turns[ticks >> 2] |= turn << ((ticks & 3) << 1);
+        ticks++;
+    }
+
+    /**
+     * Decodes the direction of a tick.
+     *
+     * @param tick the tick, from 0 to getTickCount() - 1
+     * @param current the direction of the snake before the tick
+     * @return the direction of the snake during the tick
+     */
+    public Direction directionAt(int tick, Direction current) {
+        int turn = (turns[tick >> 2] >> ((tick & 3) << 1)) & 3;
+        return turn == STRAIGHT ? current : turn == RIGHT ? current.right() : current.left();
+    }
+
+    /**
+     * Plays the whole replay on a new engine, as fast as possible.
+     *
+     * @return the engine after the last tick
+     */
+    public GameEngine play() {
+        GameEngine engine = new GameEngine(width, height, seed);
+        engine.reset(level, seed);
+        for (int tick = 0; tick < ticks; tick++) {
+            engine.step(directionAt(tick, engine.getSnake().direction));
+        }
+        return engine;
+    }
+
+    /**
+     * Writes the replay. The stream is not closed.
+     *
+     * @param out where to write
+     * @throws IOException if the replay cannot be written
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeInt(width);
+        data.writeInt(height);
+        data.writeByte(level);
+        data.writeLong(seed);
+        data.writeInt(ticks);
+        data.flush();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            DeflaterOutputStream compressed = new DeflaterOutputStream(out, deflater);
+            compressed.write(turns, 0, (ticks + 3) >> 2);
+            compressed.finish();
+        } finally {
+            deflater.end();
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a replay written by write(). The stream is not closed. The turns
+     * are read in chunks and the buffer only grows as they arrive, so a
+     * damaged tick count cannot make it allocate more than the stream holds.
+     *
+     * @param in where to read from
+     * @return the replay
+     * @throws IOException if the data cannot be read, ends early or is not a
+     * replay of a supported version
+     */
+    public static Replay read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a Snake Hunt replay");
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported replay version " + version);
+        }
+        int width = data.readInt();
+        int height = data.readInt();
+        int level = data.readUnsignedByte();
+        long seed = data.readLong();
+        int ticks = data.readInt();
+        if (width <= 0 || height <= 0 || level < 1 || level > GameEngine.MAX_LEVEL || ticks < 0) {
+            throw new IOException("Corrupt replay header");
+        }
+        int bytes = (int) (((long) ticks + 3) >> 2); // In long, since ticks + 3 may overflow
+        Replay replay = new Replay(width, height, level, seed);
+        replay.turns = new byte[Math.max(INITIAL_CAPACITY, Math.min(bytes, READ_CHUNK))];
+        Inflater inflater = new Inflater();
+        try {
+            DataInputStream turns = new DataInputStream(new InflaterInputStream(in, inflater));
+            for (int read = 0; read < bytes; ) {
+                int chunk = Math.min(bytes - read, READ_CHUNK);
+                if (replay.turns.length < read + chunk) {
+                    replay.turns = Arrays.copyOf(replay.turns, (int) Math.min(bytes, 2L * replay.turns.length));
+                }
+                turns.readFully(replay.turns, read, chunk);
+                read += chunk;
+            }
+        } catch (EOFException e) {
+            throw new IOException("Replay ends early"); // Fewer turns than the header counts
+        } finally {
+            inflater.end();
+        }
+        replay.ticks = ticks;
+        return replay;
+    }
+
+    /**
+     * Getter for the number of ticks recorded.
+     *
+     * @return the tick count
+     */
+    public int getTickCount() {
+        return ticks;
+    }
+
+    /**
+     * Getter for the level played.
+     *
+     * @return the level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Getter for the seed of the level.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Writes the replay to a file, replacing it if it exists.
+     *
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(out);
+        }
+    }
+
+    /**
+     * Plays back each replay file given as argument and prints the result,
+     * the size of the file per minute of play and how many times faster than
+     * the game the playback ran.
+     *
+     * @param args the replay files
+     * @throws IOException if a file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        for (String file : args) {
+            Replay replay;
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                replay = read(in);
+            }
+            long start = System.nanoTime();
+            GameEngine engine = replay.play();
+            long elapsed = Math.max(1, System.nanoTime() - start);
+            double gameNanos = (double) replay.ticks * GameEngine.tickNanosFor(replay.level);
+            long size = Files.size(Path.of(file));
+            System.out.printf("%s: level %d, %d ticks, %s with %d hunts, %d bytes (%.1f bytes per minute),"
+                    + " played %.0fx faster than real time%n", file, replay.level, replay.ticks,
+                    engine.getStatus(), engine.getSnake().huntsEaten, size, size / (gameNanos / 60e9),
+                    gameNanos / elapsed);
+        }
+    }
+}
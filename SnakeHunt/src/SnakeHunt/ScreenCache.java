@@ -0,0 +1,93 @@
+package SnakeHunt;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * ScreenCache keeps the menu, instruction and end screens as images, so
+ * that a screen made only of text is rasterized once instead of on every
+ * frame. Each screen has a slot holding its image and the key it was drawn
+ * for, such as the frame an end screen shows; the image is drawn again
+ * only when asked for with a different key. Showing a cached screen is a
+ * single image copy and allocates nothing.
+ *
+ * The images are opaque and filled with the background color before the
+ * screen is drawn into them. They are created the first time their screen
+ * is shown.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class ScreenCache {
+
+    private final int width;  // Width of every screen in pixels
+    private final int height; // Height of every screen in pixels
+    private final Color background; // Color the images are filled with
+    private final BufferedImage[] images; // Image of each screen, null until first shown
+    private final long[] keys;            // Key each image was drawn for
+    private int rasterCount; // Number of times a screen was drawn into its image
+
+    /**
+     * Constructor to create an empty cache.
+     *
+     * @param screens the number of screens, numbered from 0
+     * @param width the width of the screens in pixels
+     * @param height the height of the screens in pixels
+     * @param background the color behind the screens
+     */
+    public ScreenCache(int screens, int width, int height, Color background) {
+        this.width = width;
+        this.height = height;
+        this.background = background;
+        this.images = new BufferedImage[screens];
+        this.keys = new long[screens];
+    }
+
+    /**
+     * Checks if a screen must be drawn again for the given key, and if so
+     * clears its image and returns a Graphics object drawing into it. The
+     * caller draws the screen, disposes of the Graphics object and then
+     * calls draw().
+     *
+     * @param screen the screen number
+     * @param key the value the screen shows, such as a frame number
+     * @return the Graphics object of the image, or null if the image is
+     * already up to date
+     */
+    public Graphics update(int screen, long key) {
+        BufferedImage image = images[screen];
+        if (image != null && keys[screen] == key) {
+            return null;
+        }
+        if (image == null) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            images[screen] = image;
+        }
+        keys[screen] = key;
+        rasterCount++;
+        Graphics g = image.createGraphics();
+        g.setColor(background);
+        g.fillRect(0, 0, width, height);
+        return g;
+    }
+
+    /**
+     * Copies the image of a screen to the top-left corner of the Graphics
+     * object. update() must have been called for the screen before.
+     *
+     * @param g the Graphics object to draw on
+     * @param screen the screen number
+     */
+    public void draw(Graphics g, int screen) {
+        g.drawImage(images[screen], 0, 0, null);
+    }
+
+    /**
+     * Getter for the number of times a screen was drawn into its image.
+     *
+     * @return the number of rasterizations
+     */
+    public int getRasterCount() {
+        return rasterCount;
+    }
+}
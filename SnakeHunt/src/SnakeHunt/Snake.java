@@ -1,190 +1,262 @@
 package SnakeHunt;
 
-import java.awt.*;
-import java.util.ArrayList;
-import java.util.Random;
+import java.nio.ByteBuffer;
 
 /**
- * Snake class handles the snake coordinates, growth, movement, and drawing.
- * It manages the snake body as a list of coordinates and updates its state
- * based on user input and game events.
+ * Snake class handles the snake cells, growth and movement on the board. It
+ * keeps the body in a circular buffer of packed cell indexes (x + y * width)
+ * and updates its state based on the direction given by the game engine.
+ * Drawing is done by the Map class, so the snake itself has no dependency on
+ * AWT.
+ *
+ * A move only writes a new head in front of the buffer and drops the tail
+ * from the back, so it costs the same whatever the length of the snake.
+ * Growing simply skips dropping the tail on the next move. Every move also
+ * updates the occupancy bitmap of the board: the head cell is marked and the
+ * vacated tail cell is freed, which keeps collision checks to a single bit
+ * lookup. Once the buffer is large enough, a move allocates nothing.
  *
  * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
  * CE190616, Pham Gia Bao - CE191671
  */
 public class Snake {
 
-    // A list representing the body of the snake, with each part stored as a SnakeCoordinate (x, y)
-    public ArrayList<SnakeCoordinate> body;
+    private static final int INITIAL_CAPACITY = 16; // Starting size of the body buffer
 
-    // The current direction the snake is moving: 'U' for up, 'D' for down, 'L' for left, 'R' for right
-    public char direction = 'R'; // Default direction is right
+    // Circular buffer holding the body cells, part i is stored at (headIndex + i) % cells.length
+    private int[] cells;
+    private int headIndex;   // Position of the head in the buffer
+    private int bodyParts;   // The current number of body parts in the snake (starts with 1)
+    private int growPending; // Number of moves that will keep the tail in place
 
-    // The current number of body parts in the snake (starts with 1)
-    private int bodyParts = 1;
+    // The current direction the snake is moving
+    public Direction direction = Direction.RIGHT; // Default direction is right
 
     // Tracks the number of hunts eaten by the snake
     public int huntsEaten;
 
+    private final Board board; // The board the snake moves on, holds the occupancy bitmap
+    private boolean collided;  // True once the head has hit a wall or entered its own body
+    private boolean hitWall;   // True if the collision was with a wall
+
     /**
-     * Constructor initializes the snake body with one part at (0, 0).
+     * Constructor initializes the snake body with one part at cell (0, 0).
+     * The board is expected to be empty.
+     *
+     * @param board the board the snake moves on
      */
-    public Snake() {
-        body = new ArrayList<>();
-        body.add(new SnakeCoordinate(0, 0)); // Initial head position
+    public Snake(Board board) {
+        this(board, board.cellOf(0, 0), Direction.RIGHT);
     }
 
     /**
-     * Moves the snake body and head based on the current direction.
+     * Constructor initializes the snake body with one part at the given cell,
+     * heading in the given direction. The cell is expected to be free.
+     *
+     * @param board the board the snake moves on
+     * @param cell the cell of the head
+     * @param direction the initial direction
      */
-    public void move() {
-        // Move each body part to the position of the part in front of it
-        for (int i = bodyParts - 1; i > 0; i--) {
-            body.get(i).setX(body.get(i - 1).getX());
-            body.get(i).setY(body.get(i - 1).getY());
-        }
+    public Snake(Board board, int cell, Direction direction) {
+        this.board = board;
+        this.direction = direction;
+        cells = new int[INITIAL_CAPACITY];
+        cells[0] = cell; // Initial head position
+        headIndex = 0;
+        bodyParts = 1;
+        board.occupy(cell);
+    }
 
-        // Move the snake's head according to the current direction
-        SnakeCoordinate head = body.get(0);
-        switch (direction) {
-            case 'U':
-                head.setY(head.getY() - Map.UNIT_SIZE); // Move up by one unit
-                // Commented-out wrapping logic (optional screen edge behavior)
-//                if (head.getY() < 0) {
-//                    head.setY(Main.SCREEN_HEIGHT - Map.UNIT_SIZE); // Wrap to bottom if past top edge
-//                }
-                break;
-            case 'D':
-                head.setY(head.getY() + Map.UNIT_SIZE); // Move down by one unit
-//                if (head.getY() >= Main.SCREEN_HEIGHT) {
-//                    head.setY(0); // Wrap to top if past bottom edge
-//                }
-                break;
-            case 'L':
-                head.setX(head.getX() - Map.UNIT_SIZE); // Move left by one unit
-//                if (head.getX() < 0) {
-//                    head.setX(Main.SCREEN_WIDTH - Map.UNIT_SIZE); // Wrap to right if past left edge
-//                }
-                break;
-            case 'R':
-                head.setX(head.getX() + Map.UNIT_SIZE); // Move right by one unit
-//                if (head.getX() >= Main.SCREEN_WIDTH) {
-//                    head.setX(0); // Wrap to left if past right edge
-//                }
-                break;
+    /**
+     * Constructor restores a snake written by writeState(). The cells are not
+     * marked on the board, which is restored from the same snapshot; the
+     * caller checks that the two agree. The parts are checked to lie on the
+     * board, each next to the one before.
+     *
+     * @param board the board the snake moves on
+     * @param in the buffer to read from
+     * @throws IllegalArgumentException if the state is inconsistent
+     */
+    Snake(Board board, ByteBuffer in) {
+        this.board = board;
+        int ordinal = in.get();
+        if (ordinal < 0 || ordinal >= Direction.values().length) {
+            throw new IllegalArgumentException("Direction out of range: " + ordinal);
+        }
+        this.direction = Direction.values()[ordinal];
+        this.huntsEaten = in.getInt();
+        this.growPending = in.getInt();
+        if (huntsEaten < 0 || growPending < 0 || growPending > huntsEaten) { // Each hunt eaten grows one part
+            throw new IllegalArgumentException("Score or growth out of range: " + huntsEaten + ", " + growPending);
+        }
+        int cellCount = board.getWidth() * board.getHeight();
+        int length = in.getInt();
+        if (length < 1 || length > cellCount) {
+            throw new IllegalArgumentException("Snake length out of range: " + length);
+        }
+        cells = new int[Math.max(INITIAL_CAPACITY, length)];
+        in.asIntBuffer().get(cells, 0, length); // Head first, so the buffer starts unwrapped
+        in.position(in.position() + 4 * length);
+        for (int i = 0; i < length; i++) {
+            int cell = cells[i];
+            if (cell < 0 || cell >= cellCount) {
+                throw new IllegalArgumentException("Snake part " + i + " off the board: " + cell);
+            }
+            if (i > 0 && Math.abs(board.cellX(cell) - board.cellX(cells[i - 1]))
+                    + Math.abs(board.cellY(cell) - board.cellY(cells[i - 1])) != 1) {
+                throw new IllegalArgumentException("Snake part " + i + " is not next to the one before");
+            }
         }
+        headIndex = 0;
+        bodyParts = length;
     }
 
     /**
-     * Draws the snake on the screen. The head is rendered as a green pentagon
-     * oriented based on direction, while the body parts are ovals with random
-     * shades of green.
-     *
-     * @param g the Graphics object used for drawing
-     */
-    public void draw(Graphics g) {
-        for (int i = 0; i < body.size(); i++) {
-            if (i == 0) {
-                g.setColor(Color.GREEN); // The snake's head is green
-                int xCenter = body.get(i).getX() + Map.UNIT_SIZE / 2; // Center x of pentagon
-                int yCenter = body.get(i).getY() + Map.UNIT_SIZE / 2; // Center y of pentagon
-                int radius = Map.UNIT_SIZE / 2; // Radius for pentagon
-
-                // Define arrays for pentagon vertices
-                int[] xPoints = new int[5];
-                int[] yPoints = new int[5];
-                double angleOffset = 0; // Default rotation angle for right-facing head
-                switch (direction) {
-                    case 'U':
-                        angleOffset = -Math.PI / 2; // Rotate 90° counterclockwise for up
-                        break;
-                    case 'D':
-                        angleOffset = Math.PI / 2;  // Rotate 90° clockwise for down
-                        break;
-                    case 'L':
-                        angleOffset = Math.PI;      // Rotate 180° for left
-                        break;
-                    case 'R':
-                        angleOffset = 0;            // No rotation for right
-                        break;
-                }
-
-                // Calculate pentagon points based on center, radius, and direction
-                for (int j = 0; j < 5; j++) {
-                    double angle = 2 * Math.PI / 5 * j + angleOffset; // Angle for each vertex
-                    xPoints[j] = (int) (xCenter + radius * Math.cos(angle)); // X-coordinate
-                    yPoints[j] = (int) (yCenter + radius * Math.sin(angle)); // Y-coordinate
-                }
-
-                // Draw the head as a filled pentagon
-                g.fillPolygon(xPoints, yPoints, 5);
-            } else {
-                // Generate random color for body parts with emphasis on green
-                Random random = new Random();
-                int red = random.nextInt(100);       // Red color range: 0 - 99
-                int green = random.nextInt(100) + 155; // Green color range: 155 - 255
-                int blue = random.nextInt(100);      // Blue color range: 0 - 99
-                g.setColor(new Color(red, green, blue)); // Set color for body part
-                // Draw each body part as a filled oval
-                g.fillOval(body.get(i).getX(), body.get(i).getY(), Map.UNIT_SIZE, Map.UNIT_SIZE);
-            }
+     * Changes the direction of the snake, ignoring a request to reverse
+     * straight back into its own body.
+     *
+     * @param newDirection the requested direction, or null to keep going
+     * straight
+     */
+    public void turn(Direction newDirection) {
+        if (newDirection != null && newDirection != direction.opposite()) {
+            direction = newDirection;
         }
     }
 
     /**
-     * Grows the snake by adding a new body part. The new part is positioned
-     * opposite the current direction of movement to simulate natural growth.
+     * Moves the snake one cell based on the current direction. The new head
+     * is written in front of the buffer and, unless the snake is growing, the
+     * tail is dropped and its cell freed on the board. A snake about to leave
+     * the board stays where it is and is marked as collided.
      */
-    public void grow() {
-        // Get the coordinates of the last part of the snake
-        SnakeCoordinate lastPart = body.get(body.size() - 1);
-
-        int newX = lastPart.getX();
-        int newY = lastPart.getY();
-
-        // Position the new part based on the current direction
-        switch (direction) {
-            case 'U':
-                newY += Map.UNIT_SIZE; // Add below if moving up
-                break;
-            case 'D':
-                newY -= Map.UNIT_SIZE; // Add above if moving down
-                break;
-            case 'L':
-                newX += Map.UNIT_SIZE; // Add to the right if moving left
-                break;
-            case 'R':
-                newX -= Map.UNIT_SIZE; // Add to the left if moving right
-                break;
+    public void move() {
+        int newHead = nextHead();
+
+        // Collision with wall (out of bounds)
+        if (newHead < 0) {
+            collided = true;
+            hitWall = true;
+            return;
+        }
+
+        if (growPending > 0) {
+            growPending--; // Keep the tail and add one part in front
+        } else {
+            dropTail();    // Drop the tail and free its cell
         }
 
-        body.add(new SnakeCoordinate(newX, newY)); // Add new part to the body
-        huntsEaten++; // Increment hunts eaten
-        bodyParts++;  // Increase body length
+        // The head hits itself when its new cell is still taken
+        if (board.isOccupied(newHead)) {
+            collided = true;
+        }
+        pushHead(newHead);
     }
 
     /**
-     * Checks for collisions with the snake own body or the screen boundaries.
+     * Computes the cell the head moves to in the current direction, without
+     * moving.
      *
-     * @return true if no collision occurs, false if a collision is detected
+     * @return the next head cell, or -1 if it is off the board
      */
-    public boolean checkCollisions() {
-        SnakeCoordinate head = body.get(0); // Head of the snake
+    public int nextHead() {
+        int head = cells[headIndex];
+        int newX = board.cellX(head) + direction.getDx();
+        int newY = board.cellY(head) + direction.getDy();
+        return board.contains(newX, newY) ? board.cellOf(newX, newY) : -1;
+    }
 
-        // Check for self-collision
-        for (int i = 1; i < body.size(); i++) {
-            if (head.equals(body.get(i))) {
-                return false; // Collision with itself
-            }
+    /**
+     * Removes the last body part and frees its cell on the board. Used with
+     * pushHead() by callers that resolve collisions themselves, such as the
+     * arena.
+     */
+    void dropTail() {
+        board.release(cells[index(bodyParts - 1)]);
+        bodyParts--;
+    }
+
+    /**
+     * Adds a new head in front of the body and marks its cell on the board,
+     * without checking for a collision.
+     *
+     * @param cell the cell of the new head
+     */
+    void pushHead(int cell) {
+        if (bodyParts == cells.length) {
+            enlarge();
         }
+        headIndex = headIndex == 0 ? cells.length - 1 : headIndex - 1;
+        cells[headIndex] = cell;
+        bodyParts++;
+        board.occupy(cell);
+    }
+
+    /**
+     * Computes the number of bytes written by writeState().
+     *
+     * @return the number of bytes
+     */
+    long stateSize() {
+        return 1 + 4 + 4 + 4 + 4L * bodyParts;
+    }
+
+    /**
+     * Writes the direction, score, pending growth and body cells from head
+     * to tail to a buffer. The body is copied in at most two bulk copies, one
+     * per side of the wrap of the circular buffer.
+     *
+     * @param out the buffer to write to, with stateSize() bytes left
+     */
+    void writeState(ByteBuffer out) {
+        out.put((byte) direction.ordinal());
+        out.putInt(huntsEaten);
+        out.putInt(growPending);
+        out.putInt(bodyParts);
+        int first = Math.min(bodyParts, cells.length - headIndex); // Parts before the buffer wraps
+        out.asIntBuffer().put(cells, headIndex, first).put(cells, 0, bodyParts - first);
+        out.position(out.position() + 4 * bodyParts);
+    }
 
-        // Check for wall collisions (out of bounds)
-        if (head.getX() < 0 || head.getX() >= Main.SCREEN_WIDTH
-                || head.getY() < 0 || head.getY() >= Main.SCREEN_HEIGHT) {
-            return false; // Collision with wall
+    /**
+     * Frees every cell of the body on the board, leaving the snake in place
+     * as collided. Used by the arena to clear away a dead snake.
+     */
+    void releaseBody() {
+        for (int i = 0; i < bodyParts; i++) {
+            board.release(cells[index(i)]);
         }
+        collided = true;
+    }
+
+    /**
+     * Grows the snake by one body part. The tail stays in place on the next
+     * move while the head advances.
+     */
+    public void grow() {
+        growPending++; // Keep the tail on the next move
+        huntsEaten++;  // Increment hunts eaten
+    }
 
-        return true; // No collision
+    /**
+     * Checks for collisions with the snake own body or the board boundaries.
+     * The check is made by move() against the occupancy bitmap, so this only
+     * reports its result.
+     *
+     * @return true if no collision occurs, false if a collision is detected
+     */
+    public boolean checkCollisions() {
+        return !collided;
+    }
+
+    /**
+     * Checks if the collision reported by checkCollisions() was with a wall
+     * rather than with the body.
+     *
+     * @return true if the snake tried to leave the board
+     */
+    public boolean hasHitWall() {
+        return hitWall;
     }
 
     /**
@@ -192,14 +264,91 @@ public class Snake {
      * occurs, the snake grows and a new hunt is generated.
      *
      * @param hunt the Hunt object to check for collision with
+     * @return true if the hunt was eaten this move, false otherwise
      */
-    public void checkHunt(Hunt hunt) {
-        SnakeCoordinate head = body.get(0); // Head of the snake
-
-        // Check if the head is at the same position as the hunt
-        if (head.getX() == hunt.getX() && head.getY() == hunt.getY()) {
+    public boolean checkHunt(Hunt hunt) {
+        // Check if the head is on the same cell as the hunt
+        if (cells[headIndex] == hunt.getCell()) {
             grow();       // Snake grows
             hunt.newHunt(); // Generate a new hunt
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Getter for the cell of the head.
+     *
+     * @return the head cell index
+     */
+    public int getHead() {
+        return cells[headIndex];
+    }
+
+    /**
+     * Getter for the cell of a body part, counted from the head.
+     *
+     * @param i the position of the part, 0 for the head
+     * @return the cell index of the part
+     */
+    public int getSegment(int i) {
+        return cells[index(i)];
+    }
+
+    /**
+     * Getter for the cell of the last body part.
+     *
+     * @return the tail cell index, the head for a snake of one part
+     */
+    public int getTail() {
+        return cells[index(bodyParts - 1)];
+    }
+
+    /**
+     * Getter for the number of moves left that will keep the tail in place.
+     *
+     * @return the moves left to grow
+     */
+    int getGrowPending() {
+        return growPending;
+    }
+
+    /**
+     * Getter for the number of body parts.
+     *
+     * @return the length of the snake
+     */
+    public int getLength() {
+        return bodyParts;
+    }
+
+    /**
+     * Getter for the board the snake moves on.
+     *
+     * @return the board
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Converts a position counted from the head into a buffer index.
+     */
+    private int index(int i) {
+        int index = headIndex + i;
+        return index < cells.length ? index : index - cells.length;
+    }
+
+    /**
+     * Doubles the buffer, copying the body in order so the head ends up at
+     * index 0.
+     */
+    private void enlarge() {
+        int[] larger = new int[cells.length * 2];
+        for (int i = 0; i < bodyParts; i++) {
+            larger[i] = cells[index(i)];
         }
+        cells = larger;
+        headIndex = 0;
     }
 }
@@ -0,0 +1,174 @@
+package SnakeHunt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Snapshot saves a level in progress so it can be resumed later exactly
+ * where it stopped, with the same hunts to come. Unlike a Replay, which
+ * plays the level again from its start, a snapshot holds the whole state:
+ * the level, the tick, the time played, the state of the random source, the
+ * hunt, the snake and the board with its free cell index.
+ *
+ * The file is a header followed by the state. The header holds the magic
+ * "SHSN", a version byte, the board width and height, the number of bytes
+ * of state and their CRC-32C. The state is written straight into a direct
+ * ByteBuffer, with the snake body and the board arrays copied in bulk, and
+ * the buffer goes to a FileChannel in one write; reading does the same in
+ * reverse. Nothing is converted one value at a time through a stream, so
+ * saving a long snake on a large board takes milliseconds.
+ *
+ * A snapshot is written to a temporary file which then replaces the old
+ * one, so a save cut short never destroys the previous snapshot.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public final class Snapshot {
+
+    /**
+     * Version of the file format written by this class.
+     */
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x5348534E; // "SHSN"
+    private static final int HEADER_BYTES = 4 + 1 + 4 + 4 + 4 + 4; // Magic, version, width, height, size, checksum
+
+    private Snapshot() {
+    }
+
+    /**
+     * Encodes the level an engine is playing.
+     *
+     * @param engine the engine, with a level in progress
+     * @return a direct buffer holding the whole file, ready to be written
+     * @throws IllegalStateException if the level has ended or is too large
+     * to fit in a buffer
+     */
+    public static ByteBuffer encode(GameEngine engine) {
+        long size = engine.stateSize();
+        if (size > Integer.MAX_VALUE - HEADER_BYTES) {
+            throw new IllegalStateException("Game state too large for a snapshot: " + size + " bytes");
+        }
+        Board board = engine.getBoard();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(HEADER_BYTES + (int) size);
+        buffer.putInt(MAGIC);
+        buffer.put((byte) VERSION);
+        buffer.putInt(board.getWidth());
+        buffer.putInt(board.getHeight());
+        buffer.putInt((int) size);
+        buffer.putInt(0); // Checksum, filled in below
+        engine.writeState(buffer);
+        buffer.putInt(HEADER_BYTES - 4, checksum(buffer, HEADER_BYTES, buffer.position()));
+        return buffer.flip();
+    }
+
+    /**
+     * Decodes a snapshot into a new engine.
+     *
+     * @param buffer the whole file, from its position to its limit
+     * @return the engine, with the level resumed where it was saved
+     * @throws IOException if the data is not a snapshot of a supported
+     * version, is damaged, or holds a state no game can reach, such as a
+     * free cell index that disagrees with the bitmap or a snake that is not
+     * in one piece
+     */
+    public static GameEngine decode(ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a Snake Hunt snapshot");
+        }
+        int version = buffer.get() & 0xFF;
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int size = buffer.getInt();
+        int expected = buffer.getInt();
+        if (width <= 0 || height <= 0 || size != buffer.remaining()) {
+            throw new IOException("Corrupt snapshot header");
+        }
+        if (checksum(buffer, start + HEADER_BYTES, buffer.limit()) != expected) {
+            throw new IOException("Snapshot checksum does not match");
+        }
+        try {
+            GameEngine engine = new GameEngine(width, height, 0L);
+            engine.readState(buffer);
+            return engine;
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt snapshot", e); // Valid checksum over invalid state
+        }
+    }
+
+    /**
+     * Computes the CRC-32C of the bytes of a buffer between two indexes,
+     * without moving its position.
+     */
+    private static int checksum(ByteBuffer buffer, int from, int to) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().limit(to).position(from));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Writes an encoded snapshot to a file, replacing it if it exists. The
+     * buffer position is not moved.
+     *
+     * @param snapshot the buffer returned by encode()
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(ByteBuffer snapshot, Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer bytes = snapshot.duplicate();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Saves the level an engine is playing to a file.
+     *
+     * @param engine the engine, with a level in progress
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(GameEngine engine, Path file) throws IOException {
+        write(encode(engine), file);
+    }
+
+    /**
+     * Loads a snapshot from a file.
+     *
+     * @param file the file written by save() or write()
+     * @return the engine, with the level resumed where it was saved
+     * @throws IOException if the file cannot be read or is not a valid
+     * snapshot
+     */
+    public static GameEngine load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a Snake Hunt snapshot");
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Snapshot ends early");
+                }
+            }
+            return decode(buffer.flip());
+        }
+    }
+}
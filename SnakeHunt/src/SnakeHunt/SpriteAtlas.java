@@ -0,0 +1,153 @@
+package SnakeHunt;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * SpriteAtlas holds every tile used to draw the snake and the hunt in a
+ * single image, rasterized once when the game starts. It contains the
+ * pentagon head in its four orientations, a fixed palette of green body
+ * ovals and the red hunt. Drawing a tile is a plain image copy, so no shape
+ * is computed and no object is created while a frame is painted.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class SpriteAtlas {
+
+    /**
+     * Number of shades of green available for the body parts.
+     */
+    public static final int BODY_PALETTE_SIZE = 32;
+
+    private static final long PALETTE_SEED = 0x5EEDL; // Fixed seed so the palette is the same every run
+    private static final int BODY_TILE = 4; // Tile index of the first body shade, after the four heads
+    private static final int HUNT_TILE = BODY_TILE + BODY_PALETTE_SIZE; // Tile index of the hunt
+
+    private final int tileSize;       // Width and height of one tile in pixels
+    private final BufferedImage atlas; // Heads first, then the body palette, then the hunt
+
+    /**
+     * Constructor that rasterizes all tiles for the given tile size.
+     *
+     * @param tileSize the size of one grid unit in pixels
+     */
+    public SpriteAtlas(int tileSize) {
+        this.tileSize = tileSize;
+        this.atlas = new BufferedImage((HUNT_TILE + 1) * tileSize, tileSize, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2d = atlas.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            for (Direction direction : Direction.values()) {
+                paintHead(g2d, direction.ordinal() * tileSize, direction);
+            }
+            Random random = new Random(PALETTE_SEED);
+            for (int i = 0; i < BODY_PALETTE_SIZE; i++) {
+                int red = random.nextInt(100);         // Red color range: 0 - 99
+                int green = random.nextInt(100) + 155; // Green color range: 155 - 255
+                int blue = random.nextInt(100);        // Blue color range: 0 - 99
+                g2d.setColor(new Color(red, green, blue));
+                g2d.fillOval((BODY_TILE + i) * tileSize, 0, tileSize, tileSize);
+            }
+            g2d.setColor(Color.RED);
+            g2d.fillOval(HUNT_TILE * tileSize, 0, tileSize, tileSize);
+        } finally {
+            g2d.dispose();
+        }
+    }
+
+    /**
+     * Draws the snake head facing the given direction.
+     *
+     * @param g the Graphics object used for drawing
+     * @param direction the direction the snake is moving
+     * @param x the left edge of the cell in pixels
+     * @param y the top edge of the cell in pixels
+     */
+    public void drawHead(Graphics g, Direction direction, int x, int y) {
+        drawTile(g, direction.ordinal(), x, y);
+    }
+
+    /**
+     * Draws a body part with one of the palette colors.
+     *
+     * @param g the Graphics object used for drawing
+     * @param shade the palette entry, from 0 to BODY_PALETTE_SIZE - 1
+     * @param x the left edge of the cell in pixels
+     * @param y the top edge of the cell in pixels
+     */
+    public void drawBody(Graphics g, int shade, int x, int y) {
+        drawTile(g, BODY_TILE + shade, x, y);
+    }
+
+    /**
+     * Draws the hunt.
+     *
+     * @param g the Graphics object used for drawing
+     * @param x the left edge of the cell in pixels
+     * @param y the top edge of the cell in pixels
+     */
+    public void drawHunt(Graphics g, int x, int y) {
+        drawTile(g, HUNT_TILE, x, y);
+    }
+
+    /**
+     * Picks a palette entry for a body part. A part never leaves the cell it
+     * was created on, so deriving the shade from the cell keeps it stable for
+     * the whole life of the part, while neighbouring cells get unrelated
+     * shades.
+     *
+     * @param cell the cell index of the part
+     * @return the palette entry, from 0 to BODY_PALETTE_SIZE - 1
+     */
+    public static int shadeOf(int cell) {
+        return (int) ((cell * 0x9E3779B97F4A7C15L) >>> 59); // Top 5 bits of a Fibonacci hash
+    }
+
+    /**
+     * Copies one tile of the atlas to the screen.
+     */
+    private void drawTile(Graphics g, int tile, int x, int y) {
+        int sx = tile * tileSize;
+        g.drawImage(atlas, x, y, x + tileSize, y + tileSize, sx, 0, sx + tileSize, tileSize, null);
+    }
+
+    /**
+     * Paints the green pentagon head at the given offset of the atlas.
+     */
+    private void paintHead(Graphics2D g2d, int offsetX, Direction direction) {
+        int xCenter = offsetX + tileSize / 2; // Center x of pentagon
+        int yCenter = tileSize / 2;           // Center y of pentagon
+        int radius = tileSize / 2;            // Radius for pentagon
+
+        double angleOffset = 0; // Default rotation angle for right-facing head
+        switch (direction) {
+            case UP:
+                angleOffset = -Math.PI / 2; // Rotate 90° counterclockwise for up
+                break;
+            case DOWN:
+                angleOffset = Math.PI / 2;  // Rotate 90° clockwise for down
+                break;
+            case LEFT:
+                angleOffset = Math.PI;      // Rotate 180° for left
+                break;
+            case RIGHT:
+                angleOffset = 0;            // No rotation for right
+                break;
+        }
+
+        // Calculate pentagon points based on center, radius, and direction
+        int[] xPoints = new int[5];
+        int[] yPoints = new int[5];
+        for (int j = 0; j < 5; j++) {
+            double angle = 2 * Math.PI / 5 * j + angleOffset; // Angle for each vertex
+            xPoints[j] = (int) (xCenter + radius * Math.cos(angle)); // X-coordinate
+            yPoints[j] = (int) (yCenter + radius * Math.sin(angle)); // Y-coordinate
+        }
+        g2d.setColor(Color.GREEN); // The snake's head is green
+        g2d.setClip(offsetX, 0, tileSize, tileSize); // Keep the pentagon tip out of the next tile
+        g2d.fillPolygon(xPoints, yPoints, 5);
+        g2d.setClip(null);
+    }
+}
@@ -0,0 +1,203 @@
+package SnakeHunt;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TickScheduler runs a task at a fixed period on its own thread, timed with
+ * System.nanoTime. It replaces javax.swing.Timer, whose millisecond
+ * granularity and dependence on the Swing event thread make ticks uneven.
+ *
+ * Deadlines are computed from the start time rather than from the previous
+ * tick, so small delays do not add up into drift. The thread sleeps until
+ * shortly before each deadline and then spins for the rest, which allows
+ * periods well below one millisecond. The spin is hinted to the processor
+ * with Thread.onSpinWait and never covers more than half the period, so the
+ * thread still sleeps on every tick at the shortest periods. When the task falls behind, missed
+ * ticks are run back to back up to a limit; beyond that the backlog is
+ * dropped so a stall does not turn into a burst of ticks.
+ *
+ * Stopping only interrupts the thread, so a tick it has already begun, for
+ * instance one waiting for a lock held by the caller of stop(), still runs.
+ * A task that must not act after a restart checks isCurrent() once it holds
+ * its lock.
+ *
+ * The interval between ticks is measured on every run, and the deviation
+ * from the period is kept as jitter statistics that can be read from any
+ * thread.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class TickScheduler {
+
+    /**
+     * Shortest period accepted, so a zero or negative delay cannot turn into
+     * a busy loop.
+     */
+    public static final long MIN_PERIOD_NANOS = 100_000L;
+
+    private static final long SPIN_NANOS = 200_000L; // Spin instead of sleeping this close to a deadline, at most
+    private static final int MAX_CATCH_UP_TICKS = 5; // Late ticks run back to back before dropping the backlog
+
+    private final String name;   // Name of the scheduler thread
+    private final Runnable task; // Task run on every tick
+    private volatile Thread thread; // Current scheduler thread, null when stopped
+    private volatile long periodNanos; // Time between two ticks
+
+    // Jitter statistics, written by the scheduler thread only
+    private volatile long ticks;              // Number of measured intervals
+    private volatile long lastIntervalNanos;  // Last measured interval between two ticks
+    private volatile long totalJitterNanos;   // Sum of the absolute deviations from the period
+    private volatile long maxJitterNanos;     // Largest absolute deviation from the period
+
+    /**
+     * Constructor to create a stopped scheduler.
+     *
+     * @param name the name of the scheduler thread
+     * @param task the task to run on every tick
+     */
+    public TickScheduler(String name, Runnable task) {
+        this.name = name;
+        this.task = task;
+    }
+
+    /**
+     * Starts ticking with the given period, stopping any previous run first.
+     * The first tick happens one period from now. The jitter statistics are
+     * reset.
+     *
+     * @param periodNanos the time between two ticks in nanoseconds
+     */
+    public synchronized void start(long periodNanos) {
+        stop();
+        this.periodNanos = Math.max(MIN_PERIOD_NANOS, periodNanos);
+        ticks = 0;
+        lastIntervalNanos = 0;
+        totalJitterNanos = 0;
+        maxJitterNanos = 0;
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Stops ticking. A tick already running is allowed to finish. Can be
+     * called from the task itself.
+     */
+    public synchronized void stop() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    /**
+     * Tells whether the calling thread is the thread of the current run, and
+     * not one left over from a run that was stopped or restarted since.
+     *
+     * @return true if the caller is the current scheduler thread
+     */
+    public boolean isCurrent() {
+        return thread == Thread.currentThread();
+    }
+
+    /**
+     * Getter for the time between two ticks.
+     *
+     * @return the period in nanoseconds
+     */
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * Getter for the number of intervals measured since the last start.
+     *
+     * @return the number of measured intervals
+     */
+    public long getTickCount() {
+        return ticks;
+    }
+
+    /**
+     * Getter for the last measured time between two ticks.
+     *
+     * @return the interval in nanoseconds, 0 before the second tick
+     */
+    public long getLastIntervalNanos() {
+        return lastIntervalNanos;
+    }
+
+    /**
+     * Getter for the average deviation of the tick interval from the
+     * period.
+     *
+     * @return the mean jitter in nanoseconds
+     */
+    public long getMeanJitterNanos() {
+        long count = ticks;
+        return count == 0 ? 0 : totalJitterNanos / count;
+    }
+
+    /**
+     * Getter for the largest deviation of the tick interval from the period.
+     *
+     * @return the maximum jitter in nanoseconds
+     */
+    public long getMaxJitterNanos() {
+        return maxJitterNanos;
+    }
+
+    /**
+     * Body of the scheduler thread.
+     */
+    private void run() {
+        Thread self = Thread.currentThread();
+        long period = periodNanos;
+        long spin = Math.min(SPIN_NANOS, period / 2); // Leave part of each period for sleeping
+        long deadline = System.nanoTime() + period;
+        long lastTick = 0;
+
+        while (!self.isInterrupted()) {
+            long wait = deadline - System.nanoTime();
+            if (wait > spin) {
+                LockSupport.parkNanos(wait - spin); // Sleep until close to the deadline
+                continue;
+            }
+            if (wait > 0) {
+                Thread.onSpinWait(); // Spin for the last stretch
+                continue;
+            }
+            if (self.isInterrupted()) {
+                break; // Stopped while waiting
+            }
+
+            long now = System.nanoTime();
+            if (lastTick != 0) {
+                recordInterval(now - lastTick, period);
+            }
+            lastTick = now;
+            task.run();
+
+            // Next deadline counts from the start, not from now, so delays do not drift
+            deadline += period;
+            if (System.nanoTime() - deadline > MAX_CATCH_UP_TICKS * period) {
+                deadline = System.nanoTime() + period; // Too far behind, drop the backlog
+            }
+        }
+    }
+
+    /**
+     * Adds one measured interval to the jitter statistics.
+     */
+    private void recordInterval(long interval, long period) {
+        long jitter = Math.abs(interval - period);
+        lastIntervalNanos = interval;
+        totalJitterNanos += jitter;
+        if (jitter > maxJitterNanos) {
+            maxJitterNanos = jitter;
+        }
+        ticks++;
+    }
+}
@@ -0,0 +1,180 @@
+package SnakeHunt;
+
+/**
+ * TranspositionTable remembers the values of game states already searched,
+ * keyed by their Zobrist hash, so that a search reaching a state again, by
+ * another order of moves, on a later tick or from another thread, reuses the
+ * result instead of searching it again. Its size is fixed when it is created
+ * and nothing is allocated afterwards.
+ *
+ * The table is an array of buckets of two entries. An entry is two longs:
+ * the data, which packs the value, the depth searched, the best move and the
+ * search generation, and the hash exclusive-ored with the data. Threads
+ * read and write entries without any lock. A probe recomputes the hash from
+ * the two longs and ignores the entry unless it matches, so an entry torn by
+ * two threads writing it at once reads as a miss rather than as a wrong
+ * value.
+ *
+ * When a state is stored, the first entry of its bucket keeps the deepest
+ * result: it is only replaced by a result at least as deep or once its
+ * generation is over. The second entry takes every other result, so recent
+ * states always find room. A result for a state already in the bucket
+ * replaces it in place.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class TranspositionTable {
+
+    /**
+     * Data returned by probe() when the state is not in the table.
+     */
+    public static final long MISS = 0L;
+
+    /**
+     * Move stored for a state without a best move.
+     */
+    public static final int NO_MOVE = 7;
+
+    /**
+     * Deepest search depth the table can hold.
+     */
+    public static final int MAX_DEPTH = 255;
+
+    private static final int DEPTH_SHIFT = 32;      // Bits 32 to 39 of the data
+    private static final int MOVE_SHIFT = 40;       // Bits 40 to 42
+    private static final int GENERATION_SHIFT = 43; // Bits 43 to 50
+    private static final long VALID = 1L << 62;     // Set in every stored entry, so none reads as MISS
+    private static final int SAMPLE_BUCKETS = 1000; // Buckets read by getUsage()
+
+    private final long[] entries; // Four longs per bucket: check and data of the first entry, then of the second
+    private final int mask;       // Number of buckets minus one
+    private volatile int generation; // Generation of the searches in progress, 8 bits
+
+    /**
+     * Constructor to create an empty table.
+     *
+     * @param bucketBits the base-2 logarithm of the number of buckets, each
+     * taking 32 bytes
+     */
+    public TranspositionTable(int bucketBits) {
+        if (bucketBits < 1 || bucketBits > 28) {
+            throw new IllegalArgumentException("Bucket bits must be between 1 and 28: " + bucketBits);
+        }
+        this.entries = new long[4 << bucketBits];
+        this.mask = (1 << bucketBits) - 1;
+    }
+
+    /**
+     * Starts a new generation, after which the deepest entries of older
+     * searches may be replaced. Called once per move chosen.
+     */
+    public void newGeneration() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Looks up a state.
+     *
+     * @param hash the Zobrist hash of the state
+     * @return the data of the state, to be read with value(), depth() and
+     * move(), or MISS if it is not in the table
+     */
+    public long probe(long hash) {
+        int bucket = ((int) hash & mask) << 2;
+        for (int i = bucket; i < bucket + 4; i += 2) {
+            long data = entries[i + 1];
+            if ((entries[i] ^ data) == hash && data != MISS) {
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores the result of a search of a state.
+     *
+     * @param hash the Zobrist hash of the state
+     * @param value the value found
+     * @param depth the depth searched, at most MAX_DEPTH
+     * @param move the Direction ordinal of the best move, or NO_MOVE
+     */
+    public void store(long hash, float value, int depth, int move) {
+        int current = generation;
+        long data = VALID | (long) current << GENERATION_SHIFT | (long) move << MOVE_SHIFT
+                | (long) depth << DEPTH_SHIFT | (Float.floatToRawIntBits(value) & 0xFFFF_FFFFL);
+        int bucket = ((int) hash & mask) << 2;
+        int slot = bucket + 2; // Always replaced unless the deep entry takes the result
+        long deep = entries[bucket + 1];
+        if ((entries[bucket] ^ deep) == hash || depth >= depth(deep) || generation(deep) != current) {
+            slot = bucket;
+        } else if ((entries[bucket + 2] ^ entries[bucket + 3]) == hash && depth < depth(entries[bucket + 3])) {
+            return; // Keep the deeper result of the same state
+        }
+        entries[slot] = hash ^ data;
+        entries[slot + 1] = data;
+    }
+
+    /**
+     * Getter for the value packed in the data of a state.
+     *
+     * @param data the data returned by probe()
+     * @return the value
+     */
+    public static float value(long data) {
+        return Float.intBitsToFloat((int) data);
+    }
+
+    /**
+     * Getter for the depth packed in the data of a state.
+     *
+     * @param data the data returned by probe()
+     * @return the depth searched
+     */
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    /**
+     * Getter for the best move packed in the data of a state.
+     *
+     * @param data the data returned by probe()
+     * @return the Direction ordinal of the move, or NO_MOVE
+     */
+    public static int move(long data) {
+        return (int) (data >>> MOVE_SHIFT) & 0x7;
+    }
+
+    /**
+     * Getter for the generation packed in the data of a state.
+     */
+    private static int generation(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & 0xFF;
+    }
+
+    /**
+     * Estimates how full the table is from the entries in use in the first
+     * buckets.
+     *
+     * @return the share of entries in use, from 0 to 1
+     */
+    public double getUsage() {
+        int buckets = Math.min(SAMPLE_BUCKETS, mask + 1);
+        int used = 0;
+        for (int i = 0; i < buckets * 4; i += 2) {
+            if (entries[i + 1] != MISS) {
+                used++;
+            }
+        }
+        return used / (2.0 * buckets);
+    }
+
+    /**
+     * Getter for the number of entries.
+     *
+     * @return two entries per bucket
+     */
+    public int getCapacity() {
+        return entries.length / 2;
+    }
+}
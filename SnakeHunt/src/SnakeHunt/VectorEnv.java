@@ -0,0 +1,721 @@
+package SnakeHunt;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * VectorEnv plays many independent games at once for training agents, in the
+ * manner of a gym vector environment: reset() starts every game, step()
+ * applies one action per game, and the observations, rewards and end flags
+ * of all games are left in preallocated arrays for the trainer to read.
+ *
+ * The games follow the rules of GameEngine exactly. A game started with the
+ * seed given by getEpisodeSeed() and played with the same directions goes
+ * through the same snake, hunts, score and end as GameEngine.reset(level,
+ * seed) followed by the same step() calls, since the hunts are drawn from
+ * the same free cell index with the same generator as GameRandom.
+ *
+ * The state of the games is kept in struct-of-arrays form rather than as
+ * GameEngine objects: one array per field, indexed by game, and one slab per
+ * board-sized array, with game g at offset g * cells. The body of each snake
+ * is a ring buffer of cells, as in Snake, sized for the whole board. Stepping
+ * a game allocates nothing.
+ *
+ * The observation of a game is three planes of one float per cell, in this
+ * order: the cells covered by the snake, the cell of its head and the cell
+ * of the hunt, each 1.0 where set and 0.0 elsewhere. The observations of all
+ * games follow each other in one FloatBuffer, either a view of a direct
+ * buffer in native byte order that other runtimes can read in place, or a
+ * wrapped float[]. A step changes at most six floats of a game, so the
+ * planes are updated in place instead of written again.
+ *
+ * A game that ended is started again on the next call to step(), which
+ * ignores its action, gives it a reward of 0 and leaves the first
+ * observation of its next episode, so the last observation of an episode
+ * stays readable until then. Episode n of game g is seeded from the base
+ * seed, g and n, so the games do not depend on the number of threads.
+ *
+ * With a pool, step() splits the games into fixed ranges that are stepped
+ * as fork-join tasks created once and reused. The only allocation left is
+ * the few bytes the pool may take to park the calling thread while it
+ * waits, once per call rather than per game.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class VectorEnv {
+
+    /**
+     * Action keeping the snake going straight. The other actions are the
+     * ordinals of Direction.
+     */
+    public static final int STRAIGHT = -1;
+
+    /**
+     * Number of float planes in the observation of a game.
+     */
+    public static final int PLANES = 3;
+
+    /**
+     * Plane of the cells covered by the snake.
+     */
+    public static final int BODY_PLANE = 0;
+
+    /**
+     * Plane of the head of the snake.
+     */
+    public static final int HEAD_PLANE = 1;
+
+    /**
+     * Plane of the hunt.
+     */
+    public static final int HUNT_PLANE = 2;
+
+    /**
+     * Reward for a step in which the snake eats the hunt.
+     */
+    public static final float HUNT_REWARD = 1f;
+
+    /**
+     * Reward for a step in which the snake hits a wall or itself.
+     */
+    public static final float LOSS_REWARD = -1f;
+
+    private static final int GAMES_PER_TASK = 256; // Games stepped by each task
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final byte RUNNING = (byte) GameEngine.Status.RUNNING.ordinal();
+    private static final byte WON = (byte) GameEngine.Status.WON.ordinal();
+    private static final byte LOST = (byte) GameEngine.Status.LOST.ordinal();
+    private static final long MULTIPLIER = 0x5DEECE66DL; // Generator of GameRandom
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private final int count;  // Number of games
+    private final int width;  // Board width in cells
+    private final int height; // Board height in cells
+    private final int cells;  // Cells per board
+    private final int words;  // Bitmap words per board
+    private final int level;  // Level played by every game
+    private final int winScore; // Hunts needed to win the level
+    private final long maxTicks; // Ticks after which an episode is truncated
+    private final ForkJoinPool pool; // Steps the games, null to step them on the calling thread
+    private final FloatBuffer observations; // PLANES * cells floats per game
+    private final float[] rewards;      // Reward of the last step of each game
+    private final boolean[] terminated; // True if the last step won or lost the game
+    private final boolean[] truncated;  // True if the last step reached maxTicks without ending the game
+    private long seed; // Base seed of the episodes
+
+    // Board of each game, as in Board
+    private final long[] occupied;    // words per game
+    private final int[] freeCells;    // cells per game
+    private final int[] freePosition; // cells per game
+    private final int[] freeCount;
+
+    // Snake of each game, as in Snake
+    private final int[] body;      // Ring buffer, cells per game, part i at (headIndex + i) % cells
+    private final int[] headIndex;
+    private final int[] length;
+    private final int[] growPending;
+    private final int[] huntsEaten;
+    private final byte[] direction; // Direction ordinal
+
+    // Hunt, random source and progress of each game
+    private final int[] hunt;      // Cell of the hunt, -1 when the board is full
+    private final long[] random;   // 48-bit generator state, as in GameRandom
+    private final long[] ticks;
+    private final byte[] status;   // GameEngine.Status ordinal
+    private final long[] episodes; // Episodes started so far
+
+    private final StepTask[] tasks; // One per range of games, null without a pool
+    private final StepAll stepAll;  // Runs the tasks, null without a pool
+    private int[] actions; // Actions of the step in progress
+
+    /**
+     * Constructor to create the games with their observations in a new
+     * direct buffer in native byte order.
+     *
+     * @param count the number of games
+     * @param width the board width in cells
+     * @param height the board height in cells
+     * @param level the level played, from 1 to GameEngine.MAX_LEVEL
+     * @param maxTicks the number of ticks after which an episode is
+     * truncated, or Long.MAX_VALUE for none
+     * @param pool the pool stepping the games, or null to step them on the
+     * calling thread
+     */
+    public VectorEnv(int count, int width, int height, int level, long maxTicks, ForkJoinPool pool) {
+        this(count, width, height, level, maxTicks, pool, ByteBuffer
+                .allocateDirect(4 * observationFloats(count, width, height))
+                .order(ByteOrder.nativeOrder()).asFloatBuffer());
+    }
+
+    /**
+     * Constructor to create the games with their observations in a given
+     * buffer, written from index 0 whatever its position.
+     *
+     * @param count the number of games
+     * @param width the board width in cells
+     * @param height the board height in cells
+     * @param level the level played, from 1 to GameEngine.MAX_LEVEL
+     * @param maxTicks the number of ticks after which an episode is
+     * truncated, or Long.MAX_VALUE for none
+     * @param pool the pool stepping the games, or null to step them on the
+     * calling thread
+     * @param observations the buffer receiving the observations, with a
+     * capacity of at least count * PLANES * width * height floats
+     */
+    public VectorEnv(int count, int width, int height, int level, long maxTicks, ForkJoinPool pool,
+            FloatBuffer observations) {
+        int floats = observationFloats(count, width, height);
+        if (level < 1 || level > GameEngine.MAX_LEVEL) {
+            throw new IllegalArgumentException("Level must be between 1 and " + GameEngine.MAX_LEVEL + ": " + level);
+        }
+        if (maxTicks <= 0) {
+            throw new IllegalArgumentException("Max ticks must be positive: " + maxTicks);
+        }
+        if (observations.capacity() < floats) {
+            throw new IllegalArgumentException("Observation buffer holds " + observations.capacity()
+                    + " floats, " + floats + " needed");
+        }
+        this.count = count;
+        this.width = width;
+        this.height = height;
+        this.cells = width * height;
+        this.words = (cells + 63) >>> 6;
+        this.level = level;
+        this.winScore = GameEngine.WIN_SCORES[level - 1];
+        this.maxTicks = maxTicks;
+        this.pool = pool;
+        this.observations = observations;
+        this.rewards = new float[count];
+        this.terminated = new boolean[count];
+        this.truncated = new boolean[count];
+        this.occupied = new long[count * words];
+        this.freeCells = new int[count * cells];
+        this.freePosition = new int[count * cells];
+        this.freeCount = new int[count];
+        this.body = new int[count * cells];
+        this.headIndex = new int[count];
+        this.length = new int[count];
+        this.growPending = new int[count];
+        this.huntsEaten = new int[count];
+        this.direction = new byte[count];
+        this.hunt = new int[count];
+        this.random = new long[count];
+        this.ticks = new long[count];
+        this.status = new byte[count];
+        this.episodes = new long[count];
+        if (pool != null) {
+            this.tasks = new StepTask[(count + GAMES_PER_TASK - 1) / GAMES_PER_TASK];
+            for (int i = 0; i < tasks.length; i++) {
+                tasks[i] = new StepTask(i * GAMES_PER_TASK, Math.min(count, (i + 1) * GAMES_PER_TASK));
+            }
+            this.stepAll = new StepAll();
+        } else {
+            this.tasks = null;
+            this.stepAll = null;
+        }
+        reset(0);
+    }
+
+    /**
+     * Computes the number of floats in the observations of all games, and
+     * checks the sizes.
+     */
+    private static int observationFloats(int count, int width, int height) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Game count must be positive: " + count);
+        }
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Board size must be positive: " + width + "x" + height);
+        }
+        if ((long) width * height > Board.FREE_INDEX_LIMIT) {
+            // Larger boards place hunts by repeated draws, which only pays off for a single game
+            throw new IllegalArgumentException("Board has too many cells: " + width + "x" + height);
+        }
+        long floats = (long) count * PLANES * width * height;
+        if (floats > Integer.MAX_VALUE / 4) {
+            throw new IllegalArgumentException("Too many games for one buffer: " + count + " of "
+                    + width + "x" + height);
+        }
+        return (int) floats;
+    }
+
+    /**
+     * Starts every game from scratch with a new base seed and episode
+     * numbers counted from 0, and writes their first observations. The
+     * rewards and end flags are cleared.
+     *
+     * @param seed the base seed of the episodes
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        Arrays.fill(episodes, 0L);
+        for (int game = 0; game < count; game++) {
+            start(game);
+        }
+    }
+
+    /**
+     * Advances every game by one tick, or starts it again if its last step
+     * ended it. The rewards, end flags and observations are updated when
+     * the call returns.
+     *
+     * @param actions the action of each game, a Direction ordinal or
+     * STRAIGHT, ignored for the games being started again
+     */
+    public void step(int[] actions) {
+        if (actions.length < count) {
+            throw new IllegalArgumentException("Expected " + count + " actions, got " + actions.length);
+        }
+        for (int game = 0; game < count; game++) {
+            if (actions[game] < STRAIGHT || actions[game] >= DIRECTIONS.length) {
+                throw new IllegalArgumentException("Action out of range for game " + game + ": " + actions[game]);
+            }
+        }
+        if (pool == null) {
+            step(actions, 0, count);
+            return;
+        }
+        this.actions = actions; // Published to the tasks by the pool hand-off
+        stepAll.reinitialize();
+        pool.invoke(stepAll);
+        this.actions = null;
+    }
+
+    /**
+     * Advances a range of games by one tick.
+     */
+    private void step(int[] actions, int from, int to) {
+        for (int game = from; game < to; game++) {
+            if (status[game] != RUNNING || ticks[game] >= maxTicks) {
+                start(game);
+            } else {
+                play(game, actions[game]);
+            }
+        }
+    }
+
+    /**
+     * Plays one tick of a running game the way GameEngine.step() does.
+     */
+    private void play(int game, int action) {
+        int cellBase = game * cells;
+        int planeBase = game * PLANES * cells;
+
+        // Snake.turn()
+        int dir = direction[game];
+        if (action != STRAIGHT && action != DIRECTIONS[dir].opposite().ordinal()) {
+            dir = action;
+            direction[game] = (byte) dir;
+        }
+
+        // Snake.move()
+        int head = body[cellBase + headIndex[game]];
+        int x = head % width + DIRECTIONS[dir].getDx();
+        int y = head / width + DIRECTIONS[dir].getDy();
+        ticks[game]++;
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            // Hit a wall: the snake stays put and the hunt stays placed, so the level is lost
+            status[game] = LOST;
+            rewards[game] = LOSS_REWARD;
+            terminated[game] = true;
+            truncated[game] = false;
+            return;
+        }
+        int newHead = x + y * width;
+        int parts = length[game];
+        if (growPending[game] > 0) {
+            growPending[game]--;
+        } else {
+            int tail = body[index(game, parts - 1)];
+            release(game, tail);
+            observations.put(planeBase + BODY_PLANE * cells + tail, 0f);
+            parts--;
+        }
+        boolean collided = isOccupied(game, newHead);
+        int front = headIndex[game] == 0 ? cells - 1 : headIndex[game] - 1;
+        headIndex[game] = front;
+        body[cellBase + front] = newHead;
+        length[game] = parts + 1;
+        occupy(game, newHead);
+        observations.put(planeBase + HEAD_PLANE * cells + head, 0f);
+        observations.put(planeBase + HEAD_PLANE * cells + newHead, 1f);
+        observations.put(planeBase + BODY_PLANE * cells + newHead, 1f);
+
+        // Snake.checkHunt()
+        float reward = 0f;
+        if (newHead == hunt[game]) {
+            growPending[game]++;
+            huntsEaten[game]++;
+            observations.put(planeBase + HUNT_PLANE * cells + newHead, 0f);
+            placeHunt(game);
+            reward = HUNT_REWARD;
+        }
+
+        // Win before collision, as in GameEngine.step()
+        if (huntsEaten[game] >= winScore || hunt[game] < 0) {
+            status[game] = WON;
+        } else if (collided) {
+            status[game] = LOST;
+            reward = LOSS_REWARD;
+        }
+        rewards[game] = reward;
+        terminated[game] = status[game] != RUNNING;
+        truncated[game] = !terminated[game] && ticks[game] >= maxTicks;
+    }
+
+    /**
+     * Starts the next episode of a game the way GameEngine.reset(level,
+     * seed) does, and writes its first observation.
+     */
+    private void start(int game) {
+        int cellBase = game * cells;
+        int planeBase = game * PLANES * cells;
+        long gameSeed = getEpisodeSeed(game, episodes[game]++);
+        random[game] = (gameSeed ^ MULTIPLIER) & MASK;
+
+        // Board.clear()
+        Arrays.fill(occupied, game * words, (game + 1) * words, 0L);
+        for (int i = 0; i < cells; i++) {
+            freeCells[cellBase + i] = i;
+            freePosition[cellBase + i] = i;
+        }
+        freeCount[game] = cells;
+        for (int i = planeBase; i < planeBase + PLANES * cells; i++) {
+            observations.put(i, 0f);
+        }
+
+        // new Snake(board), at cell 0 heading right
+        body[cellBase] = 0;
+        headIndex[game] = 0;
+        length[game] = 1;
+        growPending[game] = 0;
+        huntsEaten[game] = 0;
+        direction[game] = (byte) Direction.RIGHT.ordinal();
+        occupy(game, 0);
+        observations.put(planeBase + BODY_PLANE * cells, 1f);
+        observations.put(planeBase + HEAD_PLANE * cells, 1f);
+
+        // new Hunt(snake, random)
+        placeHunt(game);
+        ticks[game] = 0;
+        status[game] = RUNNING;
+        rewards[game] = 0f;
+        terminated[game] = false;
+        truncated[game] = false;
+    }
+
+    /**
+     * Places a new hunt on a free cell the way Hunt.newHunt() does on a
+     * board with a free cell index, and marks it in the observation.
+     */
+    private void placeHunt(int game) {
+        if (freeCount[game] == 0) {
+            hunt[game] = -1; // No free cell left for the hunt
+            return;
+        }
+        int cell = freeCells[game * cells + nextInt(game, freeCount[game])];
+        hunt[game] = cell;
+        observations.put(game * PLANES * cells + HUNT_PLANE * cells + cell, 1f);
+    }
+
+    /**
+     * Draws a number from 0 to bound - 1 from the generator of a game with
+     * the algorithm of Random.nextInt(int).
+     */
+    private int nextInt(int game, int bound) {
+        int r = next(game);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31); // Power of two, take the high bits
+        }
+        for (int u = r; u - (r = u % bound) + m < 0; u = next(game)) {
+            // Reject the draws past the last full multiple of bound
+        }
+        return r;
+    }
+
+    /**
+     * Advances the generator of a game and returns 31 random bits, as
+     * GameRandom.next(31) does.
+     */
+    private int next(int game) {
+        long state = (random[game] * MULTIPLIER + ADDEND) & MASK;
+        random[game] = state;
+        return (int) (state >>> 17);
+    }
+
+    /**
+     * Marks a cell of a game as covered and removes it from the free cells,
+     * as Board.occupy() does.
+     */
+    private void occupy(int game, int cell) {
+        int word = game * words + (cell >>> 6);
+        long bit = 1L << cell;
+        if ((occupied[word] & bit) != 0) {
+            return; // Already taken
+        }
+        occupied[word] |= bit;
+        swapFree(game, freePosition[game * cells + cell], --freeCount[game]);
+    }
+
+    /**
+     * Marks a cell of a game as free and adds it back to the free cells, as
+     * Board.release() does.
+     */
+    private void release(int game, int cell) {
+        int word = game * words + (cell >>> 6);
+        long bit = 1L << cell;
+        if ((occupied[word] & bit) == 0) {
+            return; // Already free
+        }
+        occupied[word] &= ~bit;
+        swapFree(game, freePosition[game * cells + cell], freeCount[game]++);
+    }
+
+    /**
+     * Checks if a cell of a game is covered by the snake.
+     */
+    private boolean isOccupied(int game, int cell) {
+        return (occupied[game * words + (cell >>> 6)] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Swaps two entries of the free cell index of a game and updates their
+     * positions.
+     */
+    private void swapFree(int game, int i, int j) {
+        int base = game * cells;
+        int a = freeCells[base + i];
+        int b = freeCells[base + j];
+        freeCells[base + i] = b;
+        freeCells[base + j] = a;
+        freePosition[base + b] = i;
+        freePosition[base + a] = j;
+    }
+
+    /**
+     * Converts a body part number of a game into its position in the ring
+     * buffer.
+     */
+    private int index(int game, int part) {
+        int index = headIndex[game] + part;
+        return game * cells + (index < cells ? index : index - cells);
+    }
+
+    /**
+     * Spreads consecutive numbers over the whole range of seeds, as
+     * BatchRunner does.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Getter for the seed of an episode of a game, to play it again with
+     * GameEngine.reset(level, seed).
+     *
+     * @param game the game number
+     * @param episode the episode number, counted from 0 since the last
+     * reset()
+     * @return the seed of the episode
+     */
+    public long getEpisodeSeed(int game, long episode) {
+        return mix(mix(seed + game) + episode);
+    }
+
+    /**
+     * Getter for the number of episodes a game has started since the last
+     * reset(), including the current one.
+     *
+     * @param game the game number
+     * @return the number of episodes
+     */
+    public long getEpisodes(int game) {
+        return episodes[game];
+    }
+
+    /**
+     * Getter for the observations of all games, PLANES * width * height
+     * floats per game from index 0. The buffer is the one given to the
+     * constructor, or a view of a direct buffer in native byte order.
+     *
+     * @return the observation buffer
+     */
+    public FloatBuffer getObservations() {
+        return observations;
+    }
+
+    /**
+     * Getter for the rewards of the last step, one per game. The array is
+     * reused by every step.
+     *
+     * @return the rewards
+     */
+    public float[] getRewards() {
+        return rewards;
+    }
+
+    /**
+     * Getter for the flags set for the games the last step won or lost. The
+     * array is reused by every step.
+     *
+     * @return the terminated flags
+     */
+    public boolean[] getTerminated() {
+        return terminated;
+    }
+
+    /**
+     * Getter for the flags set for the games the last step stopped at the
+     * tick limit while still running. The array is reused by every step.
+     *
+     * @return the truncated flags
+     */
+    public boolean[] getTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Getter for the state of a game after its last step.
+     *
+     * @param game the game number
+     * @return the state of the game
+     */
+    public GameEngine.Status getStatus(int game) {
+        return GameEngine.Status.values()[status[game]];
+    }
+
+    /**
+     * Getter for the cell of the head of the snake of a game.
+     *
+     * @param game the game number
+     * @return the cell index
+     */
+    public int getHead(int game) {
+        return body[game * cells + headIndex[game]];
+    }
+
+    /**
+     * Getter for a body part of the snake of a game.
+     *
+     * @param game the game number
+     * @param part the part number, 0 being the head
+     * @return the cell index
+     */
+    public int getSegment(int game, int part) {
+        return body[index(game, part)];
+    }
+
+    /**
+     * Getter for the length of the snake of a game.
+     *
+     * @param game the game number
+     * @return the number of body parts
+     */
+    public int getLength(int game) {
+        return length[game];
+    }
+
+    /**
+     * Getter for the cell of the hunt of a game.
+     *
+     * @param game the game number
+     * @return the cell index, or -1 when the board is full
+     */
+    public int getHunt(int game) {
+        return hunt[game];
+    }
+
+    /**
+     * Getter for the hunts eaten in the current episode of a game.
+     *
+     * @param game the game number
+     * @return the score
+     */
+    public int getScore(int game) {
+        return huntsEaten[game];
+    }
+
+    /**
+     * Getter for the ticks played in the current episode of a game.
+     *
+     * @param game the game number
+     * @return the number of ticks
+     */
+    public long getTick(int game) {
+        return ticks[game];
+    }
+
+    /**
+     * Getter for the number of games.
+     *
+     * @return the number of games
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Getter for the number of floats in the observation of one game.
+     *
+     * @return PLANES * width * height
+     */
+    public int getObservationSize() {
+        return PLANES * cells;
+    }
+
+    /**
+     * Getter for the level played by every game.
+     *
+     * @return the level, from 1 to GameEngine.MAX_LEVEL
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Runs every range task and waits for them. Created once and reused.
+     */
+    private final class StepAll extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            for (StepTask task : tasks) {
+                task.reinitialize();
+            }
+            ForkJoinTask.invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Steps one fixed range of games. Created once and reused.
+     */
+    private final class StepTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from; // First game, inclusive
+        private final int to;   // Last game, exclusive
+
+        StepTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            step(actions, from, to);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package SnakeHunt;
+
+import java.util.SplittableRandom;
+
+/**
+ * ZobristKeys holds the random 64-bit keys whose exclusive or makes the hash
+ * of a game state, for a transposition table. The hash of a state is the
+ * exclusive or of one key per fact about it:
+ *
+ * <ul>
+ * <li>for every body cell, a key for the cell and the direction from it to
+ * the next part towards the tail, or a tail mark for the last part;</li>
+ * <li>a key for the cell of the head;</li>
+ * <li>a key for the cell of the hunt, none when the board is full;</li>
+ * <li>a key for the direction of the snake;</li>
+ * <li>a key for the moves left to grow, for the hunts eaten and for the
+ * level, which decide when the level is won.</li>
+ * </ul>
+ *
+ * Storing each part as a cell and a link rather than as a cell and a
+ * position in the body keeps the hash exact for the order of the parts while
+ * letting a move change only a few keys: the new head gains a link to the
+ * old head, and when the tail moves the old tail loses its key and the part
+ * before it becomes the tail. A move or a growth thus updates the hash in
+ * constant time whatever the length of the snake.
+ *
+ * The keys come from a fixed seed, so every instance made for the same
+ * board size has the same keys and tables can be shared between them.
+ *
+ * @author Le Anh Tuan - CE180905, Nguyễn Minh Khang - CE190728, Lim The Toan -
+ * CE190616, Pham Gia Bao - CE191671
+ */
+public class ZobristKeys {
+
+    /**
+     * Link of the last body part, which has no next part.
+     */
+    public static final int TAIL = 4;
+
+    private static final int LINKS = 5;      // Direction ordinals and the tail mark
+    private static final long SEED = 0x5A0B_215EL; // Seed of every key table
+
+    private final int cells;     // Cells of the board the keys are made for
+    private final long[] body;   // Key of each cell and link, LINKS per cell
+    private final long[] head;   // Key of each head cell
+    private final long[] hunt;   // Key of each hunt cell
+    private final long[] direction = new long[Direction.values().length];
+    private final long[] grow;   // Key of each number of moves left to grow, at most the highest win score
+    private final long[] eaten;  // Key of each number of hunts eaten, at most the highest win score
+    private final long[] level = new long[GameEngine.MAX_LEVEL + 1];
+
+    /**
+     * Constructor to create the keys for a board size.
+     *
+     * @param width the board width in cells
+     * @param height the board height in cells
+     */
+    public ZobristKeys(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Board size must be positive: " + width + "x" + height);
+        }
+        if ((long) width * height * LINKS > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Board has too many cells: " + width + "x" + height);
+        }
+        this.cells = width * height;
+        this.body = new long[cells * LINKS];
+        this.head = new long[cells];
+        this.hunt = new long[cells];
+        int maxScore = 0;
+        for (int score : GameEngine.WIN_SCORES) {
+            maxScore = Math.max(maxScore, score);
+        }
+        this.grow = new long[maxScore + 1]; // Each move left to grow is a hunt eaten
+        this.eaten = new long[maxScore + 1];
+        SplittableRandom random = new SplittableRandom(SEED);
+        fill(random, body);
+        fill(random, head);
+        fill(random, hunt);
+        fill(random, direction);
+        fill(random, grow);
+        fill(random, eaten);
+        fill(random, level);
+    }
+
+    /**
+     * Fills a key table with random keys.
+     */
+    private static void fill(SplittableRandom random, long[] keys) {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Computes the hash of the state of an engine from scratch, in time
+     * proportional to the length of the snake.
+     *
+     * @param engine the game
+     * @return the hash of the state
+     */
+    public long hash(GameEngine engine) {
+        Snake snake = engine.getSnake();
+        Board board = snake.getBoard();
+        int length = snake.getLength();
+        long hash = head(snake.getHead()) ^ hunt(engine.getHunt().getCell()) ^ direction(snake.direction)
+                ^ grow(snake.getGrowPending()) ^ eaten(snake.huntsEaten) ^ level(engine.getLevel());
+        for (int part = 0; part < length; part++) {
+            int cell = snake.getSegment(part);
+            hash ^= body(cell, part + 1 < length ? link(board, cell, snake.getSegment(part + 1)) : TAIL);
+        }
+        return hash;
+    }
+
+    /**
+     * Finds the link from a body cell to the next part, a neighbouring cell.
+     *
+     * @param board the board
+     * @param from the cell of the part
+     * @param to the cell of the next part
+     * @return the Direction ordinal from one to the other
+     */
+    public static int link(Board board, int from, int to) {
+        int dx = board.cellX(to) - board.cellX(from);
+        int dy = board.cellY(to) - board.cellY(from);
+        if (dx != 0) {
+            return dx < 0 ? Direction.LEFT.ordinal() : Direction.RIGHT.ordinal();
+        }
+        return dy < 0 ? Direction.UP.ordinal() : Direction.DOWN.ordinal();
+    }
+
+    /**
+     * Getter for the key of a body part.
+     *
+     * @param cell the cell of the part
+     * @param link the Direction ordinal to the next part, or TAIL
+     * @return the key
+     */
+    public long body(int cell, int link) {
+        return body[cell * LINKS + link];
+    }
+
+    /**
+     * Getter for the key of the head cell.
+     *
+     * @param cell the cell of the head
+     * @return the key
+     */
+    public long head(int cell) {
+        return head[cell];
+    }
+
+    /**
+     * Getter for the key of the hunt cell.
+     *
+     * @param cell the cell of the hunt, or -1 when the board is full
+     * @return the key, 0 for -1
+     */
+    public long hunt(int cell) {
+        return cell >= 0 ? hunt[cell] : 0L;
+    }
+
+    /**
+     * Getter for the key of the direction of the snake.
+     *
+     * @param direction the direction
+     * @return the key
+     */
+    public long direction(Direction direction) {
+        return this.direction[direction.ordinal()];
+    }
+
+    /**
+     * Getter for the key of the moves left to grow.
+     *
+     * @param moves the moves left, at most the hunts eaten
+     * @return the key
+     */
+    public long grow(int moves) {
+        return grow[moves];
+    }
+
+    /**
+     * Getter for the key of the hunts eaten.
+     *
+     * @param hunts the hunts eaten, at most the highest win score
+     * @return the key
+     */
+    public long eaten(int hunts) {
+        return eaten[hunts];
+    }
+
+    /**
+     * Getter for the key of the level.
+     *
+     * @param level the level, from 1 to GameEngine.MAX_LEVEL
+     * @return the key
+     */
+    public long level(int level) {
+        return this.level[level];
+    }
+
+    /**
+     * Getter for the number of cells of the board the keys are made for.
+     *
+     * @return the number of cells
+     */
+    public int getCells() {
+        return cells;
+    }
+}